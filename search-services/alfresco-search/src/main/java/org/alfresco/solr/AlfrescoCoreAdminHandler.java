@@ -72,6 +72,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -79,6 +80,8 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -138,6 +141,8 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
     private static final String ARG_ACLID = "aclid";
     private static final String ARG_NODEID = "nodeid";
     private static final String ARG_QUERY = "query";
+    private static final String ARG_ASYNC = "async";
+    private static final String ARG_REQUESTID = "requestid";
     private static final String DATA_DIR_ROOT = "data.dir.root";
     public static final String ALFRESCO_DEFAULTS = "create.alfresco.defaults";
     private static final String NUM_SHARDS = "num.shards";
@@ -171,10 +176,34 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
     private static final String ACTION_TX_TO_REINDEX = "txToReindex";
     private static final String ACTION_ACL_CHANGE_SET_TO_REINDEX = "aclChangeSetToReindex";
 
+    /**
+     * Max number of asynchronous reports whose status is kept: the oldest are discarded first
+     */
+    private static final int MAX_REPORT_JOBS = 100;
+
     private SolrTrackerScheduler scheduler;
     private TrackerRegistry trackerRegistry;
     private ConcurrentHashMap<String, InformationServer> informationServers;
 
+    /**
+     * Asynchronous reports, by request id. Reports are executed one at a time, each of them reading the index and the
+     * repository in parallel (see the "alfresco.report.maxParallelism" core property).
+     */
+    private final Map<String, ReportJob> reportJobs = Collections.synchronizedMap(new LinkedHashMap<String, ReportJob>()
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ReportJob> eldest)
+        {
+            // Running (or queued) jobs are never discarded, as they are still polled
+            if (size() > MAX_REPORT_JOBS)
+            {
+                values().stream().filter(ReportJob::isFinished).findFirst().ifPresent(job -> values().remove(job));
+            }
+            return false;
+        }
+    });
+    private final ExecutorService reportExecutor = Executors.newSingleThreadExecutor();
+
     private static List<String> CORE_PARAMETER_NAMES = asList(CoreAdminParams.CORE, "coreName", "index");
 
     public AlfrescoCoreAdminHandler()
@@ -291,7 +320,9 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
             SOLRAPIClientFactory.close();
             MultiThreadedHttpConnectionManager.shutdownAll();
 
+            reportExecutor.shutdownNow();
             coreNames().forEach(trackerRegistry::removeTrackersForCore);
+            informationServers.values().forEach(InformationServer::shutdown);
             informationServers.clear();
 
             if (!scheduler.isShutdown())
@@ -429,8 +460,21 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
                     break;
                 // Get a detailed report for a core or for every core. This action accepts
                 // filtering based on commitTime, txid and acltxid
+                // When the "async" parameter is given the report is executed in background: the request id
+                // can be used for polling the progress and the partial results with the REPORTSTATUS action.
                 case "REPORT":
-                    rsp.add(REPORT, actionREPORT(params));
+                    if (params.get(ARG_ASYNC) != null)
+                    {
+                        rsp.add(ACTION_LABEL, actionAsyncREPORT(params));
+                    }
+                    else
+                    {
+                        rsp.add(REPORT, actionREPORT(params));
+                    }
+                    break;
+                // Get the status and the report built so far of an asynchronous REPORT
+                case "REPORTSTATUS":
+                    rsp.add(REPORT, actionREPORTSTATUS(params));
                     break;
                 // Add a nodeid, txid, acltxid or aclid to be purged on the next maintenance
                 // operation performed by MetadataTracker and AclTracker.
@@ -1375,32 +1419,7 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
     {
         NamedList<Object> report = new SimpleOrderedMap<>();
 
-        Long fromTime = getSafeLong(params, "fromTime");
-        Long toTime = getSafeLong(params, "toTime");
-        Long fromTx = getSafeLong(params, "fromTx");
-        Long toTx = getSafeLong(params, "toTx");
-        Long fromAclTx = getSafeLong(params, "fromAclTx");
-        Long toAclTx = getSafeLong(params, "toAclTx");
-
-        String requestedCoreName = coreName(params);
-
-        coreNames().stream()
-                .filter(coreName -> requestedCoreName == null || coreName.equals(requestedCoreName))
-                .filter(trackerRegistry::hasTrackersForCore)
-                .filter(this::isMasterOrStandalone)
-                .forEach(coreName ->
-                        report.add(
-                                coreName,
-                                buildTrackerReport(
-                                        trackerRegistry,
-                                        informationServers.get(coreName),
-                                        coreName,
-                                        fromTx,
-                                        toTx,
-                                        fromAclTx,
-                                        toAclTx,
-                                        fromTime,
-                                        toTime)));
+        reportedCoreNames(params).forEach(coreName -> report.add(coreName, coreReport(coreName, params, new ReportProgress())));
 
         if (report.size() == 0)
         {
@@ -1409,6 +1428,102 @@ public class AlfrescoCoreAdminHandler extends CoreAdminHandler
         return report;
     }
 
+    /**
+     * Submits a detailed report for a core or for every core, to be executed in background.
+     * The same filters of the synchronous REPORT are accepted.
+     *
+     * Asynchronous execution
+     *
+     * @param params Query Request with the same parameters of the synchronous REPORT and
+     * - async, mandatory: the request id, used for getting the report with the REPORTSTATUS action
+     * @return Response including the action result:
+     * - status: scheduled, as the report will be executed in background
+     * - status: error, when a report with the same request id already exists
+     * - errorMessage: message, if action status is "error" an error message node is included
+     */
+    private NamedList<Object> actionAsyncREPORT(SolrParams params)
+    {
+        NamedList<Object> response = new SimpleOrderedMap<>();
+        String requestId = params.get(ARG_ASYNC);
+
+        List<String> coreNames = reportedCoreNames(params);
+        if (coreNames.isEmpty())
+        {
+            addAlertMessage(response);
+            return response;
+        }
+
+        ReportJob job = new ReportJob(coreNames);
+        if (reportJobs.putIfAbsent(requestId, job) != null)
+        {
+            response.add(ACTION_STATUS_LABEL, ACTION_STATUS_ERROR);
+            response.add(ACTION_ERROR_MESSAGE_LABEL, "A report with request id " + requestId + " already exists");
+            return response;
+        }
+
+        reportExecutor.execute(() -> job.run(coreName -> coreReport(coreName, params, job.getProgress())));
+
+        response.add(ACTION_STATUS_LABEL, ACTION_STATUS_SCHEDULED);
+        response.add(ARG_REQUESTID, requestId);
+        return response;
+    }
+
+    /**
+     * Get the status of a report submitted with the "async" parameter, including the report of the cores checked
+     * so far.
+     *
+     * Synchronous execution
+     *
+     * @param params Query Request with following parameters:
+     * - requestid, mandatory: the request id given in the "async" parameter of the REPORT
+     * @return Response including the report status:
+     * - status: running, completed or failed
+     * - Cores, Cores reported: the number of cores to be checked and the number of cores checked so far
+     * - Ids checked, Ids to check: the transactions and ACL change sets checked so far and the ones found so far
+     * - report.core: the details of the report of each core checked so far
+     */
+    private NamedList<Object> actionREPORTSTATUS(SolrParams params)
+    {
+        String requestId = params.get(ARG_REQUESTID);
+        ReportJob job = requestId == null ? null : reportJobs.get(requestId);
+        if (job == null)
+        {
+            NamedList<Object> response = new SimpleOrderedMap<>();
+            response.add(ACTION_STATUS_LABEL, ACTION_STATUS_ERROR);
+            response.add(ACTION_ERROR_MESSAGE_LABEL, "No report found with request id " + requestId);
+            return response;
+        }
+        return job.toNamedList();
+    }
+
+    /**
+     * Returns the names of the cores a REPORT applies to: the requested core or every master/standalone core.
+     */
+    private List<String> reportedCoreNames(SolrParams params)
+    {
+        String requestedCoreName = coreName(params);
+        return coreNames().stream()
+                .filter(coreName -> requestedCoreName == null || coreName.equals(requestedCoreName))
+                .filter(trackerRegistry::hasTrackersForCore)
+                .filter(this::isMasterOrStandalone)
+                .collect(Collectors.toList());
+    }
+
+    private NamedList<Object> coreReport(String coreName, SolrParams params, ReportProgress progress)
+    {
+        return buildTrackerReport(
+                trackerRegistry,
+                informationServers.get(coreName),
+                coreName,
+                getSafeLong(params, "fromTx"),
+                getSafeLong(params, "toTx"),
+                getSafeLong(params, "fromAclTx"),
+                getSafeLong(params, "toAclTx"),
+                getSafeLong(params, "fromTime"),
+                getSafeLong(params, "toTime"),
+                progress);
+    }
+
     /**
      * Add a nodeid, txid, acltxid or aclid to be purged on the next maintenance
      * operation performed by MetadataTracker and AclTracker.
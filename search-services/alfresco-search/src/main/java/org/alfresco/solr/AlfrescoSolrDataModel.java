@@ -42,9 +42,14 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.alfresco.error.AlfrescoRuntimeException;
@@ -210,6 +215,13 @@ public class AlfrescoSolrDataModel implements QueryConstants
     private Set<QName> crossLocaleSearchProperties = new HashSet<>();
 
     private Set<QName> identifierProperties = new HashSet<>();
+
+    /** The field mappings computed against the current dictionary; replaced (never cleared) when the dictionary changes. */
+    private volatile FieldMappings fieldMappings = new FieldMappings();
+
+    /** Incremented on every dictionary change. */
+    private final AtomicLong dictionaryVersion = new AtomicLong();
+
     private ThreadPoolExecutor threadPool;
 
     public void close() {
@@ -398,6 +410,11 @@ public class AlfrescoSolrDataModel implements QueryConstants
     }
 
     public String getAlfrescoPropertyFromSchemaField(String schemaField)
+    {
+        return mapped(fieldMappings.alfrescoProperties, schemaField, () -> alfrescoPropertyFromSchemaField(schemaField));
+    }
+
+    private String alfrescoPropertyFromSchemaField(String schemaField)
     {
         int index = schemaField.lastIndexOf("@{");
         if(index == -1)
@@ -666,6 +683,13 @@ public class AlfrescoSolrDataModel implements QueryConstants
 
 
     public IndexedField getQueryableFields(QName propertyQName,  ContentFieldType type, FieldUse fieldUse)
+    {
+        return mapped(fieldMappings.queryableFields,
+                new MappingKey(propertyQName, type, fieldUse, 0, false),
+                () -> queryableFields(propertyQName, type, fieldUse));
+    }
+
+    private IndexedField queryableFields(QName propertyQName,  ContentFieldType type, FieldUse fieldUse)
     {
         if(type != null)
         {
@@ -1044,8 +1068,11 @@ public class AlfrescoSolrDataModel implements QueryConstants
      */
     public IndexedField getIndexedFieldNamesForProperty(QName propertyQName)
     {
-        // TODO: Cache and throw on model refresh
+        return mapped(fieldMappings.indexedFields, propertyQName, () -> indexedFieldNamesForProperty(propertyQName));
+    }
 
+    private IndexedField indexedFieldNamesForProperty(QName propertyQName)
+    {
         IndexedField indexedField = new IndexedField();
         PropertyDefinition propertyDefinition = getPropertyDefinition(propertyQName);
         if((propertyDefinition == null))
@@ -1286,6 +1313,7 @@ public class AlfrescoSolrDataModel implements QueryConstants
         {
             modelErrors.remove(model.getName());
             dictionaryDAO.putModelIgnoringConstraints(model);
+            dictionaryChanged();
             return true;
         }
         else
@@ -1303,6 +1331,7 @@ public class AlfrescoSolrDataModel implements QueryConstants
     {
         modelErrors.remove(getM2Model(modelQName).getName());
         dictionaryDAO.removeModel(modelQName);
+        dictionaryChanged();
     }
 
     private Set<String> validateModel(M2Model model)
@@ -1340,6 +1369,47 @@ public class AlfrescoSolrDataModel implements QueryConstants
         {
             cds.afterDictionaryInit();
         }
+        dictionaryChanged();
+    }
+
+    /**
+     * Discards the field mappings computed so far, so they are computed again against the changed dictionary.
+     */
+    private void dictionaryChanged()
+    {
+        fieldMappings = new FieldMappings();
+        dictionaryVersion.incrementAndGet();
+    }
+
+    /**
+     * Returns the version of the dictionary, which changes every time a model is added, updated or removed.
+     * Anything derived from the dictionary (e.g. a parsed query) and tagged with a version is stale as soon as the
+     * version changes.
+     *
+     * @return the current version of the dictionary.
+     */
+    public long getDictionaryVersion()
+    {
+        return dictionaryVersion.get();
+    }
+
+    /**
+     * Returns the mapping of the given key from the given table, computing (and caching) it on a miss.
+     * Mappings are cached only when not null.
+     */
+    private static <K, V> V mapped(Map<K, V> mappings, K key, Supplier<V> mapping)
+    {
+        V value = mappings.get(key);
+        if (value == null)
+        {
+            value = mapping.get();
+            if (value != null)
+            {
+                V previous = mappings.putIfAbsent(key, value);
+                return previous != null ? previous : value;
+            }
+        }
+        return value;
     }
 
     public org.alfresco.repo.search.impl.querymodel.Query parseCMISQueryToAlfrescoAbstractQuery(CMISQueryMode mode, SearchParameters searchParameters,
@@ -1439,6 +1509,79 @@ public class AlfrescoSolrDataModel implements QueryConstants
         return modelErrors;
     }
 
+    /**
+     * The field mappings computed against a given dictionary (i.e. a given version of the models).
+     * Instances are never cleared: a new, empty, instance replaces the current one when the dictionary changes, so a
+     * lookup never mixes mappings computed against different model versions and never needs a lock.
+     */
+    private static class FieldMappings
+    {
+        /** Indexed fields, by property. */
+        private final Map<QName, IndexedField> indexedFields = new ConcurrentHashMap<>();
+
+        /** Queryable fields, by property, content field type and field use. */
+        private final Map<MappingKey, IndexedField> queryableFields = new ConcurrentHashMap<>();
+
+        /** Query fields, by requested field, field use, position and "is a schema field" flag. */
+        private final Map<MappingKey, String> queryFields = new ConcurrentHashMap<>();
+
+        /** Stored fields, by requested field and "is a schema field" flag. */
+        private final Map<MappingKey, String> storedFields = new ConcurrentHashMap<>();
+
+        /** Alfresco properties, by schema field. */
+        private final Map<String, String> alfrescoProperties = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * The key of a field mapping: the requested field or property plus what its mapping depends on. Unused
+     * components are null, 0 or false. The hash code is computed once, as keys are built on every lookup.
+     */
+    private static final class MappingKey
+    {
+        private final Object field;
+        private final ContentFieldType contentFieldType;
+        private final FieldUse fieldUse;
+        private final int position;
+        private final boolean schemaField;
+        private final int hashCode;
+
+        private MappingKey(Object field, ContentFieldType contentFieldType, FieldUse fieldUse, int position, boolean schemaField)
+        {
+            this.field = field;
+            this.contentFieldType = contentFieldType;
+            this.fieldUse = fieldUse;
+            this.position = position;
+            this.schemaField = schemaField;
+
+            int hash = Objects.hashCode(field);
+            hash = 31 * hash + Objects.hashCode(contentFieldType);
+            hash = 31 * hash + Objects.hashCode(fieldUse);
+            hash = 31 * hash + position;
+            this.hashCode = 31 * hash + (schemaField ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (!(o instanceof MappingKey)) return false;
+
+            MappingKey that = (MappingKey) o;
+            return hashCode == that.hashCode
+                    && position == that.position
+                    && schemaField == that.schemaField
+                    && contentFieldType == that.contentFieldType
+                    && fieldUse == that.fieldUse
+                    && Objects.equals(field, that.field);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+
     public static class IndexedField
     {
         private final List<FieldInstance> fields = new LinkedList<>();
@@ -1612,6 +1755,16 @@ public class AlfrescoSolrDataModel implements QueryConstants
             return "score";
         }
 
+        // The schema is only used for telling whether the field name is a schema field, which is part of the key
+        Pair<String, String> fieldNameAndEnding = QueryParserUtils.extractFieldNameAndEnding(potentialProperty);
+        boolean schemaField = req.getSchema().getFieldOrNull(fieldNameAndEnding.getFirst()) != null;
+        return mapped(fieldMappings.storedFields,
+                new MappingKey(potentialProperty, null, null, 0, schemaField),
+                () -> storedPropertyField(fieldNameAndEnding, req));
+    }
+
+    private String storedPropertyField(Pair<String, String> fieldNameAndEnding, SolrQueryRequest req)
+    {
         AlfrescoFunctionEvaluationContext functionContext =
             new AlfrescoSolr4FunctionEvaluationContext(
                 getNamespaceDAO(),
@@ -1619,8 +1772,6 @@ public class AlfrescoSolrDataModel implements QueryConstants
                 NamespaceService.CONTENT_MODEL_1_0_URI,
                 req.getSchema());
 
-
-        Pair<String, String> fieldNameAndEnding = QueryParserUtils.extractFieldNameAndEnding(potentialProperty);
         String luceneField =  functionContext.getLuceneFieldName(fieldNameAndEnding.getFirst());
 
         PropertyDefinition propertyDef = getPropertyDefinition(fieldNameAndEnding.getFirst());
@@ -1673,26 +1824,73 @@ public class AlfrescoSolrDataModel implements QueryConstants
             return mapNonPropertyFields(potentialProperty);
         }
 
-        AlfrescoFunctionEvaluationContext functionContext =
-                new AlfrescoSolr4FunctionEvaluationContext(
-                        getNamespaceDAO(),
-                        getDictionaryService(CMISStrictDictionaryService.DEFAULT),
-                        NamespaceService.CONTENT_MODEL_1_0_URI,
-                        req.getSchema());
+        // The schema is only used for telling whether the field name is a schema field, which is part of the key
+        Pair<String, String> fieldNameAndEnding = QueryParserUtils.extractFieldNameAndEnding(potentialProperty);
+        boolean schemaField = req.getSchema().getFieldOrNull(fieldNameAndEnding.getFirst()) != null;
+        return mapped(fieldMappings.queryFields,
+                new MappingKey(potentialProperty, null, fieldUse, position, schemaField),
+                () -> propertyField(fieldNameAndEnding, fieldUse, req, position));
+    }
 
+    /**
+     * Returns the cross-locale field of the given property, i.e. the tokenised field which is not locale specific.
+     * The field is empty if the property is not indexed for cross-locale full text search.
+     *
+     * @param potentialProperty the property name, as used in a request (e.g. "content", "cm:name").
+     * @param req the current request.
+     * @return the cross-locale field of the property, if it has one.
+     */
+    public Optional<String> getCrossLocaleField(String potentialProperty, SolrQueryRequest req)
+    {
         Pair<String, String> fieldNameAndEnding = QueryParserUtils.extractFieldNameAndEnding(potentialProperty);
-        String luceneField =  functionContext.getLuceneFieldName(fieldNameAndEnding.getFirst());
+        PropertyDefinition propertyDef = propertyDefinition(fieldNameAndEnding.getFirst(), req);
+        if (propertyDef == null
+                || getTextField(fieldNameAndEnding.getSecond()) != null
+                || !propertyDef.isIndexed()
+                || !isTextField(propertyDef)
+                || !(crossLocaleSearchDataTypes.contains(propertyDef.getDataType().getName())
+                        || crossLocaleSearchProperties.contains(propertyDef.getName()))
+                || !(propertyDef.getIndexTokenisationMode() == IndexTokenisationMode.TRUE
+                        || propertyDef.getIndexTokenisationMode() == IndexTokenisationMode.BOTH)
+                || isIdentifierTextProperty(propertyDef.getName()))
+        {
+            return Optional.empty();
+        }
+        return Optional.of(getFieldForText(false, true, false, propertyDef));
+    }
 
-        PropertyDefinition propertyDef = getPropertyDefinition(fieldNameAndEnding.getFirst());
+    private PropertyDefinition propertyDefinition(String fieldName, SolrQueryRequest req)
+    {
+        PropertyDefinition propertyDef = getPropertyDefinition(fieldName);
         //Retry scan using luceneField.
         if(propertyDef == null)
         {
+            String luceneField = luceneField(fieldName, req);
             if(luceneField.contains("@"))
             {
                 int index = luceneField.lastIndexOf("@");
                 propertyDef = getPropertyDefinition(luceneField.substring(index +1));
             }
         }
+        return propertyDef;
+    }
+
+    private String luceneField(String fieldName, SolrQueryRequest req)
+    {
+        AlfrescoFunctionEvaluationContext functionContext =
+                new AlfrescoSolr4FunctionEvaluationContext(
+                        getNamespaceDAO(),
+                        getDictionaryService(CMISStrictDictionaryService.DEFAULT),
+                        NamespaceService.CONTENT_MODEL_1_0_URI,
+                        req.getSchema());
+
+        return functionContext.getLuceneFieldName(fieldName);
+    }
+
+    private String propertyField(Pair<String, String> fieldNameAndEnding, FieldUse fieldUse, SolrQueryRequest req, int position)
+    {
+        String luceneField = luceneField(fieldNameAndEnding.getFirst(), req);
+        PropertyDefinition propertyDef = propertyDefinition(fieldNameAndEnding.getFirst(), req);
         String solrSortField;
         solrSortField = mapAlfrescoField(fieldUse, position, fieldNameAndEnding, luceneField, propertyDef);
         return solrSortField;
@@ -1770,6 +1968,7 @@ public class AlfrescoSolrDataModel implements QueryConstants
         if(getNamespaceDAO().getURIs().contains(NamespaceService.CONTENT_MODEL_1_0_URI))
         {
             getNamespaceDAO().addPrefix("", NamespaceService.CONTENT_MODEL_1_0_URI);
+            dictionaryChanged();
         }
     }
 
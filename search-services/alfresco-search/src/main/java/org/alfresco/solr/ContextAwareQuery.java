@@ -115,6 +115,11 @@ public class ContextAwareQuery extends Query
         return luceneQuery;
     }
 
+    public SearchParameters getSearchParameters()
+    {
+        return searchParameters;
+    }
+
 
 
 }
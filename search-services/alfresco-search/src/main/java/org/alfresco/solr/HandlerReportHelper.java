@@ -152,12 +152,18 @@ class HandlerReportHelper
 
     static NamedList<Object> buildTrackerReport(TrackerRegistry trackerRegistry, InformationServer srv, String coreName, Long fromTx, Long toTx, Long fromAclTx, Long toAclTx,
                                                 Long fromTime, Long toTime) throws JSONException
+    {
+        return buildTrackerReport(trackerRegistry, srv, coreName, fromTx, toTx, fromAclTx, toAclTx, fromTime, toTime, new ReportProgress());
+    }
+
+    static NamedList<Object> buildTrackerReport(TrackerRegistry trackerRegistry, InformationServer srv, String coreName, Long fromTx, Long toTx, Long fromAclTx, Long toAclTx,
+                                                Long fromTime, Long toTime, ReportProgress progress) throws JSONException
     {
         try
         {
             // ACL
             AclTracker aclTracker = trackerRegistry.getTrackerForCore(coreName, AclTracker.class);
-            IndexHealthReport aclReport = aclTracker.checkIndex(toAclTx, fromTime, toTime);
+            IndexHealthReport aclReport = aclTracker.checkIndex(toAclTx, fromTime, toTime, progress);
             NamedList<Object> ihr = new SimpleOrderedMap<>();
             ihr.add("DB acl transaction count", aclReport.getDbAclTransactionCount());
             ihr.add("Count of duplicated acl transactions in the index", aclReport.getDuplicatedAclTxInIndex()
@@ -187,7 +193,7 @@ class HandlerReportHelper
 
             // Metadata
             MetadataTracker metadataTracker = trackerRegistry.getTrackerForCore(coreName, MetadataTracker.class);
-            IndexHealthReport metaReport = metadataTracker.checkIndex(toTx, fromTime, toTime);
+            IndexHealthReport metaReport = metadataTracker.checkIndex(toTx, fromTime, toTime, progress);
             ihr.add("DB transaction count", metaReport.getDbTransactionCount());
             ihr.add("Count of duplicated transactions in the index", metaReport.getDuplicatedTxInIndex()
                     .cardinality());
@@ -525,6 +531,24 @@ class HandlerReportHelper
         coreSummary.add("Approx change set indexing time remaining",
                 remainingChangeSet.largestComponentformattedString());
 
+        coreSummary.add("TX time windows probed", metaTrkr.getTimeWindows().getWindowsProbed());
+        coreSummary.add("TX time windows with data", metaTrkr.getTimeWindows().getWindowsWithData());
+        coreSummary.add("Change Set time windows probed", aclTrkr.getTimeWindows().getWindowsProbed());
+        coreSummary.add("Change Set time windows with data", aclTrkr.getTimeWindows().getWindowsWithData());
+
+        // Failure isolation
+
+        coreSummary.add("Node quarantines", metaTrkr.getQuarantinedNodes().getQuarantined());
+        coreSummary.add("Nodes awaiting retry", metaTrkr.getQuarantinedNodes().size());
+        coreSummary.add("Nodes recovered from quarantine", metaTrkr.getQuarantinedNodes().getRecovered());
+        coreSummary.add("Nodes given up after quarantine", metaTrkr.getQuarantinedNodes().getGivenUp());
+        coreSummary.add("ACL quarantines", aclTrkr.getQuarantinedAcls().getQuarantined());
+        coreSummary.add("ACLs awaiting retry", aclTrkr.getQuarantinedAcls().size());
+        coreSummary.add("ACLs recovered from quarantine", aclTrkr.getQuarantinedAcls().getRecovered());
+        coreSummary.add("ACLs given up after quarantine", aclTrkr.getQuarantinedAcls().getGivenUp());
+        ofNullable(trackerRegistry.getTrackerForCore(cname, CommitTracker.class))
+                .ifPresent(commitTracker -> coreSummary.add("Rollbacks", commitTracker.getRollbackCount()));
+
         coreSummary.add("Approx content indexing time remaining",
                 remainingContent.largestComponentformattedString());
 
@@ -539,6 +563,8 @@ class HandlerReportHelper
         coreSummary.add("Docs/Tx", srv.getTrackerStats().getTxDocs().getNamedList(detail, hist, values));
         coreSummary.add("Doc Transformation time (ms)", srv.getTrackerStats().getDocTransformationTimes()
                 .getNamedList(detail, hist, values));
+        coreSummary.add("Cascade child batch fetch time (ms)", srv.getTrackerStats().getCascadeBatchTimes()
+                .getNamedList(detail, hist, values));
 
         // Model
 
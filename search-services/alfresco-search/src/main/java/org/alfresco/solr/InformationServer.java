@@ -27,6 +27,7 @@
 package org.alfresco.solr;
 
 import java.io.IOException;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -96,7 +97,13 @@ public interface InformationServer extends InformationServerCollectionProvider
 
     void indexNode(Node node, boolean overwrite) throws IOException, AuthenticationException, JSONException;
     
-    void indexNodes(List<Node> nodes, boolean overwrite) throws IOException, AuthenticationException, JSONException;
+    /**
+     * Indexes a batch of nodes. When the batch fails and quarantine is enabled, nodes are indexed one at a time and
+     * the failing ones are recorded as error nodes. Otherwise, or if an error node cannot be written, the batch fails.
+     *
+     * @return the ids of the nodes which failed, empty if the whole batch has been indexed.
+     */
+    List<Long> indexNodes(List<Node> nodes, boolean overwrite) throws IOException, AuthenticationException, JSONException;
 
     void cascadeNodes(List<NodeMetaData> nodes, boolean overwrite) throws IOException, AuthenticationException, JSONException;
 
@@ -104,6 +111,14 @@ public interface InformationServer extends InformationServerCollectionProvider
 
     long indexAcl(List<AclReaders> aclReaderList, boolean overwrite) throws IOException;
 
+    /**
+     * Removes the reader document of an ACL which cannot be indexed and records it as error ACL, so the nodes it
+     * protects are not readable until the ACL is reindexed.
+     */
+    void indexErrorAcl(Long aclId, Throwable cause) throws IOException;
+
+    void deleteErrorAcl(Long aclId) throws IOException;
+
     TrackerState getTrackerInitialState();
 
     void continueState(TrackerState state);
@@ -116,6 +131,20 @@ public interface InformationServer extends InformationServerCollectionProvider
 
     boolean aclChangeSetInIndex(long changeSetId, boolean populateCache) throws IOException;
 
+    /**
+     * Bulk version of {@link #txnInIndex(long, boolean)}.
+     *
+     * @return a bitset where bit i is set if txnIds[i] is in the index.
+     */
+    BitSet txnsInIndex(long[] txnIds, boolean populateCache) throws IOException;
+
+    /**
+     * Bulk version of {@link #aclChangeSetInIndex(long, boolean)}.
+     *
+     * @return a bitset where bit i is set if changeSetIds[i] is in the index.
+     */
+    BitSet aclChangeSetsInIndex(long[] changeSetIds, boolean populateCache) throws IOException;
+
     List<Transaction> getCascades(int num) throws IOException;
 
     void updateTransaction(Transaction txn) throws IOException;
@@ -132,6 +161,11 @@ public interface InformationServer extends InformationServerCollectionProvider
 
     Set<Long> getErrorDocIds() throws IOException;
 
+    /**
+     * @return the ids of the ACLs recorded as error ACLs, i.e. waiting to be reindexed.
+     */
+    Set<Long> getErrorAclIds() throws IOException;
+
     Iterable<Map.Entry<String, Object>> getCoreStats() throws IOException;
 
     TrackerStats getTrackerStats();
@@ -154,11 +188,16 @@ public interface InformationServer extends InformationServerCollectionProvider
 
     AclReport checkAclInIndex(Long aclid, AclReport aclReport);
 
-    IndexHealthReport reportIndexTransactions(Long minTxId, IOpenBitSet txIdsInDb, long maxTxId) throws IOException;
+    IndexHealthReport reportIndexTransactions(Long minTxId, IOpenBitSet txIdsInDb, long maxTxId, ReportProgress progress) throws IOException;
 
     List<TenantDbId> getDocsWithUncleanContent() throws IOException;
 
-    void updateContent(TenantDbId docRef) throws Exception;
+    /**
+     * Updates the text content of the given documents, sharing a single update request.
+     *
+     * @return the documents whose content could not be updated.
+     */
+    List<TenantDbId> updateContent(List<TenantDbId> docRefs) throws Exception;
 
     void addCommonNodeReportInfo(NodeReport nodeReport);
 
@@ -168,7 +207,7 @@ public interface InformationServer extends InformationServerCollectionProvider
      */
     void addContentOutdatedAndUpdatedCounts(NamedList<Object> ihr);
 
-    IndexHealthReport reportAclTransactionsInIndex(Long minAclTxId, IOpenBitSet aclTxIdsInDb, long maxAclTxId);
+    IndexHealthReport reportAclTransactionsInIndex(Long minAclTxId, IOpenBitSet aclTxIdsInDb, long maxAclTxId, ReportProgress progress) throws IOException;
 
     int getAclTxDocsSize(String aclTxId, String aclTxCommitTime) throws IOException;
     
@@ -198,4 +237,9 @@ public interface InformationServer extends InformationServerCollectionProvider
      * @return true if cascade tracking is enabled (note that this is the default behaviour if not specified in the properties file).
      */
     boolean cascadeTrackingEnabled();
+
+    /**
+     * Stops the thread pools owned by this instance. Called when the owning core is closed.
+     */
+    void shutdown();
 }
@@ -0,0 +1,141 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr;
+
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A REPORT running in background, submitted through the core admin API with the "async" parameter.
+ * The report of each core is added to the job as soon as it is available, so the caller can poll the progress and
+ * the partial results while the remaining cores are checked.
+ */
+class ReportJob
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportJob.class);
+
+    static final String STATUS_RUNNING = "running";
+    static final String STATUS_COMPLETED = "completed";
+    static final String STATUS_FAILED = "failed";
+
+    private final List<String> coreNames;
+    private final LongSupplier clock;
+    private final long startTime;
+    private final NamedList<Object> report = new SimpleOrderedMap<>();
+    private final ReportProgress progress = new ReportProgress();
+
+    private volatile String status = STATUS_RUNNING;
+    private volatile String errorMessage;
+    private volatile long endTime;
+
+    ReportJob(List<String> coreNames)
+    {
+        this(coreNames, System::currentTimeMillis);
+    }
+
+    ReportJob(List<String> coreNames, LongSupplier clock)
+    {
+        this.coreNames = coreNames;
+        this.clock = clock;
+        this.startTime = clock.getAsLong();
+    }
+
+    /**
+     * Builds, one core after the other, the report of the cores of this job.
+     *
+     * @param coreReport builds the report of a given core.
+     */
+    void run(Function<String, NamedList<Object>> coreReport)
+    {
+        try
+        {
+            for (String coreName : coreNames)
+            {
+                NamedList<Object> payload = coreReport.apply(coreName);
+                synchronized (report)
+                {
+                    report.add(coreName, payload);
+                }
+            }
+            endTime = clock.getAsLong();
+            status = STATUS_COMPLETED;
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Report on cores {} failed.", coreNames, exception);
+            errorMessage = exception.getMessage();
+            endTime = clock.getAsLong();
+            status = STATUS_FAILED;
+        }
+    }
+
+    /**
+     * @return the progress of the ids checked by this job, updated while each core is checked.
+     */
+    ReportProgress getProgress()
+    {
+        return progress;
+    }
+
+    boolean isFinished()
+    {
+        return !STATUS_RUNNING.equals(status);
+    }
+
+    /**
+     * Returns the status of the job, including the report of the cores checked so far.
+     */
+    NamedList<Object> toNamedList()
+    {
+        String currentStatus = status;
+        NamedList<Object> partialReport;
+        synchronized (report)
+        {
+            partialReport = report.clone();
+        }
+
+        NamedList<Object> response = new SimpleOrderedMap<>();
+        response.add("status", currentStatus);
+        if (errorMessage != null)
+        {
+            response.add("errorMessage", errorMessage);
+        }
+        response.add("Cores", coreNames.size());
+        response.add("Cores reported", partialReport.size());
+        response.add("Ids checked", progress.getIdsChecked());
+        response.add("Ids to check", progress.getIdsToCheck());
+        response.add("Elapsed time (ms)", (STATUS_RUNNING.equals(currentStatus) ? clock.getAsLong() : endTime) - startTime);
+        response.add("report", partialReport);
+        return response;
+    }
+}
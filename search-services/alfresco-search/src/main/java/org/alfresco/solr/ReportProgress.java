@@ -24,17 +24,37 @@
  * #L%
  */
 
-package org.alfresco.solr.query;
+package org.alfresco.solr;
 
-public class EmptyHybridBitSet extends HybridBitSet
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress of a REPORT, as the number of ids (transactions or ACL change sets) checked out of the ids to be checked.
+ * The ids are checked twice, in the repository and in the index, and each check adds the ids it reads to the total
+ * when it starts: so both numbers grow while the report is running.
+ */
+public class ReportProgress
 {
-    public void set(long bit)
+    private final LongAdder idsToCheck = new LongAdder();
+    private final LongAdder idsChecked = new LongAdder();
+
+    public void toCheck(long ids)
+    {
+        idsToCheck.add(ids);
+    }
+
+    public void checked(long ids)
     {
+        idsChecked.add(ids);
+    }
 
+    public long getIdsToCheck()
+    {
+        return idsToCheck.sum();
     }
 
-    public boolean get(long bit)
+    public long getIdsChecked()
     {
-        return false;
+        return idsChecked.sum();
     }
 }
@@ -87,17 +87,24 @@ import static org.alfresco.service.cmr.security.AuthorityType.GROUP;
 import static org.alfresco.service.cmr.security.AuthorityType.GUEST;
 
 import java.io.File;
+import java.io.FilterReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -112,6 +119,15 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -124,6 +140,7 @@ import java.util.zip.GZIPInputStream;
 import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.LongHashSet;
 import com.carrotsearch.hppc.cursors.LongCursor;
+import com.google.common.collect.Lists;
 
 import org.alfresco.httpclient.AuthenticationException;
 import org.alfresco.model.ContentModel;
@@ -176,13 +193,18 @@ import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.LegacyNumericRangeQuery;
 import org.apache.lucene.search.Query;
@@ -193,6 +215,8 @@ import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.common.SolrDocument;
@@ -229,7 +253,6 @@ import org.apache.solr.util.ConcurrentLRUCache;
 import org.apache.solr.util.RefCounted;
 import org.json.JSONException;
 import org.springframework.extensions.surf.util.I18NUtil;
-import org.springframework.util.FileCopyUtils;
 
 /**
  * This is the Apache Solr implementation of the information server (index).
@@ -358,10 +381,12 @@ public class SolrInformationServer implements InformationServer
     private static final String RESPONSE_DEFAULT_IDS = "response";
 
     static final String PREFIX_ERROR = "ERROR-";
+    static final String PREFIX_ERROR_ACL = "ERROR-ACL-";
 
     public static final String DOC_TYPE_NODE = "Node";
     private static final String DOC_TYPE_UNINDEXED_NODE = "UnindexedNode";
     private static final String DOC_TYPE_ERROR_NODE = "ErrorNode";
+    private static final String DOC_TYPE_ERROR_ACL = "ErrorAcl";
     public static final String DOC_TYPE_ACL = "Acl";
     public static final String DOC_TYPE_TX = "Tx";
     public static final String DOC_TYPE_ACL_TX = "AclTx";
@@ -376,6 +401,8 @@ public class SolrInformationServer implements InformationServer
      */
     private static final int BATCH_FACET_TXS = 4096;
     private static final String FINGERPRINT_FIELD = "MINHASH";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char[] BASE64_DIGITS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
     /** Shared property to determine if the cascade tracking is enabled. */
     public static final String CASCADE_TRACKER_ENABLED = "alfresco.cascade.tracker.enabled";
 
@@ -397,10 +424,18 @@ public class SolrInformationServer implements InformationServer
     private final AlfrescoSolrDataModel dataModel;
     private final boolean contentIndexingHasBeenEnabledOnThisInstance;
     private final boolean recordUnindexedNodes;
+    private final boolean quarantineEnabled;
     private final long lag;
     private final long holeRetention;
     private final boolean fingerprintHasBeenEnabledOnThisInstance;
+    private final boolean compactFingerprintTerms;
     private final int contentStreamLimit;
+    private final int cascadeChildBatchSize;
+    private final int cascadeMaxInFlightChildBatches;
+    private final ThreadPoolExecutor cascadeFetchPool;
+    private final int contentMaxInFlightFetches;
+    private final ThreadPoolExecutor contentFetchPool;
+    private final ForkJoinPool reportPool;
 
     private long cleanContentLastPurged;
 
@@ -530,6 +565,71 @@ public class SolrInformationServer implements InformationServer
         }
     }
 
+    /**
+     * A {@link Reader} which keeps a copy of all the characters read through it.
+     */
+    static class CopyingReader extends FilterReader
+    {
+        private final StringBuilder copy;
+
+        CopyingReader(Reader in, StringBuilder copy)
+        {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int read = super.read();
+            if (read != -1)
+            {
+                copy.append((char) read);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException
+        {
+            int read = super.read(cbuf, off, len);
+            if (read > 0)
+            {
+                copy.append(cbuf, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            char[] buffer = new char[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            while (skipped < n)
+            {
+                int read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+                if (read == -1)
+                {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+
+        @Override
+        public void mark(int readAheadLimit) throws IOException
+        {
+            throw new IOException("mark() not supported");
+        }
+    }
+
     static class LRU extends LinkedHashMap<Long,Long>
     {
         private final int maxSize;
@@ -589,6 +689,7 @@ public class SolrInformationServer implements InformationServer
                 contentIndexingHasBeenEnabledOnThisInstance ? "enabled" : "disabled");
 
         recordUnindexedNodes = Boolean.parseBoolean(coreConfiguration.getProperty("alfresco.recordUnindexedNodes", "true"));
+        quarantineEnabled = Boolean.parseBoolean(coreConfiguration.getProperty("alfresco.tracker.quarantine", "true"));
         lag = Integer.parseInt(coreConfiguration.getProperty("alfresco.lag", "1000"));
         holeRetention = Integer.parseInt(coreConfiguration.getProperty("alfresco.hole.retention", "3600000"));
 
@@ -596,11 +697,21 @@ public class SolrInformationServer implements InformationServer
         LOGGER.info(
                 "Fingerprint has been {} on this instance.",
                 fingerprintHasBeenEnabledOnThisInstance ? "enabled" : "disabled");
+        compactFingerprintTerms = Boolean.parseBoolean(coreConfiguration.getProperty("alfresco.fingerprint.compactTerms", "false"));
 
         dataModel = AlfrescoSolrDataModel.getInstance();
 
         contentStreamLimit = Integer.parseInt(coreConfiguration.getProperty("alfresco.contentStreamLimit", "10000000"));
 
+        cascadeChildBatchSize = Integer.parseInt(coreConfiguration.getProperty("alfresco.cascade.tracker.childBatchSize", "100"));
+        cascadeMaxInFlightChildBatches = Integer.parseInt(coreConfiguration.getProperty("alfresco.cascade.tracker.maxInFlightChildBatches", "4"));
+        cascadeFetchPool = newFetchPool(cascadeMaxInFlightChildBatches, "CascadeFetcher");
+
+        contentMaxInFlightFetches = Integer.parseInt(coreConfiguration.getProperty("alfresco.content.tracker.maxInFlightFetches", "8"));
+        contentFetchPool = newFetchPool(contentMaxInFlightFetches, "ContentFetcher");
+
+        reportPool = new ForkJoinPool(Integer.parseInt(coreConfiguration.getProperty("alfresco.report.maxParallelism", "4")));
+
         props = AlfrescoSolrDataModel.getCommonConfig();
         hostName = ConfigUtil.locateProperty(SOLR_HOST, props.getProperty(SOLR_HOST));
 
@@ -619,6 +730,14 @@ public class SolrInformationServer implements InformationServer
         return this.adminHandler;
     }
 
+    @Override
+    public void shutdown()
+    {
+        cascadeFetchPool.shutdownNow();
+        contentFetchPool.shutdownNow();
+        reportPool.shutdownNow();
+    }
+
     @Override
     public boolean cascadeTrackingEnabled()
     {
@@ -734,7 +853,8 @@ public class SolrInformationServer implements InformationServer
     }
 
     @Override
-    public IndexHealthReport reportIndexTransactions(Long minTxId, IOpenBitSet txIdsInDb, long maxTxId)
+    public IndexHealthReport reportIndexTransactions(Long minTxId, IOpenBitSet txIdsInDb, long maxTxId, ReportProgress progress)
+            throws IOException
     {
         try (SolrQueryRequest request = newSolrQueryRequest())
         {
@@ -768,7 +888,7 @@ public class SolrInformationServer implements InformationServer
                     report.setUniqueTransactionDocsInIndex(count);
                 }
             };
-            reportTransactionInfo(txReporter, minTxId, maxTxId, txIdsInDb, request, FIELD_TXID);
+            reportTransactionInfo(txReporter, minTxId, maxTxId, txIdsInDb, request, FIELD_TXID, progress);
             long transactionDocsInIndex = getSafeCount(docTypeCounts, DOC_TYPE_TX);
             report.setTransactionDocsInIndex(transactionDocsInIndex);
             report.setDbTransactionCount(txIdsInDb.cardinality());
@@ -792,7 +912,8 @@ public class SolrInformationServer implements InformationServer
     }
 
     @Override
-    public IndexHealthReport reportAclTransactionsInIndex(Long minAclTxId, IOpenBitSet aclTxIdsInDb, long maxAclTxId)
+    public IndexHealthReport reportAclTransactionsInIndex(Long minAclTxId, IOpenBitSet aclTxIdsInDb, long maxAclTxId,
+                                                          ReportProgress progress) throws IOException
     {
         try (SolrQueryRequest request = newSolrQueryRequest())
         {
@@ -824,7 +945,7 @@ public class SolrInformationServer implements InformationServer
                     report.setUniqueAclTransactionDocsInIndex(count);
                 }
             };
-            reportTransactionInfo(aclTxReporter, minAclTxId, maxAclTxId, aclTxIdsInDb, request, FIELD_ACLTXID);
+            reportTransactionInfo(aclTxReporter, minAclTxId, maxAclTxId, aclTxIdsInDb, request, FIELD_ACLTXID, progress);
             long aclTransactionDocsInIndex = getSafeCount(docTypeCounts, DOC_TYPE_ACL_TX);
             report.setAclTransactionDocsInIndex(aclTransactionDocsInIndex);
             report.setDbAclTransactionCount(aclTxIdsInDb.cardinality());
@@ -1211,6 +1332,16 @@ public class SolrInformationServer implements InformationServer
                 {
                     coreSummary.add("/alfrescoPathCache", infoMBean.getStatistics());
                 }
+
+                if (key.equals("alfrescoParsedQueryCache"))
+                {
+                    coreSummary.add("/alfrescoParsedQueryCache", infoMBean.getStatistics());
+                }
+
+                if (key.equals("afts") || key.equals("cmis"))
+                {
+                    coreSummary.add(key + " query language detection", infoMBean.getStatistics());
+                }
             }
 
             // Adds detailed stats for each registered searcher
@@ -1320,6 +1451,35 @@ public class SolrInformationServer implements InformationServer
         return errorDocIds;
     }
 
+    @Override
+    public Set<Long> getErrorAclIds() throws IOException
+    {
+        Set<Long> errorAclIds = new HashSet<>();
+        RefCounted<SolrIndexSearcher> refCounted = null;
+        try
+        {
+            refCounted = this.core.getSearcher();
+            SolrIndexSearcher searcher = refCounted.get();
+            TermQuery errorQuery = new TermQuery(new Term(FIELD_DOC_TYPE, DOC_TYPE_ERROR_ACL));
+            DocListCollector docListCollector = new DocListCollector();
+            searcher.search(errorQuery, docListCollector);
+            IntArrayList docList = docListCollector.getDocs();
+            int size = docList.size();
+
+            for (int i = 0; i < size; ++i)
+            {
+                Document document = searcher.doc(docList.get(i), REQUEST_ONLY_ID_FIELD);
+                String idString = document.getField(FIELD_SOLR4_ID).stringValue();
+                errorAclIds.add(Long.valueOf(idString.substring(PREFIX_ERROR_ACL.length())));
+            }
+        }
+        finally
+        {
+            ofNullable(refCounted).ifPresent(RefCounted::decref);
+        }
+        return errorAclIds;
+    }
+
     @Override
     public long getHoleRetention()
     {
@@ -1526,6 +1686,60 @@ public class SolrInformationServer implements InformationServer
         return (System.nanoTime() - start);
     }
 
+    @Override
+    public void indexErrorAcl(Long aclId, Throwable cause) throws IOException
+    {
+        // The stale readers must not be searchable anymore: the nodes with this ACL are not readable until it is reindexed
+        deleteByQuery(FIELD_ACLID + ":" + aclId + AND + FIELD_DOC_TYPE + ":" + DOC_TYPE_ACL);
+
+        UpdateRequestProcessor processor = null;
+        try (SolrQueryRequest request = newSolrQueryRequest())
+        {
+            processor = this.core.getUpdateProcessingChain(null).createProcessor(request, newSolrQueryResponse());
+
+            SolrInputDocument errorAclDocument = new SolrInputDocument();
+            errorAclDocument.addField(FIELD_SOLR4_ID, PREFIX_ERROR_ACL + aclId);
+            errorAclDocument.addField(FIELD_VERSION, "0");
+            errorAclDocument.addField(FIELD_ACLID, aclId);
+            errorAclDocument.addField(FIELD_EXCEPTION_MESSAGE, cause.getMessage());
+            errorAclDocument.addField(FIELD_DOC_TYPE, DOC_TYPE_ERROR_ACL);
+
+            StringWriter stringWriter = new StringWriter(4096);
+            try (PrintWriter printWriter = new PrintWriter(stringWriter, true))
+            {
+                cause.printStackTrace(printWriter);
+                String stack = stringWriter.toString();
+                errorAclDocument.addField(FIELD_EXCEPTION_STACK, stack.length() < 32766 ? stack : stack.substring(0, 32765));
+            }
+
+            AddUpdateCommand addDocCmd = new AddUpdateCommand(request);
+            addDocCmd.overwrite = true;
+            addDocCmd.solrDoc = errorAclDocument;
+            processor.processAdd(addDocCmd);
+        }
+        finally
+        {
+            if (processor != null) processor.finish();
+        }
+    }
+
+    @Override
+    public void deleteErrorAcl(Long aclId) throws IOException
+    {
+        UpdateRequestProcessor processor = null;
+        try (SolrQueryRequest request = newSolrQueryRequest())
+        {
+            processor = this.core.getUpdateProcessingChain(null).createProcessor(request, newSolrQueryResponse());
+            DeleteUpdateCommand delErrorDocCmd = new DeleteUpdateCommand(request);
+            delErrorDocCmd.setId(PREFIX_ERROR_ACL + aclId);
+            processor.processDelete(delErrorDocCmd);
+        }
+        finally
+        {
+            if (processor != null) processor.finish();
+        }
+    }
+
     @Override
     public void indexAclTransaction(AclChangeSet changeSet, boolean overwrite) throws IOException
     {
@@ -1655,6 +1869,16 @@ public class SolrInformationServer implements InformationServer
 
     @Override
     public void indexNode(Node node, boolean overwrite) throws IOException, JSONException
+    {
+        indexNodeOrRecordError(node, overwrite);
+    }
+
+    /**
+     * Indexes a single node, recording it as an error node if it fails.
+     *
+     * @return false if the node failed and has been recorded as an error node.
+     */
+    private boolean indexNodeOrRecordError(Node node, boolean overwrite) throws IOException, JSONException
     {
         long start = System.nanoTime();
         final SolrQueryRequest request = newSolrQueryRequest();
@@ -1687,7 +1911,7 @@ public class SolrInformationServer implements InformationServer
 
                 Optional<Collection<NodeMetaData>> nodeMetaDatas = getNodesMetaDataFromRepository(nmdp);
 
-                if (nodeMetaDatas.isEmpty() || nodeMetaDatas.get().isEmpty()) return;
+                if (nodeMetaDatas.isEmpty() || nodeMetaDatas.get().isEmpty()) return true;
 
                 NodeMetaData nodeMetaData = nodeMetaDatas.get().iterator().next();
                 if (node.getTxnId() == Long.MAX_VALUE)
@@ -1717,6 +1941,7 @@ public class SolrInformationServer implements InformationServer
                     processor.processAdd(addDocCmd);
                 }
             }
+            return true;
         }
         catch (Exception exception)
         {
@@ -1751,6 +1976,7 @@ public class SolrInformationServer implements InformationServer
 
             addDocCmd.solrDoc = errorNodeDocument;
             processor.processAdd(addDocCmd);
+            return false;
         }
         finally
         {
@@ -1813,11 +2039,9 @@ public class SolrInformationServer implements InformationServer
 
         List<NodeMetaData> allNodeMetaDatas = new ArrayList<>();
 
-        for (Long parentNodeId : parentNodesId)
-        {
+        fetchNodesMetaDataInBatches(parentNodesId, nodeIds -> {
             NodeMetaDataParameters nmdp = new NodeMetaDataParameters();
-            nmdp.setFromNodeId(parentNodeId);
-            nmdp.setToNodeId(parentNodeId);
+            nmdp.setNodeIds(nodeIds);
             nmdp.setIncludeAclId(true);
             nmdp.setIncludeChildAssociations(false);
             nmdp.setIncludeChildIds(true);
@@ -1826,11 +2050,9 @@ public class SolrInformationServer implements InformationServer
             nmdp.setIncludePaths(true);
             nmdp.setIncludeProperties(false);
             nmdp.setIncludeTxnId(true);
-            nmdp.setMaxResults(1);
-            // Gets only one
-            Optional<Collection<NodeMetaData>> nodeMetaDatas = getNodesMetaDataFromRepository(nmdp);
-            allNodeMetaDatas.addAll(nodeMetaDatas.orElse(Collections.emptyList()));
-        }
+            nmdp.setMaxResults(Integer.MAX_VALUE);
+            return nmdp;
+        }, allNodeMetaDatas::add);
 
         return allNodeMetaDatas;
     }
@@ -1855,6 +2077,7 @@ public class SolrInformationServer implements InformationServer
             LOGGER.error("Exception while processing cascading updates from the parent nodes. " +
                     "See the stacktrace below for further details.",
                     exception);
+            throw exception;
         }
         finally
         {
@@ -1866,15 +2089,64 @@ public class SolrInformationServer implements InformationServer
     }
 
     @Override
-    public void updateContent(TenantDbId docRef) throws Exception
+    public List<TenantDbId> updateContent(List<TenantDbId> docRefs) throws Exception
     {
-        LOGGER.debug("Text content of Document DBID={} is going to be updated.", docRef.dbId);
+        List<TenantDbId> failedDocRefs = new ArrayList<>();
 
         UpdateRequestProcessor processor = null;
         try (SolrQueryRequest request = newSolrQueryRequest())
         {
             processor = this.core.getUpdateProcessingChain(null).createProcessor(request, newSolrQueryResponse());
+            final UpdateRequestProcessor batchProcessor = processor;
+
+            // Text content is fetched concurrently, while documents are added one by one with the shared processor
+            forEachInSubmissionOrder(
+                    docRefs.iterator(),
+                    contentFetchPool,
+                    contentMaxInFlightFetches,
+                    docRef -> () -> contentDocument(docRef),
+                    (docRef, doc) -> {
+                        if (doc.isEmpty())
+                        {
+                            failedDocRefs.add(docRef);
+                            return;
+                        }
 
+                        try
+                        {
+                            AddUpdateCommand addDocCmd = new AddUpdateCommand(request);
+                            addDocCmd.overwrite = true;
+                            addDocCmd.solrDoc = doc.get();
+                            batchProcessor.processAdd(addDocCmd);
+
+                            LOGGER.debug("Text content of Document DBID={} has been marked as updated", docRef.dbId);
+                        }
+                        catch (Exception exception)
+                        {
+                            LOGGER.error("Unable to update the text content of node {}. See the stacktrace below for further details.", docRef.dbId, exception);
+                            failedDocRefs.add(docRef);
+                        }
+                    });
+        }
+        finally
+        {
+            if(processor != null) {processor.finish();}
+        }
+
+        return failedDocRefs;
+    }
+
+    /**
+     * Builds the partial document which updates the text content of the given node.
+     *
+     * @return the document, or an empty {@link Optional} if the content could not be fetched.
+     */
+    private Optional<SolrInputDocument> contentDocument(TenantDbId docRef)
+    {
+        LOGGER.debug("Text content of Document DBID={} is going to be updated.", docRef.dbId);
+
+        try
+        {
             SolrInputDocument doc = new PartialSolrInputDocument();
             doc.removeField(FIELD_DBID);
             doc.addField(FIELD_DBID, docRef.dbId);
@@ -1897,32 +2169,18 @@ public class SolrInformationServer implements InformationServer
                                 .orElse(CONTENT_UPDATED_MARKER);
 
             markAsContentInSynch(doc, latestAppliedVersionId);
-
-            // Add to index
-            AddUpdateCommand addDocCmd = new AddUpdateCommand(request);
-            addDocCmd.overwrite = true;
-            addDocCmd.solrDoc = doc;
-
-            processor.processAdd(addDocCmd);
-
-            LOGGER.debug(
-                    "Text content of Document DBID={} has been marked as updated (latest content version ID = {})",
-                    docRef.dbId,
-                    (latestAppliedVersionId == CONTENT_UPDATED_MARKER ? "N.A." : latestAppliedVersionId));
+            return Optional.of(doc);
         }
         catch (Exception exception)
         {
             LOGGER.error("Unable to update the text content of node {}. See the stacktrace below for further details.", docRef.dbId, exception);
-        }
-        finally
-        {
-            if(processor != null) {processor.finish();}
+            return empty();
         }
     }
 
 
     @Override
-    public void indexNodes(List<Node> nodes, boolean overwrite) throws IOException, JSONException
+    public List<Long> indexNodes(List<Node> nodes, boolean overwrite) throws IOException, JSONException
     {
         UpdateRequestProcessor processor = null;
         try (SolrQueryRequest request = newSolrQueryRequest())
@@ -2075,14 +2333,33 @@ public class SolrInformationServer implements InformationServer
                     this.trackerStats.addNodeTime(System.nanoTime() - start);
                 }
             }
+            return Collections.emptyList();
         }
         catch (Exception e)
         {
+            if (!quarantineEnabled)
+            {
+                throw new IOException("Bulk indexing of " + nodes.size() + " nodes failed", e);
+            }
+
             LOGGER.error(" Bulk indexing failed, do one node at a time. See the stacktrace below for further details.", e);
+            List<Long> failedNodeIds = new ArrayList<>();
             for (Node node : nodes)
             {
-                this.indexNode(node, true);
+                try
+                {
+                    if (!indexNodeOrRecordError(node, true))
+                    {
+                        failedNodeIds.add(node.getId());
+                    }
+                }
+                catch (Exception exception)
+                {
+                    // Not even the error node could be written: the transaction must not be marked as indexed
+                    throw new IOException("Node " + node.getId() + " could not be recorded as error node in Tx " + node.getTxnId(), exception);
+                }
             }
+            return failedNodeIds;
         }
         finally
         {
@@ -2619,24 +2896,46 @@ public class SolrInformationServer implements InformationServer
     }
 
     /**
-     * Extracts the text content from the given API response.
+     * Extracts the text content from the given API response, decoding it incrementally straight into the stored field
+     * value (which starts with the locale marker). When fingerprinting is enabled, the MINHASH tokens are computed
+     * in the same pass, while the content is decoded.
      *
      * @param response the API (GetTextContent) response.
-     * @return the text content from the given API response.
+     * @param locale the content locale.
+     * @param doc the document the fingerprint tokens are added to.
+     * @return the stored field value of the text content from the given API response.
      * @throws IOException in case of I/O failure.
      */
-    private String textContentFrom(GetTextContentResponse response) throws IOException
+    private String textContentFrom(GetTextContentResponse response, String locale, SolrInputDocument doc) throws IOException
     {
+        StringBuilder textContent = new StringBuilder().append("\u0000").append(languageFrom(locale)).append("\u0000");
+        int localeMarkerLength = textContent.length();
         try (final InputStream ris = ofNullable(response.getContentEncoding())
                 .map(c -> c.equals("gzip")).orElse(false)?
                 new GZIPInputStream(response.getContent()) : response.getContent())
         {
             if (ris != null)
             {
-                byte[] bytes = FileCopyUtils.copyToByteArray(new BoundedInputStream(ris, contentStreamLimit));
-                return new String(bytes, StandardCharsets.UTF_8);
+                Reader reader =
+                        new CopyingReader(
+                                new InputStreamReader(new BoundedInputStream(ris, contentStreamLimit), StandardCharsets.UTF_8),
+                                textContent);
+                if (fingerprintHasBeenEnabledOnThisInstance)
+                {
+                    List<String> fingerprint = fingerprintOf(reader);
+
+                    // As before, blank content has no fingerprint
+                    if (!isBlank(textContent, localeMarkerLength))
+                    {
+                        fingerprint.forEach(term -> doc.addField(FINGERPRINT_FIELD, term));
+                    }
+                }
+                else
+                {
+                    drain(reader);
+                }
             }
-            return "";
+            return textContent.toString();
         }
         finally
         {
@@ -2644,6 +2943,130 @@ public class SolrInformationServer implements InformationServer
         }
     }
 
+    /**
+     * Returns the MINHASH fingerprint terms of the text read from the given reader, which is fully consumed.
+     */
+    private List<String> fingerprintOf(Reader reader) throws IOException
+    {
+        List<String> fingerprint = new ArrayList<>();
+        FingerprintTermEncoder encoder = new FingerprintTermEncoder(compactFingerprintTerms);
+        Analyzer analyzer = core.getLatestSchema().getFieldType("min_hash").getIndexAnalyzer();
+        try (TokenStream ts = analyzer.tokenStream("dummy_field", reader))
+        {
+            CharTermAttribute termAttribute = ts.getAttribute(CharTermAttribute.class);
+            ts.reset();
+            while (ts.incrementToken()) {
+                fingerprint.add(encoder.encode(termAttribute.buffer(), termAttribute.length()));
+            }
+            ts.end();
+
+            // The whole content must be read, even if the tokenizer stopped before its end
+            drain(reader);
+        }
+        return fingerprint;
+    }
+
+    static boolean isBlank(CharSequence text, int from)
+    {
+        for (int i = from; i < text.length(); i++)
+        {
+            if (!Character.isWhitespace(text.charAt(i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes MINHASH tokens as fingerprint terms, into a buffer reused for all the tokens of a document: hex without
+     * leading zeros by default, fixed width base64 when "alfresco.fingerprint.compactTerms" is enabled.
+     */
+    static class FingerprintTermEncoder
+    {
+        private final boolean compact;
+        private char[] term = new char[64];
+
+        FingerprintTermEncoder(boolean compact)
+        {
+            this.compact = compact;
+        }
+
+        String encode(char[] chars, int length)
+        {
+            if (term.length < length * 4)
+            {
+                term = new char[length * 4];
+            }
+
+            int termLength = 0;
+            if (compact)
+            {
+                termLength = appendBase64(chars, length, term, termLength);
+            }
+            else
+            {
+                for (int i = 0; i < length; i++)
+                {
+                    termLength = appendHex(chars[i], term, termLength);
+                }
+            }
+            return new String(term, 0, termLength);
+        }
+    }
+
+    /**
+     * Writes the hex digits of the char at the given position, without leading zeros: this is the
+     * {@link Integer#toHexString(int)} form the existing MINHASH terms are indexed with.
+     *
+     * @return the position after the last written digit.
+     */
+    static int appendHex(char c, char[] out, int position)
+    {
+        int digits = Math.max(1, (Integer.SIZE - Integer.numberOfLeadingZeros(c) + 3) / 4);
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4)
+        {
+            out[position++] = HEX_DIGITS[(c >>> shift) & 0xF];
+        }
+        return position;
+    }
+
+    /**
+     * Writes the given chars as URL safe base64 digits without padding, 16 bits per char: the compact MINHASH term
+     * encoding, which is about a third shorter than the hex one and never maps two different tokens to the same term.
+     *
+     * @return the position after the last written digit.
+     */
+    static int appendBase64(char[] chars, int length, char[] out, int position)
+    {
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = 0; i < length; i++)
+        {
+            bits = (bits << 16) | chars[i];
+            bitCount += 16;
+            while (bitCount >= 6)
+            {
+                bitCount -= 6;
+                out[position++] = BASE64_DIGITS[(bits >>> bitCount) & 0x3F];
+            }
+        }
+        if (bitCount > 0)
+        {
+            out[position++] = BASE64_DIGITS[(bits << (6 - bitCount)) & 0x3F];
+        }
+        return position;
+    }
+
+    private void drain(Reader reader) throws IOException
+    {
+        char[] buffer = new char[8192];
+        while (reader.read(buffer) != -1)
+        {
+            // Nothing to be done here, the reader keeps what has been read
+        }
+    }
+
     private void addContentPropertyToDocUsingAlfrescoRepository(
             SolrInputDocument doc,
             QName propertyQName,
@@ -2658,31 +3081,12 @@ public class SolrInformationServer implements InformationServer
             addContentPropertyMetadata(doc, propertyQName, AlfrescoSolrDataModel.ContentFieldType.TRANSFORMATION_EXCEPTION, response);
             addContentPropertyMetadata(doc, propertyQName, AlfrescoSolrDataModel.ContentFieldType.TRANSFORMATION_TIME, response);
 
-            final String textContent = textContentFrom(response);
-
-            if (fingerprintHasBeenEnabledOnThisInstance && !textContent.isBlank()) {
-                Analyzer analyzer = core.getLatestSchema().getFieldType("min_hash").getIndexAnalyzer();
-                TokenStream ts = analyzer.tokenStream("dummy_field", textContent);
-                CharTermAttribute termAttribute = ts.getAttribute(CharTermAttribute.class);
-                ts.reset();
-                while (ts.incrementToken()) {
-                    StringBuilder tokenBuff = new StringBuilder();
-                    char[] buff = termAttribute.buffer();
-
-                    for (int i = 0; i < termAttribute.length(); i++) {
-                        tokenBuff.append(Integer.toHexString(buff[i]));
-                    }
-                    doc.addField(FINGERPRINT_FIELD, tokenBuff.toString());
-
-                }
-                ts.end();
-                ts.close();
-            }
+            final String textContent = textContentFrom(response, locale, doc);
 
             this.getTrackerStats().addDocTransformationTime(System.nanoTime() - start);
 
             String storedField = dataModel.getStoredContentField(propertyQName);
-            doc.setField(storedField, "\u0000" + languageFrom(locale) + "\u0000" + textContent);
+            doc.setField(storedField, textContent);
 
             dataModel.getIndexedFieldNamesForProperty(propertyQName)
                     .getFields()
@@ -2997,6 +3401,18 @@ public class SolrInformationServer implements InformationServer
         return isInIndex(changeSetId, aclChangeSetCache, FIELD_ACLTXID, populateCache, core);
     }
 
+    @Override
+    public BitSet txnsInIndex(long[] txnIds, boolean populateCache) throws IOException
+    {
+        return areInIndex(txnIds, txnIdCache, FIELD_TXID, populateCache, core);
+    }
+
+    @Override
+    public BitSet aclChangeSetsInIndex(long[] changeSetIds, boolean populateCache) throws IOException
+    {
+        return areInIndex(changeSetIds, aclChangeSetCache, FIELD_ACLTXID, populateCache, core);
+    }
+
     @Override
     public void clearProcessedTransactions()
     {
@@ -3271,6 +3687,112 @@ public class SolrInformationServer implements InformationServer
         }
     }
 
+    /**
+     * Same as {@link #isInIndex(long, LRU, String, boolean, SolrCore)} for a whole window of ids: the ids missing
+     * from the cache are looked up with a single searcher, seeking each segment terms dictionary once per id
+     * instead of running one {@link TermQuery} per id.
+     */
+    private BitSet areInIndex(long[] ids, LRU cache, String fieldName, boolean populateCache, SolrCore core) throws IOException
+    {
+        BitSet inIndex = new BitSet(ids.length);
+
+        long[] missing = new long[ids.length];
+        int count = 0;
+        for (int i = 0; i < ids.length; i++)
+        {
+            if (cache.containsKey(ids[i]))
+            {
+                inIndex.set(i);
+            }
+            else
+            {
+                missing[count++] = ids[i];
+            }
+        }
+
+        if (count == 0)
+        {
+            return inIndex;
+        }
+
+        // Sorted ids give sorted terms, so each segment terms dictionary is walked forward only
+        Arrays.sort(missing, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++)
+        {
+            if (unique == 0 || missing[unique - 1] != missing[i])
+            {
+                missing[unique++] = missing[i];
+            }
+        }
+        missing = Arrays.copyOf(missing, unique);
+
+        RefCounted<SolrIndexSearcher> refCounted = null;
+        try
+        {
+            if (populateCache)
+            {
+                for (long id : missing)
+                {
+                    cache.put(id, null); // Safe to add this here because we reset this on rollback.
+                }
+            }
+            refCounted = core.getSearcher();
+            SolrIndexSearcher searcher = refCounted.get();
+            FieldType fieldType = searcher.getSchema().getField(fieldName).getType();
+
+            BytesRef[] terms = new BytesRef[missing.length];
+            for (int i = 0; i < missing.length; i++)
+            {
+                BytesRefBuilder term = new BytesRefBuilder();
+                fieldType.readableToIndexed(Long.toString(missing[i]), term);
+                terms[i] = term.get();
+            }
+
+            BitSet found = new BitSet(missing.length);
+            PostingsEnum postings = null;
+            for (LeafReaderContext context : searcher.getTopReaderContext().leaves())
+            {
+                Terms fieldTerms = context.reader().terms(fieldName);
+                if (fieldTerms == null)
+                {
+                    continue;
+                }
+
+                TermsEnum termsEnum = fieldTerms.iterator();
+                Bits liveDocs = context.reader().getLiveDocs();
+                for (int i = found.nextClearBit(0); i < missing.length; i = found.nextClearBit(i + 1))
+                {
+                    if (termsEnum.seekExact(terms[i]))
+                    {
+                        postings = termsEnum.postings(postings, PostingsEnum.NONE);
+                        for (int doc = postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = postings.nextDoc())
+                        {
+                            if (liveDocs == null || liveDocs.get(doc))
+                            {
+                                found.set(i);
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+
+            for (int i = inIndex.nextClearBit(0); i < ids.length; i = inIndex.nextClearBit(i + 1))
+            {
+                if (found.get(Arrays.binarySearch(missing, ids[i])))
+                {
+                    inIndex.set(i);
+                }
+            }
+            return inIndex;
+        }
+        finally
+        {
+            ofNullable(refCounted).ifPresent(RefCounted::decref);
+        }
+    }
+
     private SolrDocumentList executeQueryRequest(SolrQueryRequest request, SolrQueryResponse response, SolrRequestHandler handler)
     {
         handler.handleRequest(request, response);
@@ -3439,11 +3961,9 @@ public class SolrInformationServer implements InformationServer
             ofNullable(refCounted).ifPresent(RefCounted::decref);
         }
 
-        for (Long childId : childIds)
-        {
+        fetchNodesMetaDataInBatches(childIds, nodeIds -> {
             NodeMetaDataParameters nmdp = new NodeMetaDataParameters();
-            nmdp.setFromNodeId(childId);
-            nmdp.setToNodeId(childId);
+            nmdp.setNodeIds(nodeIds);
             nmdp.setIncludeAclId(true);
             nmdp.setIncludeAspects(false);
             nmdp.setIncludeChildAssociations(false);
@@ -3457,36 +3977,137 @@ public class SolrInformationServer implements InformationServer
             nmdp.setIncludeProperties(false);
             nmdp.setIncludeType(true);
             nmdp.setIncludeTxnId(true);
-            nmdp.setMaxResults(1);
-            // Gets only one
-            Optional<Collection<NodeMetaData>> nodeMetaDatas = getNodesMetaDataFromRepository(nmdp);
-
-            if (nodeMetaDatas.isPresent() && !nodeMetaDatas.get().isEmpty())
+            nmdp.setMaxResults(Integer.MAX_VALUE);
+            return nmdp;
+        }, nodeMetaData -> {
+            // Only cascade update nods we know can not have changed and must be in this shard
+            // Node in the current TX will be explicitly updated in the outer loop
+            // We do not bring in changes from the future as nodes may switch shards and we do not want the logic here.
+            if (nodeMetaData.getTxnId() < parentNodeMetaData.getTxnId())
             {
-                NodeMetaData nodeMetaData = nodeMetaDatas.get().iterator().next();
+                LOGGER.debug("Cascade update child doc {}", nodeMetaData.getId());
+
+                SolrInputDocument document = basicDocument(nodeMetaData, DOC_TYPE_NODE, PartialSolrInputDocument::new);
 
-                // Only cascade update nods we know can not have changed and must be in this shard
-                // Node in the current TX will be explicitly updated in the outer loop
-                // We do not bring in changes from the future as nodes may switch shards and we do not want the logic here.
-                if (nodeMetaData.getTxnId() < parentNodeMetaData.getTxnId())
+                AddUpdateCommand addDocCmd = new AddUpdateCommand(request);
+                addDocCmd.overwrite = overwrite;
+                addDocCmd.solrDoc = document;
+                if (cascadeTrackingEnabled())
                 {
-                    LOGGER.debug("Cascade update child doc {}", childId);
+                    updatePathRelatedFields(nodeMetaData, document);
+                    updateNamePathRelatedFields(nodeMetaData, document);
+                    updateAncestorRelatedFields(nodeMetaData, document);
+                }
+                processor.processAdd(addDocCmd);
+            }
+        });
+    }
 
-                    SolrInputDocument document = basicDocument(nodeMetaData, DOC_TYPE_NODE, PartialSolrInputDocument::new);
+    @FunctionalInterface
+    interface NodeMetaDataConsumer
+    {
+        void accept(NodeMetaData nodeMetaData) throws IOException;
+    }
 
-                    AddUpdateCommand addDocCmd = new AddUpdateCommand(request);
-                    addDocCmd.overwrite = overwrite;
-                    addDocCmd.solrDoc = document;
-                    if (cascadeTrackingEnabled())
+    @FunctionalInterface
+    interface OrderedResultConsumer<T, R>
+    {
+        void accept(T item, R result) throws IOException;
+    }
+
+    /**
+     * Fetches the metadata of the given nodes from the repository in id-list batches of "cascadeChildBatchSize" nodes,
+     * keeping at most "cascadeMaxInFlightChildBatches" requests in flight. Batches are handed to the consumer in
+     * submission order on the calling thread, so the consumer may safely write to a (non thread-safe) update processor.
+     * A batch that cannot be fetched fails the whole call, so that the caller does not silently skip its nodes; ids
+     * which are unknown to the repository are skipped.
+     */
+    void fetchNodesMetaDataInBatches(
+            Collection<Long> nodeIds,
+            Function<List<Long>, NodeMetaDataParameters> parameters,
+            NodeMetaDataConsumer consumer) throws IOException
+    {
+        forEachInSubmissionOrder(
+                Lists.partition(new ArrayList<>(nodeIds), cascadeChildBatchSize).iterator(),
+                cascadeFetchPool,
+                cascadeMaxInFlightChildBatches,
+                batch -> {
+                    NodeMetaDataParameters nmdp = parameters.apply(batch);
+                    return () -> {
+                        long start = System.nanoTime();
+                        Collection<NodeMetaData> nodeMetaDatas = notNullOrEmpty(repositoryClient.getNodesMetaData(nmdp));
+                        trackerStats.addCascadeBatchTime(System.nanoTime() - start);
+                        return nodeMetaDatas;
+                    };
+                },
+                (batch, nodeMetaDatas) -> {
+                    for (NodeMetaData nodeMetaData : nodeMetaDatas)
                     {
-                        updatePathRelatedFields(nodeMetaData, document);
-                        updateNamePathRelatedFields(nodeMetaData, document);
-                        updateAncestorRelatedFields(nodeMetaData, document);
+                        if (nodeMetaData != null)
+                        {
+                            consumer.accept(nodeMetaData);
+                        }
                     }
-                        processor.processAdd(addDocCmd);
+                });
+    }
+
+    /**
+     * Runs the task of each item on the given pool, keeping at most maxInFlight tasks in flight, and hands the
+     * results to the consumer in submission order on the calling thread.
+     */
+    private <T, R> void forEachInSubmissionOrder(
+            Iterator<T> items,
+            ExecutorService pool,
+            int maxInFlight,
+            Function<T, Callable<R>> task,
+            OrderedResultConsumer<T, R> consumer) throws IOException
+    {
+        Deque<Pair<T, Future<R>>> inFlight = new ArrayDeque<>();
+        try
+        {
+            while (items.hasNext() || !inFlight.isEmpty())
+            {
+                while (items.hasNext() && inFlight.size() < maxInFlight)
+                {
+                    T item = items.next();
+                    inFlight.add(new Pair<>(item, pool.submit(task.apply(item))));
                 }
+
+                Pair<T, Future<R>> next = inFlight.poll();
+                consumer.accept(next.getFirst(), next.getSecond().get());
             }
         }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException(exception);
+        }
+        catch (ExecutionException exception)
+        {
+            throw new IOException(exception);
+        }
+        finally
+        {
+            inFlight.forEach(next -> next.getSecond().cancel(true));
+        }
+    }
+
+    /**
+     * Creates a pool running at most the given number of fetches. Unlike a {@link java.util.concurrent.ForkJoinPool},
+     * cancelling one of its tasks interrupts the thread running it, so that the fetches left in flight after a failure
+     * are actually stopped.
+     */
+    private static ThreadPoolExecutor newFetchPool(int parallelism, String threadName)
+    {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
     }
 
     private long topNodeId(SolrQuery.ORDER order)
@@ -3541,8 +4162,141 @@ public class SolrInformationServer implements InformationServer
         }
     }
 
+    /**
+     * Compares the transaction (or ACL transaction) ids found in the index with the ids in the repository.
+     * The ids in the index are read from the docValues of the given field, scanning the index segments in parallel
+     * on the report pool; the facet based scan is used only when the field has no docValues.
+     *
+     * The ids between minId and maxId are added to the given progress, and marked as checked as the facet batches
+     * or the segments are read (each segment counting for its share of the index documents).
+     */
     private void reportTransactionInfo(TransactionInfoReporter reporter, Long minId, long maxId, IOpenBitSet idsInDb,
-                                       SolrQueryRequest request, String field)
+                                       SolrQueryRequest request, String field, ReportProgress progress) throws IOException
+    {
+        if (minId == null || maxId < minId)
+        {
+            return;
+        }
+        long ids = maxId - minId + 1;
+        progress.toCheck(ids);
+
+        SchemaField schemaField = core.getLatestSchema().getFieldOrNull(field);
+        if (schemaField == null || !schemaField.hasDocValues())
+        {
+            reportTransactionInfoByFacets(reporter, minId, maxId, idsInDb, request, field, progress);
+            return;
+        }
+
+        int words = Math.toIntExact(((maxId - minId) >>> 6) + 1);
+        AtomicLongArray idsInIndex = new AtomicLongArray(words);
+        AtomicLongArray duplicatedIdsInIndex = new AtomicLongArray(words);
+
+        RefCounted<SolrIndexSearcher> refCounted = core.getSearcher();
+        try
+        {
+            List<LeafReaderContext> leaves = refCounted.get().getTopReaderContext().leaves();
+            long docs = leaves.stream().mapToLong(leaf -> leaf.reader().maxDoc()).sum();
+            long idsOfSegments = 0;
+
+            List<Future<Void>> scans = new ArrayList<>();
+            for (LeafReaderContext leaf : leaves)
+            {
+                long idsOfSegment = docs == 0 ? 0 : (long) ((double) ids * leaf.reader().maxDoc() / docs);
+                idsOfSegments += idsOfSegment;
+                scans.add(reportPool.submit(() -> {
+                    collectIds(leaf.reader(), field, minId, maxId, idsInIndex, duplicatedIdsInIndex);
+                    progress.checked(idsOfSegment);
+                    return null;
+                }));
+            }
+            for (Future<Void> scan : scans)
+            {
+                scan.get();
+            }
+            // Rounding leftovers
+            progress.checked(ids - idsOfSegments);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + field + " from the index", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException("Unable to read " + field + " from the index", e.getCause());
+        }
+        finally
+        {
+            refCounted.decref();
+        }
+
+        long uniqueIdsInIndex = 0;
+        for (long id = minId; id <= maxId; id++)
+        {
+            if (isSet(idsInIndex, id - minId))
+            {
+                uniqueIdsInIndex++;
+                if (!idsInDb.get(id))
+                {
+                    reporter.reportIdInIndexButNotInDb(id);
+                }
+                if (isSet(duplicatedIdsInIndex, id - minId))
+                {
+                    reporter.reportDuplicatedIdInIndex(id);
+                }
+            }
+            else if (idsInDb.get(id))
+            {
+                reporter.reportIdInDbButNotInIndex(id);
+            }
+        }
+        reporter.reportUniqueIdsInIndex(uniqueIdsInIndex);
+    }
+
+    /**
+     * Marks the ids between minId and maxId found in the docValues of the given segment; ids found more than once
+     * (in this or in another segment) are marked as duplicated as well.
+     */
+    private static void collectIds(LeafReader reader, String field, long minId, long maxId,
+                                   AtomicLongArray idsInIndex, AtomicLongArray duplicatedIdsInIndex) throws IOException
+    {
+        NumericDocValues values = reader.getNumericDocValues(field);
+        Bits docsWithField = reader.getDocsWithField(field);
+        if (values == null || docsWithField == null)
+        {
+            return;
+        }
+
+        Bits liveDocs = reader.getLiveDocs();
+        for (int doc = 0; doc < reader.maxDoc(); doc++)
+        {
+            if ((liveDocs == null || liveDocs.get(doc)) && docsWithField.get(doc))
+            {
+                long id = values.get(doc);
+                if (minId <= id && id <= maxId && !set(idsInIndex, id - minId))
+                {
+                    set(duplicatedIdsInIndex, id - minId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the given bit, returning false if it was already set.
+     */
+    private static boolean set(AtomicLongArray bits, long index)
+    {
+        long mask = 1L << index;
+        return (bits.getAndAccumulate((int) (index >>> 6), mask, (word, bit) -> word | bit) & mask) == 0;
+    }
+
+    private static boolean isSet(AtomicLongArray bits, long index)
+    {
+        return (bits.get((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    private void reportTransactionInfoByFacets(TransactionInfoReporter reporter, Long minId, long maxId, IOpenBitSet idsInDb,
+                                               SolrQueryRequest request, String field, ReportProgress progress)
     {
         if (minId != null)
         {
@@ -3595,6 +4349,7 @@ public class SolrInformationServer implements InformationServer
                     }
                 }
 
+                progress.checked(batchEndId - batchStartId + 1);
                 batchStartId = batchEndId + 1;
                 batchEndId = Math.min(batchStartId + BATCH_FACET_TXS, maxId);
             }
@@ -0,0 +1,127 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.cache;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.alfresco.solr.query.AuthoritySetAcls;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.search.CacheRegenerator;
+import org.apache.solr.search.LRUCache;
+
+/**
+ * {@link LRUCache} for alfrescoAuthoritySetAclCache.
+ * On top of the usual LRU statistics (hits, misses, evictions) it reports how many {@link AuthoritySetAcls}
+ * have been built and the time spent building them, so the benefit of the cache is visible through the cache MBean.
+ */
+public class AuthoritySetAclCache extends LRUCache<String, AuthoritySetAcls>
+{
+    /**
+     * Build statistics, shared across cache generations for the cumulative values.
+     */
+    static class BuildStats
+    {
+        final LongAdder builds = new LongAdder();
+        final LongAdder buildTimeNanos = new LongAdder();
+
+        void add(long nanos)
+        {
+            builds.increment();
+            buildTimeNanos.add(nanos);
+        }
+    }
+
+    /**
+     * What is passed from a cache generation to the next one: the {@link LRUCache} persistence plus our own cumulative stats.
+     */
+    static class Persistence
+    {
+        final Object lruPersistence;
+        final BuildStats cumulative;
+
+        Persistence(Object lruPersistence, BuildStats cumulative)
+        {
+            this.lruPersistence = lruPersistence;
+            this.cumulative = cumulative;
+        }
+    }
+
+    private final BuildStats buildStats = new BuildStats();
+    private BuildStats cumulativeBuildStats = new BuildStats();
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public Object init(Map args, Object persistence, CacheRegenerator regenerator)
+    {
+        Persistence previous = (Persistence) persistence;
+        Persistence next =
+                new Persistence(
+                        super.init(args, previous == null ? null : previous.lruPersistence, regenerator),
+                        previous == null ? new BuildStats() : previous.cumulative);
+        cumulativeBuildStats = next.cumulative;
+        return next;
+    }
+
+    @Override
+    public AuthoritySetAcls put(String key, AuthoritySetAcls value)
+    {
+        if (value != null)
+        {
+            buildStats.add(value.getBuildTimeNanos());
+            cumulativeBuildStats.add(value.getBuildTimeNanos());
+        }
+        return super.put(key, value);
+    }
+
+    @Override
+    public String getName()
+    {
+        return AuthoritySetAclCache.class.getName();
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Override
+    public NamedList getStatistics()
+    {
+        NamedList stats = super.getStatistics();
+        addBuildStats(stats, "", buildStats);
+        addBuildStats(stats, "cumulative_", cumulativeBuildStats);
+        return stats;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void addBuildStats(NamedList stats, String prefix, BuildStats source)
+    {
+        long builds = source.builds.sum();
+        long buildTimeMs = TimeUnit.NANOSECONDS.toMillis(source.buildTimeNanos.sum());
+        stats.add(prefix + "builds", builds);
+        stats.add(prefix + "buildTimeMs", buildTimeMs);
+        stats.add(prefix + "avgBuildTimeMs", builds == 0 ? 0d : (double) buildTimeMs / builds);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.cache;
+
+import java.io.IOException;
+
+import org.alfresco.solr.query.SolrAuthoritySetQuery;
+import org.apache.solr.search.CacheRegenerator;
+import org.apache.solr.search.SolrCache;
+import org.apache.solr.search.SolrIndexSearcher;
+
+/**
+ * {@link CacheRegenerator} for alfrescoAuthoritySetAclCache
+ */
+public class AuthoritySetAclCacheRegenerator implements CacheRegenerator
+{
+    @SuppressWarnings({ "rawtypes" })
+    @Override
+    public boolean regenerateItem(SolrIndexSearcher newSearcher, SolrCache newCache,
+                SolrCache oldCache, Object oldKey, Object oldVal) throws IOException
+    {
+        if (oldKey instanceof String)
+        {
+            // Keys are normalised authority sets: building the post filter collector on the new searcher
+            // resolves the ACLs again and populates the new cache as a side-effect.
+            new SolrAuthoritySetQuery((String) oldKey).getFilterCollector(newSearcher);
+        }
+        return true;
+    }
+}
@@ -45,4 +45,7 @@ public class CacheConstants
     public final static String ALFRESCO_READER_CACHE = "alfrescoReaderCache";
     public final static String ALFRESCO_DENIED_CACHE = "alfrescoDeniedCache";
     public final static String ALFRESCO_PATH_CACHE = "alfrescoPathCache";
+    public final static String ALFRESCO_AUTHORITY_SET_ACL_CACHE = "alfrescoAuthoritySetAclCache";
+    public final static String ALFRESCO_PARSED_QUERY_CACHE = "alfrescoParsedQueryCache";
+    public final static String ALFRESCO_FINGERPRINT_CACHE = "alfrescoFingerprintCache";
 }
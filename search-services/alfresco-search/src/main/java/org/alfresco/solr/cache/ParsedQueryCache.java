@@ -0,0 +1,139 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.cache;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.alfresco.solr.query.ParsedQuery;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.search.CacheRegenerator;
+import org.apache.solr.search.LRUCache;
+
+/**
+ * {@link LRUCache} for alfrescoParsedQueryCache.
+ * On top of the usual LRU statistics (hits, misses, evictions) it reports how many queries have been parsed, the
+ * time spent parsing them and the parse time saved by the cache hits (i.e. the sum of the parse times of the
+ * queries found in the cache).
+ */
+public class ParsedQueryCache extends LRUCache<ParsedQuery.Key, ParsedQuery>
+{
+    /**
+     * Parse statistics, shared across cache generations for the cumulative values.
+     */
+    static class ParseStats
+    {
+        final LongAdder parses = new LongAdder();
+        final LongAdder parseTimeNanos = new LongAdder();
+        final LongAdder savedParseTimeNanos = new LongAdder();
+    }
+
+    /**
+     * What is passed from a cache generation to the next one: the {@link LRUCache} persistence plus our own cumulative stats.
+     */
+    static class Persistence
+    {
+        final Object lruPersistence;
+        final ParseStats cumulative;
+
+        Persistence(Object lruPersistence, ParseStats cumulative)
+        {
+            this.lruPersistence = lruPersistence;
+            this.cumulative = cumulative;
+        }
+    }
+
+    private final ParseStats parseStats = new ParseStats();
+    private ParseStats cumulativeParseStats = new ParseStats();
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public Object init(Map args, Object persistence, CacheRegenerator regenerator)
+    {
+        Persistence previous = (Persistence) persistence;
+        Persistence next =
+                new Persistence(
+                        super.init(args, previous == null ? null : previous.lruPersistence, regenerator),
+                        previous == null ? new ParseStats() : previous.cumulative);
+        cumulativeParseStats = next.cumulative;
+        return next;
+    }
+
+    @Override
+    public ParsedQuery get(ParsedQuery.Key key)
+    {
+        ParsedQuery value = super.get(key);
+        if (value != null)
+        {
+            parseStats.savedParseTimeNanos.add(value.getParseTimeNanos());
+            cumulativeParseStats.savedParseTimeNanos.add(value.getParseTimeNanos());
+        }
+        return value;
+    }
+
+    @Override
+    public ParsedQuery put(ParsedQuery.Key key, ParsedQuery value)
+    {
+        // Entries copied over by the autowarming have not been parsed again
+        if (value != null && getState() == State.LIVE)
+        {
+            parseStats.parses.increment();
+            parseStats.parseTimeNanos.add(value.getParseTimeNanos());
+            cumulativeParseStats.parses.increment();
+            cumulativeParseStats.parseTimeNanos.add(value.getParseTimeNanos());
+        }
+        return super.put(key, value);
+    }
+
+    @Override
+    public String getName()
+    {
+        return ParsedQueryCache.class.getName();
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Override
+    public NamedList getStatistics()
+    {
+        NamedList stats = super.getStatistics();
+        addParseStats(stats, "", parseStats);
+        addParseStats(stats, "cumulative_", cumulativeParseStats);
+        return stats;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void addParseStats(NamedList stats, String prefix, ParseStats source)
+    {
+        long parses = source.parses.sum();
+        long parseTimeMs = TimeUnit.NANOSECONDS.toMillis(source.parseTimeNanos.sum());
+        stats.add(prefix + "parses", parses);
+        stats.add(prefix + "parseTimeMs", parseTimeMs);
+        stats.add(prefix + "avgParseTimeMs", parses == 0 ? 0d : (double) parseTimeMs / parses);
+        stats.add(prefix + "savedParseTimeMs", TimeUnit.NANOSECONDS.toMillis(source.savedParseTimeNanos.sum()));
+    }
+}
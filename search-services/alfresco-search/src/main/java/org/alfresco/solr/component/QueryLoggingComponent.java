@@ -30,6 +30,15 @@ import java.io.IOException;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.alfresco.service.cmr.security.AuthorityType;
 import org.alfresco.solr.query.AbstractQParser;
@@ -40,6 +49,8 @@ import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ShardParams;
 import org.apache.solr.common.params.SpellingParams;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.core.CloseHook;
 import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.handler.component.ResponseBuilder;
@@ -49,33 +60,165 @@ import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
 import org.apache.solr.update.AddUpdateCommand;
 import org.apache.solr.update.processor.UpdateRequestProcessor;
+import org.apache.solr.util.plugin.SolrCoreAware;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
+ * Logs the executed queries into the &lt;core&gt;_qlog core, if it exists.
+ *
+ * Logging never blocks the request: the request thread only builds the log entry and enqueues it into a bounded queue
+ * (entries are dropped, and counted, when the queue is full). A background writer, started with the first entry
+ * logged, adds the queued entries to the qlog core in batches: cores without a qlog core never start it. The
+ * component init args are:
+ *
+ * <ul>
+ *     <li>queueSize: the maximum number of entries waiting to be written (default 10000)</li>
+ *     <li>batchSize: the maximum number of entries written with a single update request (default 100)</li>
+ *     <li>flushIntervalMs: how long the writer waits for a batch to fill up before writing it anyway (default 1000)</li>
+ * </ul>
+ *
  * @author Andy
  */
-public class QueryLoggingComponent extends SearchComponent
+public class QueryLoggingComponent extends SearchComponent implements SolrCoreAware
 {
+    protected final static Logger log = LoggerFactory.getLogger(QueryLoggingComponent.class);
+
+    /** How long the core close waits for the writer, on top of the flush interval, before giving up */
+    private static final long CLOSE_TIMEOUT_MS = 10000;
+
+    /** Wakes the writer up on core close */
+    private static final SolrInputDocument CLOSE = new SolrInputDocument();
+
+    private int queueSize = 10000;
+    private int batchSize = 100;
+    private long flushIntervalMs = 1000;
+
+    private volatile BlockingQueue<SolrInputDocument> queue;
+    private volatile ExecutorService writer;
+    private CoreContainer container;
+    private String coreName;
+    private String logCoreName;
+    private volatile boolean closed;
+
+    /** Queuing holds the read lock and closing the write lock, so no entry is queued after the writer's final drain */
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
 
     @Override
-    public void finishStage(ResponseBuilder rb)
+    public void init(NamedList args)
     {
-        super.finishStage(rb);
-        if (rb.stage != ResponseBuilder.STAGE_GET_FIELDS)
+        super.init(args);
+        queueSize = intArg(args, "queueSize", queueSize);
+        batchSize = intArg(args, "batchSize", batchSize);
+        flushIntervalMs = intArg(args, "flushIntervalMs", (int) flushIntervalMs);
+    }
+
+    private int intArg(NamedList args, String name, int defaultValue)
+    {
+        Object arg = args == null ? null : args.get(name);
+        return arg == null ? defaultValue : Integer.parseInt(arg.toString());
+    }
+
+    @Override
+    public void inform(SolrCore core)
+    {
+        container = core.getCoreContainer();
+        coreName = core.getName();
+        logCoreName = coreName + "_qlog";
+
+        // Stop the writer on core close, writing what is still queued
+        core.addCloseHook(new CloseHook() {
+            @Override
+            public void preClose(SolrCore core)
+            {
+                close();
+            }
+
+            @Override
+            public void postClose(SolrCore core)
+            {
+
+            }
+        });
+    }
+
+    /**
+     * Starts the writer, if not already started. Called with the read lock of {@link #closeLock} held.
+     */
+    private synchronized void startWriter()
+    {
+        if (writer != null)
+        {
+            return;
+        }
+
+        queue = new ArrayBlockingQueue<>(queueSize);
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "QueryLogWriter-" + coreName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::writeQueuedEntries);
+        writer = executor;
+    }
+
+    /**
+     * Stops the writer and waits for it to write what is still queued. The writer is only interrupted if it doesn't
+     * stop in time, as interrupting a write could close the index of the qlog core.
+     */
+    void close()
+    {
+        closeLock.writeLock().lock();
+        try
+        {
+            closed = true;
+        }
+        finally
+        {
+            closeLock.writeLock().unlock();
+        }
+
+        ExecutorService writer = this.writer;
+        if (writer == null)
+        {
             return;
+        }
+
+        queue.offer(CLOSE);
+        writer.shutdown();
         try
         {
-            log(rb);
+            if (!writer.awaitTermination(flushIntervalMs + CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+            {
+                log.warn("The query log writer of " + logCoreName + " did not stop in time, " + queue.size() + " entries have not been written");
+                writer.shutdownNow();
+            }
         }
-        catch (IOException e)
+        catch (InterruptedException e)
         {
-            e.printStackTrace();
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
         }
     }
 
+    @Override
+    public void finishStage(ResponseBuilder rb)
+    {
+        super.finishStage(rb);
+        if (rb.stage != ResponseBuilder.STAGE_GET_FIELDS)
+            return;
+        log(rb);
+    }
+
     /*
      * (non-Javadoc)
      * @see org.apache.solr.handler.component.SearchComponent#prepare(org.apache.solr.handler.component.ResponseBuilder)
@@ -97,113 +240,237 @@ public class QueryLoggingComponent extends SearchComponent
         log(rb);
     }
 
-    private void log(ResponseBuilder rb) throws IOException
+    private void log(ResponseBuilder rb)
     {
         boolean isShard = rb.req.getParams().getBool(ShardParams.IS_SHARD, false);
-        if (!isShard)
+        if (isShard || container == null || closed || !container.isLoaded(logCoreName))
+        {
+            return;
+        }
+
+        SolrInputDocument entry = logEntry(rb);
+        closeLock.readLock().lock();
+        try
         {
-            CoreContainer container = rb.req.getCore().getCoreContainer();
-            SolrCore logCore = container.getCore(rb.req.getCore().getName() + "_qlog");
-            if (logCore != null)
+            if (closed)
             {
-                JSONObject json = (JSONObject) rb.req.getContext().get(AbstractQParser.ALFRESCO_JSON);
+                return;
+            }
 
-                SolrQueryRequest request = null;
-                UpdateRequestProcessor processor = null;
-                try
-                {
-                    request = new LocalSolrQueryRequest(logCore, new NamedList<>());
-                    processor = logCore.getUpdateProcessingChain(null).createProcessor(request, new SolrQueryResponse());
+            if (writer == null)
+            {
+                startWriter();
+            }
+            if (queue.offer(entry))
+            {
+                queued.increment();
+            }
+            else
+            {
+                dropped.increment();
+            }
+        }
+        finally
+        {
+            closeLock.readLock().unlock();
+        }
+    }
 
-                    AddUpdateCommand cmd = new AddUpdateCommand(request);
-                    cmd.overwrite = true;
-                    SolrInputDocument input = new SolrInputDocument();
-                    input.addField("id", GUID.generate());
-                    input.addField("_version_", "1");
+    private SolrInputDocument logEntry(ResponseBuilder rb)
+    {
+        JSONObject json = (JSONObject) rb.req.getContext().get(AbstractQParser.ALFRESCO_JSON);
 
-                    input.addField("timestamp", DateTimeFormatter.ISO_INSTANT.format(Instant.now()));
+        SolrInputDocument input = new SolrInputDocument();
+        input.addField("id", GUID.generate());
+        input.addField("_version_", "1");
 
-                    if (json != null)
-                    {
-                        try
-                        {
-                            ArrayList<String> authorityList = new ArrayList<String>(1);
-                            JSONArray authorities = json.getJSONArray("authorities");
-                            for (int i = 0; i < authorities.length(); i++)
-                            {
-                                String authorityString = authorities.getString(i);
-                                authorityList.add(authorityString);
-                            }
-
-                            for (String authority : authorityList)
-                            {
-                                if (AuthorityType.getAuthorityType(authority) == AuthorityType.USER)
-                                {
-                                    input.addField("user", authority);
-                                    break;
-                                }
-                            }
-                        }
-                        catch (JSONException e)
-                        {
-                            input.addField("user", "<UNKNOWN>");
-                        }
-                    }
-                    else
-                    {
-                        input.addField("user", "<UNKNOWN>");
-                    }
+        input.addField("timestamp", DateTimeFormatter.ISO_INSTANT.format(Instant.now()));
 
-                    String userQuery = rb.req.getParams().get(SpellingParams.SPELLCHECK_Q);
-                    if (userQuery == null)
+        if (json != null)
+        {
+            try
+            {
+                ArrayList<String> authorityList = new ArrayList<String>(1);
+                JSONArray authorities = json.getJSONArray("authorities");
+                for (int i = 0; i < authorities.length(); i++)
+                {
+                    String authorityString = authorities.getString(i);
+                    authorityList.add(authorityString);
+                }
+
+                for (String authority : authorityList)
+                {
+                    if (AuthorityType.getAuthorityType(authority) == AuthorityType.USER)
                     {
-                        if (json != null)
-                        {
-                            try
-                            {
-                                userQuery = json.getString("query");
-                            }
-                            catch (JSONException e)
-                            {
-                            }
-                        }
+                        input.addField("user", authority);
+                        break;
                     }
-                    if (userQuery == null)
+                }
+            }
+            catch (JSONException e)
+            {
+                input.addField("user", "<UNKNOWN>");
+            }
+        }
+        else
+        {
+            input.addField("user", "<UNKNOWN>");
+        }
+
+        String userQuery = rb.req.getParams().get(SpellingParams.SPELLCHECK_Q);
+        if (userQuery == null)
+        {
+            if (json != null)
+            {
+                try
+                {
+                    userQuery = json.getString("query");
+                }
+                catch (JSONException e)
+                {
+                }
+            }
+        }
+        if (userQuery == null)
+        {
+            userQuery = rb.req.getParams().get(CommonParams.Q);
+        }
+
+        if (userQuery != null)
+        {
+            input.addField("user_query", userQuery);
+        }
+
+        Query query = rb.getQuery();
+        input.addField("query", query.toString());
+
+        if (rb.getResults().docList != null)
+        {
+            input.addField("found", rb.getResults().docList.matches());
+        }
+        input.addField("time", rb.req.getRequestTimer().getTime());
+        return input;
+    }
+
+    /**
+     * The writer loop: waits for queued entries and writes them in batches until the component is closed, then
+     * writes what is still queued.
+     */
+    private void writeQueuedEntries()
+    {
+        List<SolrInputDocument> batch = new ArrayList<>(batchSize);
+        try
+        {
+            while (!closed)
+            {
+                SolrInputDocument first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null || first == CLOSE)
+                {
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize && !closed)
+                {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0)
                     {
-                        userQuery = rb.req.getParams().get(CommonParams.Q);
+                        break;
                     }
 
-                    if (userQuery != null)
+                    SolrInputDocument next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null || next == CLOSE)
                     {
-                        input.addField("user_query", userQuery);
+                        break;
                     }
+                    batch.add(next);
+                }
 
-                    Query query = rb.getQuery();
-                    input.addField("query", query.toString());
+                write(batch);
+                batch.clear();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // The core close timed out: what is still queued is lost
+            queue.drainTo(batch);
+            batch.removeIf(entry -> entry == CLOSE);
+            dropped.add(batch.size());
+            log.warn("Dropped " + batch.size() + " query log entries of " + logCoreName + " on core close");
+            return;
+        }
 
-                    if (rb.getResults().docList != null)
-                    {
-                        input.addField("found", rb.getResults().docList.matches());
-                    }
-                    input.addField("time", rb.req.getRequestTimer().getTime());
+        while (queue.drainTo(batch, batchSize) > 0)
+        {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<SolrInputDocument> batch)
+    {
+        batch.removeIf(entry -> entry == CLOSE);
+        if (batch.isEmpty())
+        {
+            return;
+        }
+
+        try (SolrCore logCore = container.getCore(logCoreName))
+        {
+            if (logCore == null)
+            {
+                dropped.add(batch.size());
+                log.warn("Dropped " + batch.size() + " query log entries, the core " + logCoreName + " is not loaded");
+                return;
+            }
 
+            SolrQueryRequest request = null;
+            UpdateRequestProcessor processor = null;
+            try
+            {
+                request = new LocalSolrQueryRequest(logCore, new NamedList<>());
+                processor = logCore.getUpdateProcessingChain(null).createProcessor(request, new SolrQueryResponse());
+
+                for (SolrInputDocument input : batch)
+                {
+                    AddUpdateCommand cmd = new AddUpdateCommand(request);
+                    cmd.overwrite = true;
                     cmd.solrDoc = input;
                     processor.processAdd(cmd);
                 }
-
-                finally
+                written.add(batch.size());
+            }
+            finally
+            {
+                if (processor != null)
                 {
-                    if (processor != null)
-                    {
-                        processor.finish();
-                    }
-                    if (request != null)
-                    {
-                        request.close();
-                    }
+                    processor.finish();
+                }
+                if (request != null)
+                {
+                    request.close();
                 }
             }
         }
+        catch (Exception e)
+        {
+            failed.add(batch.size());
+            log.error("Failed to write " + batch.size() + " query log entries to " + logCoreName, e);
+        }
+    }
+
+    @Override
+    public NamedList getStatistics()
+    {
+        NamedList<Object> stats = new SimpleOrderedMap<>();
+        stats.add("queued", queued.sum());
+        stats.add("written", written.sum());
+        stats.add("dropped", dropped.sum());
+        stats.add("failed", failed.sum());
+        stats.add("queueSize", queue == null ? 0 : queue.size());
+        return stats;
     }
 
     /*
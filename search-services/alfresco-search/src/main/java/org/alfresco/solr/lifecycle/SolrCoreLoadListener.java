@@ -159,6 +159,7 @@ public class SolrCoreLoadListener extends AbstractSolrEventListener
 
                 // IMPORTANT: the closure needs to be created with the trackers created in this method
                 shutdownTrackers(core, trackers, scheduler, false);
+                informationServer.shutdown();
             }
 
             @Override
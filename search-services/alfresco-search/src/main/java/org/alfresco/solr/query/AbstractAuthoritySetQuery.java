@@ -28,7 +28,9 @@ package org.alfresco.solr.query;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.TreeSet;
 
 import org.alfresco.repo.search.adaptor.lucene.QueryConstants;
 import org.apache.lucene.index.LeafReader;
@@ -91,11 +93,30 @@ public abstract class AbstractAuthoritySetQuery extends Query
     }
 
 
+    /**
+     * Returns a normalised form of the given authorities, which can be used as a cache key for the authority set.
+     * The authorities are sorted and deduplicated, and the result is in the same format accepted by the query
+     * constructor (i.e. prefixed by the separator used in this query).
+     *
+     * @param auths the authorities of this query.
+     * @return a normalised, separator prefixed, authority set.
+     */
+    protected String getNormalizedAuthorities(String[] auths)
+    {
+        String separator = authorities.substring(0, 1);
+        StringBuilder normalized = new StringBuilder();
+        for (String auth : new TreeSet<>(Arrays.asList(auths)))
+        {
+            normalized.append(separator).append(auth);
+        }
+        return normalized.toString();
+    }
+
     /*
     *  This method collects the bitset of documents that match the authorities.
     */
 
-    protected HybridBitSet getACLSet(String[] auths, String field, SolrIndexSearcher searcher) throws IOException
+    protected AclIdSet getACLSet(String[] auths, String field, SolrIndexSearcher searcher) throws IOException
     {
         /*
         * Build a query that matches the authorities with a field in the ACL records in the index.
@@ -118,11 +139,16 @@ public abstract class AbstractAuthoritySetQuery extends Query
         DocIterator iterator = docSet.iterator();
         if(!iterator.hasNext())
         {
-            return new EmptyHybridBitSet();
+            return AclIdSet.EMPTY;
         }
 
-        //TODO : makes this configurable. For some systems this is huge and for others not big enough.
-        HybridBitSet hybridBitSet = new HybridBitSet(60000000);
+        /*
+        * There is (at most) one ACLID per matching ACL record: they are gathered in a plain array and then
+        * turned into a set which is sized on the ACLIDs actually found.
+        */
+
+        long[] aclIds = new long[docSet.size()];
+        int count = 0;
 
         /*
         * Collect the ACLID's from the matching acl records.
@@ -154,17 +180,16 @@ public abstract class AbstractAuthoritySetQuery extends Query
             }
 
             if(aclValues != null) {
-                long aclId = aclValues.get(doc - base);
-                hybridBitSet.set(aclId);
+                aclIds[count++] = aclValues.get(doc - base);
             }
         }
 
-        return hybridBitSet;
+        return AclIdSet.of(aclIds, count);
     }
 
     protected BitsFilter getACLFilter(String[] auths, String field, SolrIndexSearcher searcher) throws IOException
     {
-        HybridBitSet aclBits = getACLSet(auths, field, searcher);
+        AclIdSet aclBits = getACLSet(auths, field, searcher);
         List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
         List<FixedBitSet> bitSets = new ArrayList<FixedBitSet>(leaves.size());
 
@@ -176,7 +201,7 @@ public abstract class AbstractAuthoritySetQuery extends Query
             bitSets.add(bits);
 
             NumericDocValues fieldValues = DocValuesCache.getNumericDocValues(QueryConstants.FIELD_ACLID, reader);
-            if (fieldValues != null) {
+            if (fieldValues != null && !aclBits.isEmpty()) {
                 for (int i = 0; i < maxDoc; i++) {
                     long aclID = fieldValues.get(i);
                     if (aclBits.get(aclID)) {
@@ -33,7 +33,6 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -49,14 +48,18 @@ import org.alfresco.service.cmr.security.AuthorityType;
 import org.alfresco.service.namespace.NamespaceService;
 import org.alfresco.solr.AlfrescoSolrDataModel;
 import org.alfresco.solr.AlfrescoSolrDataModel.FieldUse;
+import org.alfresco.solr.cache.CacheConstants;
 import org.alfresco.util.Pair;
 import org.apache.commons.io.IOUtils;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.Query;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.ContentStream;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.search.QParser;
+import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.SortSpec;
 import org.apache.solr.search.SortSpecParsing;
 import org.apache.solr.search.SyntaxError;
@@ -69,9 +72,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.extensions.surf.util.I18NUtil;
 
-import com.cybozu.labs.langdetect.Detector;
 import com.cybozu.labs.langdetect.DetectorFactory;
-import com.cybozu.labs.langdetect.LangDetectException;
 import com.cybozu.labs.langdetect.Language;
 
 /**
@@ -93,6 +94,15 @@ public abstract class AbstractQParser extends QParser implements QueryConstants
     
     private static final String RERANK_QUERY_FROM_CONTEXT = "RERANK_QUERY_FROM_CONTEXT";
 
+    /**
+     * Parses a query into a Lucene query and the sort it implies (null if none).
+     */
+    @FunctionalInterface
+    protected interface QueryParsing
+    {
+        Pair<Query, String> parse() throws ParseException;
+    }
+
     static final String languages[] = {
         "af", "ar", "bg", "bn", "cs", "da", "de", "el", "en", "es", "et", "fa", "fi", "fr", "gu",
         "he", "hi", "hr", "hu", "id", "it", "ja", "kn", "ko", "lt", "lv", "mk", "ml", "mr", "ne",
@@ -122,6 +132,8 @@ public abstract class AbstractQParser extends QParser implements QueryConstants
 	private HashSet<String> autoDetectQueryLocales = new HashSet<String>();
 	
 	private HashSet<String> fixedQueryLocales = new HashSet<String>();
+
+    private final QueryLanguageDetector languageDetector;
     
     /**
      * @param qstr String
@@ -131,8 +143,23 @@ public abstract class AbstractQParser extends QParser implements QueryConstants
      * @param args 
      */
     public AbstractQParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req, NamedList<Object> args)
+    {
+        this(qstr, localParams, params, req, args, QueryLanguageDetector.NOT_CACHING);
+    }
+
+    /**
+     * @param qstr String
+     * @param localParams SolrParams
+     * @param params SolrParams
+     * @param req SolrQueryRequest
+     * @param args NamedList<Object>
+     * @param languageDetector the language detector of the plugin, used for the query locale auto-detection
+     */
+    public AbstractQParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req, NamedList<Object> args,
+                QueryLanguageDetector languageDetector)
     {
         super(qstr, localParams, params, req);
+        this.languageDetector = languageDetector;
         if(args != null)
         {
         	Object arg = args.get("autoDetectQueryLocale");
@@ -516,6 +543,40 @@ public abstract class AbstractQParser extends QParser implements QueryConstants
         return new Pair<SearchParameters, Boolean>(searchParameters, isFilter);
     }
 
+    /**
+     * Parses a query through the alfrescoParsedQueryCache: the cached query, bound to the given search parameters, is
+     * returned when the same query has already been parsed against the current dictionary, otherwise the query is parsed and, when cacheable, cached.
+     * The cache is optional: without it, every query is parsed.
+     *
+     * @param key the key of the query.
+     * @param searchParameters the search parameters of the query.
+     * @param parsing parses the query.
+     * @return the parsed query.
+     * @throws ParseException if the query cannot be parsed.
+     */
+    protected ParsedQuery getParsedQuery(ParsedQuery.Key key, SearchParameters searchParameters, QueryParsing parsing) throws ParseException
+    {
+        SolrIndexSearcher searcher = req.getSearcher();
+        boolean cacheable = searcher != null && ParsedQuery.isCacheable(searchParameters);
+        if (cacheable)
+        {
+            ParsedQuery parsedQuery = (ParsedQuery) searcher.cacheLookup(CacheConstants.ALFRESCO_PARSED_QUERY_CACHE, key);
+            if (parsedQuery != null)
+            {
+                return parsedQuery.boundTo(searchParameters);
+            }
+        }
+
+        long start = System.nanoTime();
+        Pair<Query, String> queryAndSort = parsing.parse();
+        ParsedQuery parsedQuery = new ParsedQuery(queryAndSort.getFirst(), queryAndSort.getSecond(), System.nanoTime() - start);
+        if (cacheable)
+        {
+            searcher.cacheInsert(CacheConstants.ALFRESCO_PARSED_QUERY_CACHE, key, parsedQuery);
+        }
+        return parsedQuery;
+    }
+
     /**
      * @param searchParameters SearchParameters
      * @param detectedLocale Locale
@@ -655,28 +716,16 @@ public abstract class AbstractQParser extends QParser implements QueryConstants
  
     
     private List<DetectedLanguage> detectLanguage(String content) {
-    	if (content.trim().length() == 0) { // to be consistent with the tika impl?
-    		log.debug("No input text to detect language from, returning empty list");
-    		return Collections.emptyList();
-    	}
-
-    	try {
-    		Detector detector = DetectorFactory.create();
-    		detector.append(content);
-    		ArrayList<Language> langlist = detector.getProbabilities();
-    		ArrayList<DetectedLanguage> solrLangList = new ArrayList<>();
-    		for (Language l: langlist) 
+    	List<Language> langlist = languageDetector.detect(content);
+    	ArrayList<DetectedLanguage> solrLangList = new ArrayList<>();
+    	for (Language l: langlist) 
+    	{
+    		if((autoDetectQueryLocales.size() == 0) || (autoDetectQueryLocales.contains(l.lang)))
     		{
-    			if((autoDetectQueryLocales.size() == 0) || (autoDetectQueryLocales.contains(l.lang)))
-    			{
-    			    solrLangList.add(new DetectedLanguage(l.lang, l.prob));
-    			}
+    		    solrLangList.add(new DetectedLanguage(l.lang, l.prob));
     		}
-    		return solrLangList;
-    	} catch (LangDetectException e) {
-    		log.debug("Could not determine language, returning empty list: ", e);
-    		return Collections.emptyList();
     	}
+    	return solrLangList;
     }
 
     public class DetectedLanguage {
@@ -27,6 +27,7 @@
 package org.alfresco.solr.query;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.stream.LongStream;
 
 import org.apache.lucene.index.LeafReaderContext;
@@ -38,6 +39,7 @@ import org.apache.solr.search.BitDocSet;
 import org.apache.solr.search.DocIterator;
 import org.apache.solr.search.DocSet;
 import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.search.SortedIntDocSet;
 
 
 /**
@@ -73,7 +75,7 @@ public abstract class AbstractSolrCachingScorer extends Scorer
     AbstractSolrCachingScorer(Weight weight, DocSet in, LeafReaderContext context, SolrIndexSearcher searcher)
     {
         super(weight);
-        iterator = new SolrCachingScorerDoIdSetIterator(in, context, searcher);
+        iterator = new SolrCachingScorerDoIdSetIterator(in, context);
     }
 
     @Override
@@ -103,89 +105,97 @@ public abstract class AbstractSolrCachingScorer extends Scorer
 
 
 
-	private static class SolrCachingScorerDoIdSetIterator extends DocIdSetIterator
+    /**
+     * Leaf-local iterator over the cached {@link DocSet}.
+     * A {@link BitDocSet} is used as is, through the leaf doc base offset; any other {@link DocSet} is sliced
+     * once into a leaf sized {@link FixedBitSet}. In both cases {@link #advance(int)} jumps directly to the
+     * next set bit instead of stepping through all the matches before the target.
+     */
+    private static class SolrCachingScorerDoIdSetIterator extends DocIdSetIterator
     {
-    	BitDocSet matches;
+        private final FixedBitSet bitSet;
 
-        int doc = -1;
+        /** The offset of the leaf docs in the bitset. */
+        private final int base;
+
+        /** The (exclusive) upper bound of the leaf docs in the bitset. */
+        private final int end;
 
-        FixedBitSet bitSet;
+        int doc = -1;
 
-        LeafReaderContext context;
-        
-        SolrCachingScorerDoIdSetIterator(DocSet in, LeafReaderContext context, SolrIndexSearcher searcher)
+        SolrCachingScorerDoIdSetIterator(DocSet in, LeafReaderContext context)
         {
-        	  this.context = context;
-              
-              if (in instanceof BitDocSet)
-              {
-                  matches = (BitDocSet) in;
-              }
-              else
-              {
-                  this.matches = new BitDocSet(new FixedBitSet(searcher.maxDoc()));
-                  for (DocIterator it = in.iterator(); it.hasNext(); /* */)
-                  {
-                      matches.addUnique(it.nextDoc());
-                  }
-              }
-              bitSet = matches.getBits();
-              
-              doc = getBase() - 1;
-        }
-        
-        private boolean next()
-        {        
-            if(doc+1 < bitSet.length())
+            int maxDoc = context.reader().maxDoc();
+            if (in instanceof BitDocSet)
             {
-                doc = bitSet.nextSetBit(doc+1);
-                return (doc != NO_MORE_DOCS)  && (doc < (getBase()  + context.reader().maxDoc()));
+                bitSet = ((BitDocSet) in).getBits();
+                base = context.docBase;
             }
             else
             {
-                return false;
+                bitSet = slice(in, context.docBase, maxDoc);
+                base = 0;
             }
+            end = Math.min(base + maxDoc, bitSet.length());
         }
-        
-        private int getBase()
+
+        /**
+         * Copies the docs of the given leaf into a leaf-local bitset.
+         */
+        private static FixedBitSet slice(DocSet in, int docBase, int maxDoc)
         {
-            return context.docBase;
+            FixedBitSet leafBits = new FixedBitSet(maxDoc);
+            int ceil = docBase + maxDoc;
+            if (in instanceof SortedIntDocSet)
+            {
+                int[] docs = ((SortedIntDocSet) in).getDocs();
+                int i = Arrays.binarySearch(docs, 0, in.size(), docBase);
+                for (i = i < 0 ? -i - 1 : i; i < in.size() && docs[i] < ceil; i++)
+                {
+                    leafBits.set(docs[i] - docBase);
+                }
+            }
+            else
+            {
+                for (DocIterator it = in.iterator(); it.hasNext(); /* */)
+                {
+                    int current = it.nextDoc();
+                    if (current >= docBase && current < ceil)
+                    {
+                        leafBits.set(current - docBase);
+                    }
+                }
+            }
+            return leafBits;
         }
-        
+
         @Override
         public int nextDoc() throws IOException
         {
-        	while (next())
-        	{
-        		return docID();
-        	}
-            return NO_MORE_DOCS;
+            return advance(doc + 1);
         }
 
-        
         @Override
         public int docID()
         {
-            // TODO: check this expression as for next()
-            if ((doc > -1) && (doc != NO_MORE_DOCS))
-            {
-                return doc - getBase();
-            }
             return doc;
         }
 
         @Override
         public int advance(int target) throws IOException
-        {	
-        	while (next())
-        	{
-        		final int current = docID();
-        		if (current >= target)
-        		{
-        			return current;
-        		}
-        	}
-        	return NO_MORE_DOCS;
+        {
+            // Compared before adding the base: target may be NO_MORE_DOCS (e.g. in a conjunction)
+            if (target >= end - base)
+            {
+                return doc = NO_MORE_DOCS;
+            }
+
+            int next = bitSet.nextSetBit(base + target);
+            if (next >= end)
+            {
+                return doc = NO_MORE_DOCS;
+            }
+            return doc = next - base;
         }
 
         // TODO: implement
@@ -0,0 +1,235 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+import java.util.Arrays;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A random access (doesn't support iteration), immutable set of ACL ids.
+ *
+ * The set is sized to fit the ids it contains: depending on the density of the ids within their [min, max] range
+ * it is backed either by a {@link FixedBitSet} covering only that range or by a sorted long array searched with a
+ * binary search, whichever is smaller. This replaces the previous fixed size (60M bits) bitset which was allocated
+ * on each permission check regardless of how many ACLs actually matched.
+ *
+ * Two sets are equal if they contain the same ids.
+ */
+public abstract class AclIdSet implements Accountable
+{
+    /**
+     * The empty set: no ACL id is a member.
+     */
+    public static final AclIdSet EMPTY = new AclIdSet()
+    {
+        @Override
+        public boolean get(long aclId)
+        {
+            return false;
+        }
+
+        @Override
+        public int size()
+        {
+            return 0;
+        }
+
+        @Override
+        public long ramBytesUsed()
+        {
+            return 0;
+        }
+    };
+
+    /**
+     * A bitmap has one bit for each value in the range while the sorted array needs 64 bits per member:
+     * the bitmap is preferred as long as the range is less than 64 times the cardinality.
+     */
+    private static final int BITS_PER_ID = Long.SIZE;
+
+    /**
+     * Builds an {@link AclIdSet} from the first count entries of the given array.
+     * The array is sorted and deduplicated in place, so callers must not use it afterwards.
+     *
+     * @param aclIds the ACL ids, in any order, duplicates allowed.
+     * @param count how many entries of the array are valid.
+     * @return the smallest {@link AclIdSet} representation for the given ids.
+     */
+    public static AclIdSet of(long[] aclIds, int count)
+    {
+        if (count == 0)
+        {
+            return EMPTY;
+        }
+
+        Arrays.sort(aclIds, 0, count);
+        int size = 1;
+        for (int i = 1; i < count; i++)
+        {
+            if (aclIds[i] != aclIds[size - 1])
+            {
+                aclIds[size++] = aclIds[i];
+            }
+        }
+
+        long min = aclIds[0];
+        long max = aclIds[size - 1];
+        long range = max - min + 1;
+        if (range > 0 && range <= Integer.MAX_VALUE && range <= (long) size * BITS_PER_ID)
+        {
+            FixedBitSet bits = new FixedBitSet((int) range);
+            for (int i = 0; i < size; i++)
+            {
+                bits.set((int) (aclIds[i] - min));
+            }
+            return new DenseAclIdSet(bits, min, size);
+        }
+        return new SparseAclIdSet(aclIds.length == size ? aclIds : Arrays.copyOf(aclIds, size));
+    }
+
+    /**
+     * @param aclId the ACL id.
+     * @return true if the given ACL id is a member of this set.
+     */
+    public abstract boolean get(long aclId);
+
+    /**
+     * @return the number of ACL ids in this set.
+     */
+    public abstract int size();
+
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /**
+     * Bitmap over the [min, max] range of the member ids.
+     */
+    static final class DenseAclIdSet extends AclIdSet
+    {
+        private final FixedBitSet bits;
+        private final long min;
+        private final long max;
+        private final int size;
+
+        DenseAclIdSet(FixedBitSet bits, long min, int size)
+        {
+            this.bits = bits;
+            this.min = min;
+            this.max = min + bits.length() - 1;
+            this.size = size;
+        }
+
+        @Override
+        public boolean get(long aclId)
+        {
+            return aclId >= min && aclId <= max && bits.get((int) (aclId - min));
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+        @Override
+        public long ramBytesUsed()
+        {
+            return bits.ramBytesUsed();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (!(o instanceof DenseAclIdSet)) return false;
+
+            DenseAclIdSet that = (DenseAclIdSet) o;
+            return min == that.min && bits.equals(that.bits);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * Long.hashCode(min) + bits.hashCode();
+        }
+    }
+
+    /**
+     * Sorted array of the member ids.
+     */
+    static final class SparseAclIdSet extends AclIdSet
+    {
+        private final long[] aclIds;
+        private final long min;
+        private final long max;
+
+        SparseAclIdSet(long[] aclIds)
+        {
+            this.aclIds = aclIds;
+            this.min = aclIds[0];
+            this.max = aclIds[aclIds.length - 1];
+        }
+
+        @Override
+        public boolean get(long aclId)
+        {
+            return aclId >= min && aclId <= max && Arrays.binarySearch(aclIds, aclId) >= 0;
+        }
+
+        @Override
+        public int size()
+        {
+            return aclIds.length;
+        }
+
+        @Override
+        public long ramBytesUsed()
+        {
+            return RamUsageEstimator.sizeOf(aclIds);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (!(o instanceof SparseAclIdSet)) return false;
+
+            return Arrays.equals(aclIds, ((SparseAclIdSet) o).aclIds);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Arrays.hashCode(aclIds);
+        }
+    }
+}
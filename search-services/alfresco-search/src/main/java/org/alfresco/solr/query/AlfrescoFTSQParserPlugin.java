@@ -51,6 +51,8 @@ public class AlfrescoFTSQParserPlugin extends QParserPlugin
     protected final static Logger log = LoggerFactory.getLogger(AlfrescoFTSQParserPlugin.class);
    
 	private NamedList<Object> args;
+
+    private QueryLanguageDetector languageDetector = QueryLanguageDetector.NOT_CACHING;
 	
     /*
      * (non-Javadoc)
@@ -61,7 +63,7 @@ public class AlfrescoFTSQParserPlugin extends QParserPlugin
     @Override
     public QParser createParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req)
     {
-        return new AlfrescoFTSQParser(qstr, localParams, params, req, args);
+        return new AlfrescoFTSQParser(qstr, localParams, params, req, args, languageDetector);
     }
 
     /*
@@ -72,6 +74,16 @@ public class AlfrescoFTSQParserPlugin extends QParserPlugin
     public void init(NamedList args)
     {
         this.args = args;
+        this.languageDetector = new QueryLanguageDetector(args);
+    }
+
+    /**
+     * @return the statistics of the query language detection.
+     */
+    @Override
+    public NamedList getStatistics()
+    {
+        return languageDetector.getStatistics();
     }
 
     public static class AlfrescoFTSQParser extends AbstractQParser
@@ -82,7 +94,13 @@ public class AlfrescoFTSQParserPlugin extends QParserPlugin
 
         public AlfrescoFTSQParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req, NamedList<Object> args)
         {
-            super(qstr, localParams, params, req, args);
+            this(qstr, localParams, params, req, args, QueryLanguageDetector.NOT_CACHING);
+        }
+
+        public AlfrescoFTSQParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req, NamedList<Object> args,
+                    QueryLanguageDetector languageDetector)
+        {
+            super(qstr, localParams, params, req, args, languageDetector);
             Object arg = args.get("rerankPhase");
             if(arg != null)
             {
@@ -109,8 +127,13 @@ public class AlfrescoFTSQParserPlugin extends QParserPlugin
             try
             {
                 Pair<SearchParameters, Boolean> searchParametersAndFilter = getSearchParameters();
+                SearchParameters searchParameters = searchParametersAndFilter.getFirst();
 
-                Query query = AlfrescoSolrDataModel.getInstance().getFTSQuery(searchParametersAndFilter, req, rerankPhase);
+                Query query = getParsedQuery(
+                        new ParsedQuery.Key(searchParameters, "afts", rerankPhase, searchParametersAndFilter.getSecond()),
+                        searchParameters,
+                        () -> new Pair<>(AlfrescoSolrDataModel.getInstance().getFTSQuery(searchParametersAndFilter, req, rerankPhase), null))
+                        .getQuery();
                 if(log.isDebugEnabled())
                 {
                     log.debug("AFTS QP query as lucene:\t    "+query);
@@ -49,6 +49,8 @@ public class AlfrescoLuceneQParserPlugin extends QParserPlugin
 {
     protected final static Logger log = LoggerFactory.getLogger(AlfrescoLuceneQParserPlugin.class);
 	private NamedList<Object> args;
+
+    private QueryLanguageDetector languageDetector = QueryLanguageDetector.NOT_CACHING;
     
     /*
      * (non-Javadoc)
@@ -59,7 +61,7 @@ public class AlfrescoLuceneQParserPlugin extends QParserPlugin
     @Override
     public QParser createParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req)
     {
-        return new AlfrescoLuceneQParser(qstr, localParams, params, req, args);
+        return new AlfrescoLuceneQParser(qstr, localParams, params, req, args, languageDetector);
 
     }
 
@@ -70,13 +72,29 @@ public class AlfrescoLuceneQParserPlugin extends QParserPlugin
     public void init(NamedList args)
     {
     	this.args = args;
+    	this.languageDetector = new QueryLanguageDetector(args);
+    }
+
+    /**
+     * @return the statistics of the query language detection.
+     */
+    @Override
+    public NamedList getStatistics()
+    {
+        return languageDetector.getStatistics();
     }
 
     public static class AlfrescoLuceneQParser extends AbstractQParser
     {
         public AlfrescoLuceneQParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req, NamedList<Object> args)
         {
-            super(qstr, localParams, params, req, args);
+            this(qstr, localParams, params, req, args, QueryLanguageDetector.NOT_CACHING);
+        }
+
+        public AlfrescoLuceneQParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req, NamedList<Object> args,
+                    QueryLanguageDetector languageDetector)
+        {
+            super(qstr, localParams, params, req, args, languageDetector);
         }
 
         /*
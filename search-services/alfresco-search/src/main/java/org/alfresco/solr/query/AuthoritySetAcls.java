@@ -0,0 +1,76 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+/**
+ * The resolved ACL state of an authority set, as used by the {@link SolrAuthoritySetQuery} post filter.
+ * Instances are cached per searcher (see {@link org.alfresco.solr.cache.CacheConstants#ALFRESCO_AUTHORITY_SET_ACL_CACHE})
+ * so repeated queries for the same set of authorities don't have to rebuild the ACL id sets and the owner filter.
+ *
+ * Instances are shared between queries and must be treated as read only.
+ */
+public class AuthoritySetAcls
+{
+    private final AclIdSet aclSet;
+    private final AclIdSet ownerAclSet;
+    private final BitsFilter ownerFilter;
+    private final long buildTimeNanos;
+
+    /**
+     * @param aclSet the ids of the ACLs readable by the authorities.
+     * @param ownerAclSet the ids of the ACLs readable by the owner authority, null if not needed (i.e. OWNER is a global reader).
+     * @param ownerFilter the documents owned by the user authorities of the set.
+     * @param buildTimeNanos the time spent to build this instance.
+     */
+    public AuthoritySetAcls(AclIdSet aclSet, AclIdSet ownerAclSet, BitsFilter ownerFilter, long buildTimeNanos)
+    {
+        this.aclSet = aclSet;
+        this.ownerAclSet = ownerAclSet;
+        this.ownerFilter = ownerFilter;
+        this.buildTimeNanos = buildTimeNanos;
+    }
+
+    public AclIdSet getAclSet()
+    {
+        return aclSet;
+    }
+
+    public AclIdSet getOwnerAclSet()
+    {
+        return ownerAclSet;
+    }
+
+    public BitsFilter getOwnerFilter()
+    {
+        return ownerFilter;
+    }
+
+    public long getBuildTimeNanos()
+    {
+        return buildTimeNanos;
+    }
+}
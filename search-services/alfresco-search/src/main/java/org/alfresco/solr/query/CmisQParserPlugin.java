@@ -56,6 +56,8 @@ public class CmisQParserPlugin extends QParserPlugin
     protected final static Logger log = LoggerFactory.getLogger(CmisQParserPlugin.class);
 	private NamedList<Object> args;
 
+    private QueryLanguageDetector languageDetector = QueryLanguageDetector.NOT_CACHING;
+
     /*
      * (non-Javadoc)
      * @see org.apache.solr.search.QParserPlugin#createParser(java.lang.String,
@@ -65,7 +67,7 @@ public class CmisQParserPlugin extends QParserPlugin
     @Override
     public QParser createParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req)
     {
-        return new CmisQParser(qstr, localParams, params, req, args);
+        return new CmisQParser(qstr, localParams, params, req, args, languageDetector);
     }
 
     /*
@@ -75,13 +77,29 @@ public class CmisQParserPlugin extends QParserPlugin
     public void init(NamedList args)
     {
     	this.args = args;
+    	this.languageDetector = new QueryLanguageDetector(args);
+    }
+
+    /**
+     * @return the statistics of the query language detection.
+     */
+    @Override
+    public NamedList getStatistics()
+    {
+        return languageDetector.getStatistics();
     }
 
     public static class CmisQParser extends AbstractQParser 
     {
         public CmisQParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req, NamedList<Object> args)
         {
-            super(qstr, localParams, params, req, args);
+            this(qstr, localParams, params, req, args, QueryLanguageDetector.NOT_CACHING);
+        }
+
+        public CmisQParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req, NamedList<Object> args,
+                    QueryLanguageDetector languageDetector)
+        {
+            super(qstr, localParams, params, req, args, languageDetector);
         }
 
         /*
@@ -101,29 +119,65 @@ public class CmisQParserPlugin extends QParserPlugin
                 CmisVersion cmisVersion = (cmisVersionString == null ? CmisVersion.CMIS_1_0 : CmisVersion.valueOf(cmisVersionString));
 
                 String altDic = this.params.get(SearchParameters.ALTERNATIVE_DICTIONARY);
-                org.alfresco.repo.search.impl.querymodel.Query queryModelQuery
-                = AlfrescoSolrDataModel.getInstance().parseCMISQueryToAlfrescoAbstractQuery(CMISQueryMode.CMS_WITH_ALFRESCO_EXTENSIONS, searchParameters, req, altDic, cmisVersion);
 
-                // build the sort param and update the params on the request if required .....
+                ParsedQuery parsedQuery = getParsedQuery(
+                        new ParsedQuery.Key(searchParameters, "cmis", cmisVersion, altDic, searchParametersAndFilter.getSecond()),
+                        searchParameters,
+                        () -> parse(searchParametersAndFilter, cmisVersion, altDic));
 
-                if ((queryModelQuery.getOrderings() != null) && (queryModelQuery.getOrderings().size() > 0))
+                // update request params with the sort implied by the query, if any
+
+                if (parsedQuery.getSort() != null)
                 {
-                    StringBuilder sortParameter = new StringBuilder();
+                    ModifiableSolrParams newParams = new ModifiableSolrParams(req.getParams());
+                    newParams.set("sort", parsedQuery.getSort());
+                    req.setParams(newParams);
+                    this.params = newParams;
+                }
 
-                    for (Ordering ordering : queryModelQuery.getOrderings())
+                Query query = parsedQuery.getQuery();
+                if(log.isDebugEnabled())
+                {
+                    log.debug("AFTS QP query as lucene:\t    "+query);
+                }
+                return query;
+            }
+            catch(ParseException e)
+            {
+                throw new SyntaxError(e);
+            }
+        }
+
+        /**
+         * Parses the CMIS query into a Lucene query and the sort parameter implied by its ordering (null if none).
+         */
+        private Pair<Query, String> parse(Pair<SearchParameters, Boolean> searchParametersAndFilter, CmisVersion cmisVersion, String altDic) throws ParseException
+        {
+            SearchParameters searchParameters = searchParametersAndFilter.getFirst();
+            org.alfresco.repo.search.impl.querymodel.Query queryModelQuery
+            = AlfrescoSolrDataModel.getInstance().parseCMISQueryToAlfrescoAbstractQuery(CMISQueryMode.CMS_WITH_ALFRESCO_EXTENSIONS, searchParameters, req, altDic, cmisVersion);
+
+            // build the sort param .....
+
+            String sort = null;
+            if ((queryModelQuery.getOrderings() != null) && (queryModelQuery.getOrderings().size() > 0))
+            {
+                StringBuilder sortParameter = new StringBuilder();
+
+                for (Ordering ordering : queryModelQuery.getOrderings())
+                {
+                    if (ordering.getColumn().getFunction().getName().equals(PropertyAccessor.NAME))
                     {
-                        if (ordering.getColumn().getFunction().getName().equals(PropertyAccessor.NAME))
-                        {
-                            PropertyArgument property = (PropertyArgument) ordering.getColumn().getFunctionArguments().get(PropertyAccessor.ARG_PROPERTY);
+                        PropertyArgument property = (PropertyArgument) ordering.getColumn().getFunctionArguments().get(PropertyAccessor.ARG_PROPERTY);
 
-                            if (property == null)
-                            {
-                                throw new IllegalStateException();
-                            }
+                        if (property == null)
+                        {
+                            throw new IllegalStateException();
+                        }
 
-                            String propertyName = property.getPropertyName();
+                        String propertyName = property.getPropertyName();
 
-                            String luceneField =  AlfrescoSolrDataModel.getInstance().getCMISFunctionEvaluationContext(CMISQueryMode.CMS_WITH_ALFRESCO_EXTENSIONS,cmisVersion,altDic).getLuceneFieldName(propertyName);
+                        String luceneField =  AlfrescoSolrDataModel.getInstance().getCMISFunctionEvaluationContext(CMISQueryMode.CMS_WITH_ALFRESCO_EXTENSIONS,cmisVersion,altDic).getLuceneFieldName(propertyName);
 
 //                            Pair<String, String> fieldNameAndEnding = QueryParserUtils.extractFieldNameAndEnding(luceneField);
 //                            PropertyDefinition propertyDef = QueryParserUtils.matchPropertyDefinition(searchParameters.getNamespace(), AlfrescoSolrDataModel.getInstance().getNamespaceDAO(), AlfrescoSolrDataModel.getInstance().getDictionaryService(altDic), fieldNameAndEnding.getFirst());
@@ -142,63 +196,49 @@ public class CmisQParserPlugin extends QParserPlugin
 //                            {
 //                                solrSortField =  AlfrescoSolrDataModel.getInstance().mapNonPropertyFields(luceneField);
 //                            }
-                            if(sortParameter.length() > 0)
-                            {
-                                sortParameter.append(", ");
-                            }
-                            sortParameter.append(luceneField).append(" ");
-                            if(ordering.getOrder() == Order.DESCENDING)
-                            {
-                                sortParameter.append("desc");
-                            }
-                            else
-                            {
-                                sortParameter.append("asc");
-                            }
-
+                        if(sortParameter.length() > 0)
+                        {
+                            sortParameter.append(", ");
                         }
-                        else if (ordering.getColumn().getFunction().getName().equals(Score.NAME))
+                        sortParameter.append(luceneField).append(" ");
+                        if(ordering.getOrder() == Order.DESCENDING)
                         {
-                            if(sortParameter.length() > 0)
-                            {
-                                sortParameter.append(", ");
-                            }
-                            sortParameter.append("SCORE ");
-                            if(ordering.getOrder() == Order.DESCENDING)
-                            {
-                                sortParameter.append("desc");
-                            }
-                            else
-                            {
-                                sortParameter.append("asc");
-                            }
+                            sortParameter.append("desc");
                         }
                         else
                         {
-                            throw new IllegalStateException();
+                            sortParameter.append("asc");
                         }
 
                     }
+                    else if (ordering.getColumn().getFunction().getName().equals(Score.NAME))
+                    {
+                        if(sortParameter.length() > 0)
+                        {
+                            sortParameter.append(", ");
+                        }
+                        sortParameter.append("SCORE ");
+                        if(ordering.getOrder() == Order.DESCENDING)
+                        {
+                            sortParameter.append("desc");
+                        }
+                        else
+                        {
+                            sortParameter.append("asc");
+                        }
+                    }
+                    else
+                    {
+                        throw new IllegalStateException();
+                    }
 
-                    // update request params
-
-                    ModifiableSolrParams newParams = new ModifiableSolrParams(req.getParams());
-                    newParams.set("sort", sortParameter.toString());
-                    req.setParams(newParams);
-                    this.params = newParams;
                 }
 
-                Query query = AlfrescoSolrDataModel.getInstance().getCMISQuery(CMISQueryMode.CMS_WITH_ALFRESCO_EXTENSIONS, searchParametersAndFilter, req, queryModelQuery, cmisVersion, altDic);
-                if(log.isDebugEnabled())
-                {
-                    log.debug("AFTS QP query as lucene:\t    "+query);
-                }
-                return query;
-            }
-            catch(ParseException e)
-            {
-                throw new SyntaxError(e);
+                sort = sortParameter.toString();
             }
+
+            Query query = AlfrescoSolrDataModel.getInstance().getCMISQuery(CMISQueryMode.CMS_WITH_ALFRESCO_EXTENSIONS, searchParametersAndFilter, req, queryModelQuery, cmisVersion, altDic);
+            return new Pair<>(query, sort);
         }
 
         
@@ -27,40 +27,61 @@
 package org.alfresco.solr.query;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.alfresco.solr.AlfrescoSolrDataModel;
 import org.alfresco.solr.AlfrescoSolrDataModel.FieldUse;
-import org.alfresco.solr.tracker.TrackerStats.Bucket;
-import org.alfresco.solr.tracker.TrackerStats.IncrementalStats;
+import org.alfresco.util.Pair;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.handler.component.ResponseBuilder;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.DelegatingCollector;
 
 /**
+ * Counts the collected documents by content size, in up to buckets ranges of equal width between the smallest and
+ * the largest (scaled) size.
+ * The range boundaries are only known once all the documents have been collected: collect only marks the documents
+ * and tracks the size range, the sizes are read again and counted into a primitive histogram in finish.
+ *
  * @author Andy
  *
  */
 public class ContentSizeGroupingCollector extends DelegatingCollector
 {
     ResponseBuilder rb;
-    IncrementalStats stats;
+    int scale;
+    int buckets;
     String schemaFieldName;
     SchemaField schemaField;
-    NumericDocValues numericDocValues;    
+    NumericDocValues numericDocValues;
+    FixedBitSet segmentDocs;
+    List<Pair<LeafReaderContext, FixedBitSet>> collectedDocs = new ArrayList<>();
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+
     /**
      * @param rb
      * @param buckets 
      */
     public ContentSizeGroupingCollector(ResponseBuilder rb, int scale, int buckets)
+    {
+        this(rb, scale, buckets, AlfrescoSolrDataModel.getInstance().mapProperty("content.size", FieldUse.FACET, rb.req));
+    }
+
+    /**
+     * @param schemaFieldName the schema field holding the content size.
+     */
+    ContentSizeGroupingCollector(ResponseBuilder rb, int scale, int buckets, String schemaFieldName)
     {
         this.rb = rb;
-        stats = new IncrementalStats(scale, buckets, null);
-        schemaFieldName = AlfrescoSolrDataModel.getInstance().mapProperty("content.size", FieldUse.FACET, rb.req);
+        this.scale = Math.max(scale, 1);
+        this.buckets = Math.max(buckets, 1);
+        this.schemaFieldName = schemaFieldName;
         schemaField = rb.req.getSchema().getFieldOrNull(schemaFieldName);
     }
     
@@ -73,6 +94,7 @@ public class ContentSizeGroupingCollector extends DelegatingCollector
     public void doSetNextReader(LeafReaderContext context) throws IOException
     {
         super.doSetNextReader(context);
+        numericDocValues = null;
         if(schemaField != null)
         {
             if(schemaField.getType().getNumericType() != null)
@@ -88,6 +110,12 @@ public class ContentSizeGroupingCollector extends DelegatingCollector
                 }
             }
         }
+
+        if(numericDocValues != null)
+        {
+            segmentDocs = new FixedBitSet(context.reader().maxDoc());
+            collectedDocs.add(new Pair<>(context, segmentDocs));
+        }
     }
 
 
@@ -97,8 +125,10 @@ public class ContentSizeGroupingCollector extends DelegatingCollector
 
         if(numericDocValues != null)
         {
-            long value = numericDocValues.get(doc);
-            stats.add(value);
+            long value = Math.floorDiv(numericDocValues.get(doc), scale);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            segmentDocs.set(doc);
         }
         leafDelegate.collect(doc);
     }
@@ -110,9 +140,24 @@ public class ContentSizeGroupingCollector extends DelegatingCollector
         NamedList<Object> fieldCounts = new NamedList<>(); 
         analytics.add("contentSize()", fieldCounts);
 
-        for(Bucket bucket :stats.getHistogram())
+        if(min <= max)
         {
-            fieldCounts.add("["+(long)Math.ceil(bucket.leftBoundary)+ " TO "+(long)Math.ceil(bucket.rightBoundary)+">", (long)roundEven(bucket.countLeft + bucket.countRight));
+            long width = (max - min) / buckets + 1;
+            long[] counts = new long[(int)((max - min) / width) + 1];
+            for(Pair<LeafReaderContext, FixedBitSet> segment : collectedDocs)
+            {
+                NumericDocValues values = segment.getFirst().reader().getNumericDocValues(schemaFieldName);
+                FixedBitSet docs = segment.getSecond();
+                for(int doc = docs.nextSetBit(0); doc != DocIdSetIterator.NO_MORE_DOCS; doc = doc + 1 < docs.length() ? docs.nextSetBit(doc + 1) : DocIdSetIterator.NO_MORE_DOCS)
+                {
+                    counts[(int)((Math.floorDiv(values.get(doc), scale) - min) / width)]++;
+                }
+            }
+
+            for(int i = 0; i < counts.length; i++)
+            {
+                fieldCounts.add("["+(min + i * width)+ " TO "+(min + (i + 1) * width)+">", counts[i]);
+            }
         }
 
 
@@ -120,12 +165,4 @@ public class ContentSizeGroupingCollector extends DelegatingCollector
             ((DelegatingCollector)this.delegate).finish();
         }
     }
-    
-  
-    private long roundEven(double value)
-    {
-        BigDecimal bd = new BigDecimal(value);
-        bd = bd.round(MathContext.DECIMAL64);
-        return bd.longValue();
-    }
 }
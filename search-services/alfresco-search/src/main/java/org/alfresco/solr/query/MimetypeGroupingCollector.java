@@ -53,17 +53,32 @@ public class MimetypeGroupingCollector extends DelegatingCollector
     String schemaFieldName;
     SchemaField schemaField;
     SortedDocValues sortedDocValues;
+
+    /**
+     * The counts of the current segment, by ordinal: ordinals are resolved to groups once per segment
+     * (see {@link #countSegment()}) rather than once per collected document.
+     */
+    int[] ordinalCounts;
+
     /**
      * @param rb
      * @param mappings 
      * @param group 
      */
     public MimetypeGroupingCollector(ResponseBuilder rb, HashMap<String, String> mappings, boolean doGroup)
+    {
+        this(rb, mappings, doGroup, AlfrescoSolrDataModel.getInstance().mapProperty("content.mimetype", FieldUse.FACET, rb.req));
+    }
+
+    /**
+     * @param schemaFieldName the schema field holding the mimetype.
+     */
+    MimetypeGroupingCollector(ResponseBuilder rb, HashMap<String, String> mappings, boolean doGroup, String schemaFieldName)
     {
         this.rb = rb;
         this.mappings = mappings;
         this.doGroup = doGroup;
-        schemaFieldName = AlfrescoSolrDataModel.getInstance().mapProperty("content.mimetype", FieldUse.FACET, rb.req);
+        this.schemaFieldName = schemaFieldName;
         schemaField = rb.req.getSchema().getFieldOrNull(schemaFieldName);
     }
     
@@ -72,11 +87,13 @@ public class MimetypeGroupingCollector extends DelegatingCollector
     public void doSetNextReader(LeafReaderContext context) throws IOException
     {
         super.doSetNextReader(context);
+        countSegment();
         if(schemaField != null)
         {
             try
             {
                 sortedDocValues = context.reader().getSortedDocValues(schemaFieldName);
+                ordinalCounts = sortedDocValues == null ? null : new int[sortedDocValues.getValueCount()];
             }
             catch (IOException e)
             {
@@ -85,6 +102,31 @@ public class MimetypeGroupingCollector extends DelegatingCollector
         }
     }
 
+    /**
+     * Adds the counts of the current segment to the counters, merging the segments by group.
+     */
+    private void countSegment()
+    {
+        if(ordinalCounts != null)
+        {
+            for(int ordinal = 0; ordinal < ordinalCounts.length; ordinal++)
+            {
+                if(ordinalCounts[ordinal] > 0)
+                {
+                    String value = (String)schemaField.getType().toObject(schemaField, sortedDocValues.lookupOrd(ordinal));
+                    String group = doGroup ? mappings.get(value) : value;
+                    if(group == null)
+                    {
+                        group = value;
+                    }
+
+                    counters.computeIfAbsent(group, key -> Counter.newCounter()).addAndGet(ordinalCounts[ordinal]);
+                }
+            }
+            ordinalCounts = null;
+        }
+    }
+
     @Override
     public void collect(int doc) throws IOException 
     {
@@ -93,20 +135,7 @@ public class MimetypeGroupingCollector extends DelegatingCollector
             int ordinal = sortedDocValues.getOrd(doc);
             if(ordinal > -1)
             {
-                String value = (String)schemaField.getType().toObject(schemaField, sortedDocValues.lookupOrd(ordinal));
-                String group = doGroup ? mappings.get(value) : value;
-                if(group == null)
-                {
-                    group = value;
-                }
-
-                Counter counter = counters.get(group);
-                if(counter == null)
-                {
-                    counter = Counter.newCounter();
-                    counters.put(group, counter);
-                }
-                counter.addAndGet(1);
+                ordinalCounts[ordinal]++;
             }
         }
 
@@ -116,6 +145,8 @@ public class MimetypeGroupingCollector extends DelegatingCollector
 
     public void finish() throws IOException 
     {
+        countSegment();
+
         NamedList<Object> analytics = new NamedList<>();
         rb.rsp.add("analytics", analytics);
         NamedList<Object> fieldCounts = new NamedList<>(); 
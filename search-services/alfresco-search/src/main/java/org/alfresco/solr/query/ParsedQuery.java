@@ -0,0 +1,178 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import org.alfresco.service.cmr.search.SearchParameters;
+import org.alfresco.solr.AlfrescoSolrDataModel;
+import org.alfresco.solr.ContextAwareQuery;
+import org.apache.lucene.search.Query;
+
+/**
+ * An AFTS or CMIS query parsed by {@link AbstractQParser}, together with the sort it implies (CMIS only).
+ * Instances are cached per searcher (see {@link org.alfresco.solr.cache.CacheConstants#ALFRESCO_PARSED_QUERY_CACHE})
+ * so the same saved search or dashlet query doesn't go through the query parsers every time it is executed.
+ *
+ * Instances are shared between requests and must be treated as read only.
+ */
+public class ParsedQuery
+{
+    /**
+     * Queries whose result depends on the time or on the index content (FINGERPRINT looks up the min hashes of the
+     * referenced node) are never cached. The parsers accept now and today in any case.
+     */
+    private static final Pattern NOT_CACHEABLE = Pattern.compile("\\b(?:NOW|TODAY|FINGERPRINT)\\b", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * The key of a parsed query: the dictionary version plus everything the parser used for building the query.
+     */
+    public static class Key
+    {
+        private final long dictionaryVersion;
+        private final List<Object> parts;
+
+        /**
+         * @param searchParameters the search parameters of the query.
+         * @param parserInputs the other parser inputs (query language, parser options, ...).
+         *                     They must be immutable and implement equals/hashCode.
+         */
+        public Key(SearchParameters searchParameters, Object... parserInputs)
+        {
+            this.dictionaryVersion = AlfrescoSolrDataModel.getInstance().getDictionaryVersion();
+
+            // Search parameters are mutable: only a copy of what the parsers use goes into the key
+            this.parts = new ArrayList<>(Arrays.asList(parserInputs));
+            this.parts.add(searchParameters.getQuery());
+            this.parts.add(searchParameters.getDefaultFieldName());
+            this.parts.add(searchParameters.getNamespace());
+            this.parts.add(new ArrayList<>(searchParameters.getLocales()));
+            this.parts.add(new HashMap<>(searchParameters.getQueryTemplates()));
+            this.parts.add(new ArrayList<>(searchParameters.getAllAttributes()));
+            this.parts.add(new ArrayList<>(searchParameters.getTextAttributes()));
+            this.parts.add(searchParameters.getDefaultFTSOperator());
+            this.parts.add(searchParameters.getMlAnalaysisMode());
+            this.parts.add(new ArrayList<>(searchParameters.getQueryParameterDefinitions()));
+            this.parts.add(searchParameters.excludeDataInTheCurrentTransaction());
+        }
+
+        /**
+         * @return true if the key refers to the current version of the dictionary.
+         */
+        public boolean isCurrent()
+        {
+            return dictionaryVersion == AlfrescoSolrDataModel.getInstance().getDictionaryVersion();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key that = (Key) o;
+            return dictionaryVersion == that.dictionaryVersion && parts.equals(that.parts);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(dictionaryVersion, parts);
+        }
+    }
+
+    private final Query query;
+    private final String sort;
+    private final long parseTimeNanos;
+
+    /**
+     * @param query the parsed query.
+     * @param sort the sort parameter implied by the query, null if none.
+     * @param parseTimeNanos the time spent to parse the query.
+     */
+    public ParsedQuery(Query query, String sort, long parseTimeNanos)
+    {
+        this.query = query;
+        this.sort = sort;
+        this.parseTimeNanos = parseTimeNanos;
+    }
+
+    /**
+     * @param searchParameters the search parameters of a query.
+     * @return true if the query can be cached, i.e. the same text always parses to the same query.
+     */
+    public static boolean isCacheable(SearchParameters searchParameters)
+    {
+        if (searchParameters.getQuery() == null || NOT_CACHEABLE.matcher(searchParameters.getQuery()).find())
+        {
+            return false;
+        }
+        return searchParameters.getQueryTemplates().values().stream()
+                .noneMatch(template -> NOT_CACHEABLE.matcher(template).find());
+    }
+
+    /**
+     * {@link ContextAwareQuery} takes its search parameters into account in equals/hashCode, and so in the keys of the
+     * Solr caches: a cached query is bound to the search parameters of the request executing it, rather than keeping
+     * the ones of the request which parsed it. Filter queries have no search parameters and are shared as they are.
+     *
+     * @param searchParameters the search parameters of the request executing the query.
+     * @return the parsed query bound to the given search parameters.
+     */
+    public ParsedQuery boundTo(SearchParameters searchParameters)
+    {
+        if (query instanceof ContextAwareQuery)
+        {
+            ContextAwareQuery contextAwareQuery = (ContextAwareQuery) query;
+            if (contextAwareQuery.getSearchParameters() != null && contextAwareQuery.getSearchParameters() != searchParameters)
+            {
+                return new ParsedQuery(new ContextAwareQuery(contextAwareQuery.getLuceneQuery(), searchParameters), sort, parseTimeNanos);
+            }
+        }
+        return this;
+    }
+
+    public Query getQuery()
+    {
+        return query;
+    }
+
+    public String getSort()
+    {
+        return sort;
+    }
+
+    public long getParseTimeNanos()
+    {
+        return parseTimeNanos;
+    }
+}
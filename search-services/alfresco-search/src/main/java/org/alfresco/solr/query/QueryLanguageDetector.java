@@ -0,0 +1,193 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.util.ConcurrentLRUCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cybozu.labs.langdetect.Detector;
+import com.cybozu.labs.langdetect.DetectorFactory;
+import com.cybozu.labs.langdetect.LangDetectException;
+import com.cybozu.labs.langdetect.Language;
+
+/**
+ * Detects the language of query texts, for the query locale auto-detection of {@link AbstractQParser}.
+ * An instance is owned by a query parser plugin, so it is configured per core through the plugin init args:
+ *
+ * <ul>
+ *     <li>languageDetectionCacheSize: the maximum number of query texts whose detected languages are cached (default 1000, 0 disables the cache)</li>
+ *     <li>languageDetectionMinLength: query texts shorter than this (once trimmed) are not detected (default 1, i.e. only blank texts are skipped)</li>
+ *     <li>asciiQueryLanguage: if set, the language assumed for ASCII-only query texts, which are then not detected</li>
+ * </ul>
+ *
+ * The language profiles are loaded by {@link AbstractQParser}. Detection is deterministic (the detector seed is fixed),
+ * so caching the detected languages doesn't change the result.
+ */
+public class QueryLanguageDetector
+{
+    protected final static Logger log = LoggerFactory.getLogger(QueryLanguageDetector.class);
+
+    /**
+     * A detector without cache and short-circuit rules, for parsers created without a plugin-owned detector.
+     */
+    static final QueryLanguageDetector NOT_CACHING = new QueryLanguageDetector(0, 1, null);
+
+    private final int minLength;
+    private final String asciiQueryLanguage;
+    private final ConcurrentLRUCache<String, List<Language>> cache;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder shortCircuits = new LongAdder();
+    private final LongAdder detections = new LongAdder();
+    private final LongAdder detectionTimeNanos = new LongAdder();
+
+    /**
+     * @param args the init args of the owning query parser plugin (may be null).
+     */
+    public QueryLanguageDetector(NamedList<?> args)
+    {
+        this(intArg(args, "languageDetectionCacheSize", 1000),
+             intArg(args, "languageDetectionMinLength", 1),
+             args == null || args.get("asciiQueryLanguage") == null ? null : args.get("asciiQueryLanguage").toString());
+    }
+
+    QueryLanguageDetector(int cacheSize, int minLength, String asciiQueryLanguage)
+    {
+        this.minLength = Math.max(minLength, 1);
+        this.asciiQueryLanguage = asciiQueryLanguage;
+        this.cache = cacheSize > 0 ? new ConcurrentLRUCache<>(cacheSize, (int) (cacheSize * 0.9)) : null;
+    }
+
+    private static int intArg(NamedList<?> args, String name, int defaultValue)
+    {
+        Object arg = args == null ? null : args.get(name);
+        return arg == null ? defaultValue : Integer.parseInt(arg.toString());
+    }
+
+    /**
+     * @param text the query text.
+     * @return the languages detected in the given text, by decreasing probability (empty if none).
+     */
+    public List<Language> detect(String text)
+    {
+        String trimmed = text.trim();
+        if (trimmed.length() < minLength)
+        {
+            log.debug("Query text too short to detect language from, returning empty list");
+            shortCircuits.increment();
+            return Collections.emptyList();
+        }
+
+        if (asciiQueryLanguage != null && isAscii(trimmed))
+        {
+            shortCircuits.increment();
+            return Collections.singletonList(new Language(asciiQueryLanguage, 1d));
+        }
+
+        if (cache == null)
+        {
+            return detectLanguages(trimmed);
+        }
+
+        lookups.increment();
+        List<Language> languages = cache.get(trimmed);
+        if (languages != null)
+        {
+            hits.increment();
+            return languages;
+        }
+
+        languages = detectLanguages(trimmed);
+        cache.put(trimmed, languages);
+        return languages;
+    }
+
+    private List<Language> detectLanguages(String text)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            Detector detector = DetectorFactory.create();
+            detector.append(text);
+            return Collections.unmodifiableList(new ArrayList<>(detector.getProbabilities()));
+        }
+        catch (LangDetectException e)
+        {
+            log.debug("Could not determine language, returning empty list: ", e);
+            return Collections.emptyList();
+        }
+        finally
+        {
+            detections.increment();
+            detectionTimeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private boolean isAscii(String text)
+    {
+        for (int i = 0; i < text.length(); i++)
+        {
+            if (text.charAt(i) > 127)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the detection and cache statistics.
+     */
+    public NamedList<Object> getStatistics()
+    {
+        long lookupCount = lookups.sum();
+        long hitCount = hits.sum();
+        long detectionCount = detections.sum();
+        long detectionTimeMs = TimeUnit.NANOSECONDS.toMillis(detectionTimeNanos.sum());
+
+        NamedList<Object> stats = new SimpleOrderedMap<>();
+        stats.add("languageDetections", detectionCount);
+        stats.add("languageDetectionTimeMs", detectionTimeMs);
+        stats.add("avgLanguageDetectionTimeMs", detectionCount == 0 ? 0d : (double) detectionTimeMs / detectionCount);
+        stats.add("languageDetectionShortCircuits", shortCircuits.sum());
+        stats.add("languageDetectionCacheLookups", lookupCount);
+        stats.add("languageDetectionCacheHits", hitCount);
+        stats.add("languageDetectionCacheHitRatio", lookupCount == 0 ? 0d : (double) hitCount / lookupCount);
+        stats.add("languageDetectionCacheSize", cache == null ? 0 : cache.size());
+        return stats;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.alfresco.repo.search.adaptor.lucene.QueryConstants;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.util.FixedBitSet;
+
+/**
+ * The SegmentReaderSetCache keeps, for each index segment, the documents readable by a given set of authorities.
+ * Entries are keyed on the segment core cache key so they survive the opening of new searchers: after a commit
+ * only new (or merged) segments have to be scanned, while unchanged segments reuse their bits. The entries of a
+ * segment are dropped when the segment core is closed.
+ *
+ * The readable documents of a segment depend on the ACL ids readable by the authorities, which may change
+ * when ACLs are indexed in any segment: an entry is therefore only reused if it has been computed with the same
+ * {@link AclIdSet}. Both the number of authority sets kept for each segment and the total size of the cached bits
+ * are bounded: the least recently used entries are evicted first.
+ **/
+
+public class SegmentReaderSetCache
+{
+    public static final int DEFAULT_MAX_ENTRIES_PER_SEGMENT = 128;
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private static final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<Object, Integer> entriesPerSegment = new IdentityHashMap<>();
+    private static final Set<Object> closeListenedSegments = Collections.newSetFromMap(new IdentityHashMap<>());
+    private static long cachedBytes;
+
+    /**
+     * Returns the documents of the given segment whose ACLID is in the given set, reusing a previously computed
+     * result for the same segment, authorities and ACL ids when available.
+     *
+     * @param authorities the authority set, as found in the reader set query.
+     * @param aclIds the ACL ids readable by the authorities.
+     * @param reader the segment reader.
+     * @param maxEntriesPerSegment the maximum number of authority sets cached for a segment.
+     * @param maxBytes the maximum size, in bytes, of the bits cached for all the segments.
+     * @return the readable documents of the segment, with segment-local doc ids. Must not be modified.
+     */
+    public static FixedBitSet getReadableDocs(String authorities, AclIdSet aclIds, LeafReader reader, int maxEntriesPerSegment,
+                                              long maxBytes) throws IOException
+    {
+        Key key = new Key(reader.getCoreCacheKey(), authorities);
+        Entry entry = get(key);
+        if (entry != null && entry.aclIds.equals(aclIds))
+        {
+            return entry.readableDocs;
+        }
+
+        int maxDoc = reader.maxDoc();
+        FixedBitSet readableDocs = new FixedBitSet(maxDoc);
+        NumericDocValues fieldValues = DocValuesCache.getNumericDocValues(QueryConstants.FIELD_ACLID, reader);
+        if (fieldValues != null)
+        {
+            for (int i = 0; i < maxDoc; i++)
+            {
+                if (aclIds.get(fieldValues.get(i)))
+                {
+                    readableDocs.set(i);
+                }
+            }
+        }
+
+        put(reader, key, new Entry(aclIds, readableDocs), maxEntriesPerSegment, maxBytes);
+        return readableDocs;
+    }
+
+    /**
+     * Returns the size, in bytes, of the bits currently cached.
+     */
+    static synchronized long getCachedBytes()
+    {
+        return cachedBytes;
+    }
+
+    static synchronized void clear()
+    {
+        cache.clear();
+        entriesPerSegment.clear();
+        closeListenedSegments.clear();
+        cachedBytes = 0;
+    }
+
+    private static synchronized Entry get(Key key)
+    {
+        return cache.get(key);
+    }
+
+    private static synchronized void put(LeafReader reader, Key key, Entry entry, int maxEntriesPerSegment, long maxBytes)
+    {
+        if (entry.bytes > maxBytes || maxEntriesPerSegment <= 0)
+        {
+            return;
+        }
+
+        Entry previous = cache.put(key, entry);
+        if (previous != null)
+        {
+            cachedBytes -= previous.bytes;
+        }
+        else
+        {
+            if (closeListenedSegments.add(key.segment))
+            {
+                reader.addCoreClosedListener(SegmentReaderSetCache::purge);
+            }
+            entriesPerSegment.merge(key.segment, 1, Integer::sum);
+        }
+        cachedBytes += entry.bytes;
+
+        if (entriesPerSegment.get(key.segment) > maxEntriesPerSegment)
+        {
+            evictEldest(key.segment);
+        }
+        while (cachedBytes > maxBytes)
+        {
+            evictEldest(null);
+        }
+    }
+
+    /**
+     * Evicts the least recently used entry, of the given segment or of any segment if null.
+     */
+    private static void evictEldest(Object segment)
+    {
+        Iterator<Map.Entry<Key, Entry>> entries = cache.entrySet().iterator();
+        while (entries.hasNext())
+        {
+            Map.Entry<Key, Entry> eldest = entries.next();
+            if (segment == null || eldest.getKey().segment == segment)
+            {
+                entries.remove();
+                removed(eldest.getKey(), eldest.getValue());
+                return;
+            }
+        }
+    }
+
+    private static synchronized void purge(Object segment)
+    {
+        Iterator<Map.Entry<Key, Entry>> entries = cache.entrySet().iterator();
+        while (entries.hasNext())
+        {
+            Map.Entry<Key, Entry> entry = entries.next();
+            if (entry.getKey().segment == segment)
+            {
+                entries.remove();
+                cachedBytes -= entry.getValue().bytes;
+            }
+        }
+        entriesPerSegment.remove(segment);
+        closeListenedSegments.remove(segment);
+    }
+
+    private static void removed(Key key, Entry entry)
+    {
+        cachedBytes -= entry.bytes;
+        entriesPerSegment.computeIfPresent(key.segment, (segment, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static class Key
+    {
+        private final Object segment;
+        private final String authorities;
+
+        Key(Object segment, String authorities)
+        {
+            this.segment = segment;
+            this.authorities = authorities;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+            Key key = (Key) o;
+            return segment == key.segment && authorities.equals(key.authorities);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(System.identityHashCode(segment), authorities);
+        }
+    }
+
+    private static class Entry
+    {
+        private final AclIdSet aclIds;
+        private final FixedBitSet readableDocs;
+        private final long bytes;
+
+        Entry(AclIdSet aclIds, FixedBitSet readableDocs)
+        {
+            this.aclIds = aclIds;
+            this.readableDocs = readableDocs;
+            this.bytes = readableDocs.ramBytesUsed();
+        }
+    }
+}
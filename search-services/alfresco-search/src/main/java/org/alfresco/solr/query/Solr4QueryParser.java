@@ -56,6 +56,7 @@ import org.alfresco.solr.AlfrescoSolrDataModel.ContentFieldType;
 import org.alfresco.solr.AlfrescoSolrDataModel.FieldInstance;
 import org.alfresco.solr.AlfrescoSolrDataModel.FieldUse;
 import org.alfresco.solr.AlfrescoSolrDataModel.IndexedField;
+import org.alfresco.solr.cache.CacheConstants;
 import org.alfresco.solr.component.FingerPrintComponent;
 import org.alfresco.solr.utils.ThrowingFunction;
 import org.alfresco.util.CachingDateFormat;
@@ -64,7 +65,7 @@ import org.alfresco.util.SearchLanguageConversion;
 import org.antlr.misc.OrderedHashSet;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.client.HttpClient;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.commongrams.CommonGramsFilter;
@@ -106,14 +107,15 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.Version;
 import org.apache.solr.analysis.TokenizerChain;
 import org.apache.solr.client.solrj.SolrRequest;
-import org.apache.solr.client.solrj.impl.HttpClientUtil;
 import org.apache.solr.client.solrj.impl.HttpSolrClient;
 import org.apache.solr.client.solrj.request.QueryRequest;
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.SolrCore;
+import org.apache.solr.handler.component.AlfrescoHttpShardHandlerFactory;
 import org.apache.solr.handler.component.HttpShardHandlerFactory;
 import org.apache.solr.handler.component.ShardHandlerFactory;
 import org.apache.solr.request.SolrQueryRequest;
@@ -121,7 +123,6 @@ import org.apache.solr.response.DocsStreamer;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.SolrIndexSearcher;
-import org.apache.solr.update.UpdateShardHandlerConfig;
 import org.jaxen.saxpath.SAXPathException;
 import org.jaxen.saxpath.base.XPathReader;
 import org.json.JSONObject;
@@ -144,9 +145,13 @@ import java.util.Locale;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -184,6 +189,16 @@ public class Solr4QueryParser extends QueryParser implements QueryConstants
     @SuppressWarnings("unused")
     private static Log logger = LogFactory.getLog(Solr4QueryParser.class);
 
+    /** How long a FINGERPRINT query waits for the shards when the request sets no timeAllowed */
+    private static final long DEFAULT_FINGERPRINT_FETCH_TIMEOUT_MS = 30000;
+
+    /** Runs the concurrent fingerprint lookups of all the FINGERPRINT queries */
+    private static final ExecutorService FINGERPRINT_FETCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "FingerPrintFetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     protected NamespacePrefixResolver namespacePrefixResolver;
 
     protected DictionaryService dictionaryService;
@@ -796,81 +811,88 @@ public class Solr4QueryParser extends QueryParser implements QueryConstants
         return null;
     }
 
-    private Collection fetchFingerPrint(String shards, String nodeId) {
+    /**
+     * Fetches the MINHASH of the node from the shards, concurrently and within the request deadline.
+     * The fingerprints found are cached per node id for the life of the searcher.
+     */
+    Collection fetchFingerPrint(String shards, String nodeId) {
+        SolrIndexSearcher searcher = request.getSearcher();
+        Collection fingerPrint = (Collection) searcher.cacheLookup(CacheConstants.ALFRESCO_FINGERPRINT_CACHE, nodeId);
+        if (fingerPrint != null) {
+            return fingerPrint;
+        }
+
         shards = shards.replace(",", "|");
-        List<String> urls = ((HttpShardHandlerFactory)shardHandlerFactory).buildURLList(shards);
-        ExecutorService executorService =  null;
-        List<Future> futures = new ArrayList();
-        Collection fingerPrint = null;
+        HttpShardHandlerFactory httpShardHandlerFactory = (HttpShardHandlerFactory)shardHandlerFactory;
+        List<String> urls = httpShardHandlerFactory.buildURLList(shards);
+        HttpClient httpClient = AlfrescoHttpShardHandlerFactory.getDefaultClient(httpShardHandlerFactory);
+        CompletionService<Collection> completionService = new ExecutorCompletionService<>(FINGERPRINT_FETCH_EXECUTOR);
+        List<Future<Collection>> futures = new ArrayList<>(urls.size());
+
+        long timeout = solrParams.getLong(CommonParams.TIME_ALLOWED, -1L);
+        if (timeout <= 0) {
+            timeout = DEFAULT_FINGERPRINT_FETCH_TIMEOUT_MS;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
         try {
-            executorService = Executors.newCachedThreadPool();
             for (String url : urls) {
-                futures.add(executorService.submit(new FingerPrintFetchTask(url, nodeId)));
+                futures.add(completionService.submit(new FingerPrintFetchTask(httpClient, url, nodeId)));
             }
 
-            for (Future<Collection> future : futures) {
-                Collection col = future.get();
-                if(col != null) {
-                    fingerPrint = col;
+            // Only the shard holding the node has a fingerprint, so stop at the first one found
+            for (int i = 0; i < futures.size() && fingerPrint == null; i++) {
+                Future<Collection> future = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    logger.warn("Timed out fetching the fingerprint of " + nodeId + " from " + shards);
+                    break;
                 }
-            }
 
-        }catch(Exception e) {
-            logger.error(e);
+                try {
+                    fingerPrint = future.get();
+                } catch (ExecutionException e) {
+                    logger.error("Unable to fetch the fingerprint of " + nodeId + " from a shard", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } finally {
-            if (executorService != null)
-            {
-                executorService.shutdown();
+            for (Future<Collection> future : futures) {
+                future.cancel(true);
             }
         }
+
+        if (fingerPrint != null) {
+            searcher.cacheInsert(CacheConstants.ALFRESCO_FINGERPRINT_CACHE, nodeId, fingerPrint);
+        }
         return fingerPrint;
     }
 
-
-
-
-    private class FingerPrintFetchTask implements Callable<Collection> {
+    private static class FingerPrintFetchTask implements Callable<Collection> {
+        private HttpClient httpClient;
         private String url;
         private String id;
 
-        public FingerPrintFetchTask(String url, String id) {
+        public FingerPrintFetchTask(HttpClient httpClient, String url, String id) {
+            this.httpClient = httpClient;
             this.url = url;
             this.id = id;
         }
 
         public Collection call() throws Exception {
-            HttpSolrClient solrClient = null;
-            CloseableHttpClient closeableHttpClient = null;
-            try {
-                ModifiableSolrParams params = new ModifiableSolrParams();
-                params.add(FingerPrintComponent.COMPONENT_NAME, "true");
-                params.add("id", id);
-                params.add("qt","/fingerprint");
-                closeableHttpClient = HttpClientUtil.createClient(getClientParams());
-                solrClient = new HttpSolrClient.Builder(url).withHttpClient(closeableHttpClient).build();;
+            ModifiableSolrParams params = new ModifiableSolrParams();
+            params.add(FingerPrintComponent.COMPONENT_NAME, "true");
+            params.add("id", id);
+            params.add("qt","/fingerprint");
+            // The pooled client is shared, so closing the solr client leaves it open
+            try (HttpSolrClient solrClient = new HttpSolrClient.Builder(url).withHttpClient(httpClient).build()) {
                 QueryRequest request = new QueryRequest(params, SolrRequest.METHOD.POST);
                 QueryResponse response = request.process(solrClient);
                 NamedList dataResponse = response.getResponse();
                 NamedList fingerprint = (NamedList) dataResponse.get("fingerprint");
                 return (Collection)fingerprint.get("MINHASH");
-            } finally {
-                if (closeableHttpClient != null)
-                {
-                    closeableHttpClient.close();
-                }
-                if (solrClient != null)
-                {
-                    solrClient.close();
-                }
             }
         }
-
-        protected ModifiableSolrParams getClientParams() {
-            ModifiableSolrParams clientParams = new ModifiableSolrParams();
-            clientParams.set(HttpClientUtil.PROP_SO_TIMEOUT, UpdateShardHandlerConfig.DEFAULT_DISTRIBUPDATESOTIMEOUT);
-            clientParams.set(HttpClientUtil.PROP_CONNECTION_TIMEOUT, UpdateShardHandlerConfig.DEFAULT_DISTRIBUPDATECONNTIMEOUT);
-            return clientParams;
-        }
     }
 
     /**
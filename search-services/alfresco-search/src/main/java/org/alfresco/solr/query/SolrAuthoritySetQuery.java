@@ -35,6 +35,7 @@ import java.util.Properties;
 import org.alfresco.repo.search.adaptor.lucene.QueryConstants;
 import org.alfresco.service.cmr.security.AuthorityType;
 import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.solr.cache.CacheConstants;
 import org.alfresco.solr.data.GlobalReaders;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
@@ -159,30 +160,27 @@ public class SolrAuthoritySetQuery extends AbstractAuthoritySetQuery implements
 
         try
         {
-
-            /*
-            *  Collect the ACLID's that match the authorities.
-            *  This is done by querying the ACL records in the index. See the method for more
-            *  documentation on this query.
-            */
-
-            HybridBitSet aclSet = getACLSet(auths, QueryConstants.FIELD_READER, solrIndexSearcher);
-
             /*
-            * Collect the documents that the user owns.
+            *  The resolved ACL ids and owned documents only depend on the authority set and on the searcher:
+            *  they are cached per searcher, keyed by the normalised authority set.
             */
 
-            BitsFilter ownerFilter = getOwnerFilter(auths, solrIndexSearcher);
+            boolean ownerIsGlobalReader = globalReaders.contains(PermissionService.OWNER_AUTHORITY);
+            String key = getNormalizedAuthorities(auths);
+            AuthoritySetAcls acls = (AuthoritySetAcls) solrIndexSearcher.cacheLookup(CacheConstants.ALFRESCO_AUTHORITY_SET_ACL_CACHE, key);
+            if (acls == null || (!ownerIsGlobalReader && acls.getOwnerAclSet() == null))
+            {
+                acls = getAuthoritySetAcls(auths, ownerIsGlobalReader, solrIndexSearcher);
+                solrIndexSearcher.cacheInsert(CacheConstants.ALFRESCO_AUTHORITY_SET_ACL_CACHE, key, acls);
+            }
 
-            if (globalReaders.contains(PermissionService.OWNER_AUTHORITY))
+            if (ownerIsGlobalReader)
             {
-                return new AccessControlCollector(aclSet, ownerFilter);
+                return new AccessControlCollector(acls.getAclSet(), acls.getOwnerFilter());
             }
             else
             {
-                String[] ownerAuth = {PermissionService.OWNER_AUTHORITY};
-                HybridBitSet ownerAclSet = getACLSet(ownerAuth, QueryConstants.FIELD_READER, solrIndexSearcher);
-                return new AccessControlCollectorWithoutOwnerRead(aclSet, ownerAclSet, ownerFilter);
+                return new AccessControlCollectorWithoutOwnerRead(acls.getAclSet(), acls.getOwnerAclSet(), acls.getOwnerFilter());
             }
         }
         catch(Exception e)
@@ -191,6 +189,34 @@ public class SolrAuthoritySetQuery extends AbstractAuthoritySetQuery implements
         }
     }
 
+    private AuthoritySetAcls getAuthoritySetAcls(String[] auths, boolean ownerIsGlobalReader, SolrIndexSearcher searcher) throws IOException
+    {
+        long start = System.nanoTime();
+
+        /*
+        *  Collect the ACLID's that match the authorities.
+        *  This is done by querying the ACL records in the index. See the method for more
+        *  documentation on this query.
+        */
+
+        AclIdSet aclSet = getACLSet(auths, QueryConstants.FIELD_READER, searcher);
+
+        /*
+        * Collect the documents that the user owns.
+        */
+
+        BitsFilter ownerFilter = getOwnerFilter(auths, searcher);
+
+        AclIdSet ownerAclSet = null;
+        if (!ownerIsGlobalReader)
+        {
+            String[] ownerAuth = {PermissionService.OWNER_AUTHORITY};
+            ownerAclSet = getACLSet(ownerAuth, QueryConstants.FIELD_READER, searcher);
+        }
+
+        return new AuthoritySetAcls(aclSet, ownerAclSet, ownerFilter, System.nanoTime() - start);
+    }
+
     public int getCost()
     {
         return 202;
@@ -293,12 +319,12 @@ public class SolrAuthoritySetQuery extends AbstractAuthoritySetQuery implements
 
     class AccessControlCollector extends DelegatingCollector
     {
-        private HybridBitSet aclIds;
+        private AclIdSet aclIds;
         private NumericDocValues fieldValues;
         private BitsFilter ownerFilter;
         private FixedBitSet ownerDocs;
 
-        public AccessControlCollector(HybridBitSet aclIds, BitsFilter ownerFilter)
+        public AccessControlCollector(AclIdSet aclIds, BitsFilter ownerFilter)
         {
             this.aclIds=aclIds;
             this.ownerFilter = ownerFilter;
@@ -335,12 +361,12 @@ public class SolrAuthoritySetQuery extends AbstractAuthoritySetQuery implements
 
     class AccessControlCollectorWithoutOwnerRead extends DelegatingCollector
     {
-        private HybridBitSet aclIds;
-        private HybridBitSet ownerAclIds;
+        private AclIdSet aclIds;
+        private AclIdSet ownerAclIds;
         private NumericDocValues fieldValues;
         private BitsFilter ownerFilter;
         private FixedBitSet ownerDocs;
-        public AccessControlCollectorWithoutOwnerRead(HybridBitSet aclIds, HybridBitSet ownerAclIds, BitsFilter ownerFilter)
+        public AccessControlCollectorWithoutOwnerRead(AclIdSet aclIds, AclIdSet ownerAclIds, BitsFilter ownerFilter)
         {
             this.aclIds=aclIds;
             this.ownerAclIds = ownerAclIds;
@@ -96,8 +96,8 @@ public class SolrDenySetQuery extends AbstractAuthoritySetQuery implements PostF
         String[] auths = authorities.substring(1).split(authorities.substring(0, 1));
         try
         {
-            HybridBitSet denySet = getACLSet(auths, QueryConstants.FIELD_DENIED, (SolrIndexSearcher) searcher);
-            if(denySet instanceof EmptyHybridBitSet)
+            AclIdSet denySet = getACLSet(auths, QueryConstants.FIELD_DENIED, (SolrIndexSearcher) searcher);
+            if(denySet.isEmpty())
             {
                 return new AllAccessCollector();
             }
@@ -123,10 +123,10 @@ public class SolrDenySetQuery extends AbstractAuthoritySetQuery implements PostF
 
     class AccessControlCollector extends DelegatingCollector
     {
-        private HybridBitSet aclIds;
+        private AclIdSet aclIds;
         private NumericDocValues fieldValues;
 
-        public AccessControlCollector(HybridBitSet aclIds)
+        public AccessControlCollector(AclIdSet aclIds)
         {
             this.aclIds=aclIds;
         }
@@ -27,7 +27,8 @@
 package org.alfresco.solr.query;
 
 import java.io.IOException;
-import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
 
 import org.alfresco.repo.search.adaptor.lucene.QueryConstants;
 import org.alfresco.solr.cache.CacheConstants;
@@ -37,8 +38,10 @@ import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.solr.search.BitDocSet;
 import org.apache.solr.search.DocIterator;
@@ -63,7 +66,7 @@ public class SolrReaderSetScorer2 extends AbstractSolrCachingScorer
 
             String[] auths = authorities.substring(1).split(authorities.substring(0, 1));
 
-            readableDocSet = new BitDocSet(new FixedBitSet(searcher.maxDoc()));
+            FixedBitSet readableDocs = new FixedBitSet(searcher.maxDoc());
 
             BooleanQuery.Builder bQuery = new BooleanQuery.Builder();
             for(String current : auths)
@@ -74,43 +77,34 @@ public class SolrReaderSetScorer2 extends AbstractSolrCachingScorer
             wrapped.setCache(false);
 
             DocSet aclDocs = searcher.getDocSet(wrapped);
-            
-            HashSet<Long> aclsFound = new HashSet<Long>(aclDocs.size());
-            NumericDocValues aclDocValues = searcher.getSlowAtomicReader().getNumericDocValues(QueryConstants.FIELD_ACLID);
-           
-            for (DocIterator it = aclDocs.iterator(); it.hasNext(); /**/)
-            {
-                int docID = it.nextDoc();
-                // Obtain the ACL ID for this ACL doc.
-                long aclID = aclDocValues.get(docID);
-                aclsFound.add(getLong(aclID));
-            }
-         
-            if(aclsFound.size() > 0)
+            AclIdSet aclsFound = getAclIds(aclDocs, searcher);
+
+            if(!aclsFound.isEmpty())
             {
-                for(LeafReaderContext readerContext : searcher.getSlowAtomicReader().leaves() )
+                // The readable docs of each segment are cached on the segment itself, so after a commit
+                // only the new segments need to be scanned.
+                Properties p = searcher.getSchema().getResourceLoader().getCoreProperties();
+                int maxEntriesPerSegment = Integer.parseInt(p.getProperty("alfresco.readerSetSegmentCache.size",
+                        Integer.toString(SegmentReaderSetCache.DEFAULT_MAX_ENTRIES_PER_SEGMENT)));
+                long maxBytes = Long.parseLong(p.getProperty("alfresco.readerSetSegmentCache.maxBytes",
+                        Long.toString(SegmentReaderSetCache.DEFAULT_MAX_BYTES)));
+
+                for(LeafReaderContext readerContext : searcher.getTopReaderContext().leaves())
                 {
-                    int maxDoc = readerContext.reader().maxDoc();
-                    NumericDocValues fieldValues = DocValuesCache.getNumericDocValues(QueryConstants.FIELD_ACLID, readerContext.reader());
-                    if(fieldValues != null)
+                    FixedBitSet segmentReadableDocs =
+                            SegmentReaderSetCache.getReadableDocs(authorities, aclsFound, readerContext.reader(), maxEntriesPerSegment, maxBytes);
+
+                    BitSetIterator it = new BitSetIterator(segmentReadableDocs, 0);
+                    for (int i = it.nextDoc(); i != DocIdSetIterator.NO_MORE_DOCS; i = it.nextDoc())
                     {
-                        for(int i = 0; i < maxDoc ; i++)
-                        {
-                            long aclID = fieldValues.get(i);
-                            Long key = getLong(aclID);
-                            if(aclsFound.contains(key))
-                            {
-                                readableDocSet.add(readerContext.docBase + i);
-                            }
-                        }
+                        readableDocs.set(readerContext.docBase + i);
                     }
-
                 }
             }
             
             // Exclude the ACL docs from the results, we only want real docs that match.
             // Probably not very efficient, what we really want is remove(docID)
-            readableDocSet = readableDocSet.andNot(aclDocs);
+            readableDocSet = new BitDocSet(readableDocs).andNot(aclDocs);
             searcher.cacheInsert(CacheConstants.ALFRESCO_READER_CACHE, authorities, readableDocSet);
         }
         
@@ -118,4 +112,37 @@ public class SolrReaderSetScorer2 extends AbstractSolrCachingScorer
         // plus check of course, for presence in cache at start of method.
         return new SolrReaderSetScorer2(weight, readableDocSet, context, searcher);
     }
+
+    /**
+     * Collects the ACLIDs of the given ACL docs.
+     */
+    private static AclIdSet getAclIds(DocSet aclDocs, SolrIndexSearcher searcher) throws IOException
+    {
+        long[] aclIds = new long[aclDocs.size()];
+        int count = 0;
+
+        List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
+        int ord = -1;
+        int base = 0;
+        int ceil = 0;
+        NumericDocValues aclDocValues = null;
+        for (DocIterator it = aclDocs.iterator(); it.hasNext(); /**/)
+        {
+            int docID = it.nextDoc();
+            while (docID >= ceil)
+            {
+                LeafReaderContext leaf = leaves.get(++ord);
+                base = leaf.docBase;
+                ceil = base + leaf.reader().maxDoc();
+                aclDocValues = DocValuesCache.getNumericDocValues(QueryConstants.FIELD_ACLID, leaf.reader());
+            }
+
+            // Obtain the ACL ID for this ACL doc.
+            if (aclDocValues != null)
+            {
+                aclIds[count++] = aclDocValues.get(docID - base);
+            }
+        }
+        return AclIdSet.of(aclIds, count);
+    }
 }
@@ -26,8 +26,13 @@
 
 package org.alfresco.solr.tracker;
 
+import org.alfresco.repo.index.shard.ShardMethodEnum;
 import org.alfresco.solr.client.Acl;
 import org.alfresco.solr.client.Node;
+import org.alfresco.solr.client.ShardFilter;
+
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Nodes and access control lists are grouped by their ACL ID.
@@ -67,4 +72,19 @@ public class ACLIDModRouter implements DocRouter
     {
         return id % shardCount == shardInstance;
     }
+
+    @Override
+    public Optional<ShardFilter> getShardFilter(int shardCount, int shardInstance)
+    {
+        if (shardCount <= 1)
+        {
+            return Optional.empty();
+        }
+
+        return Optional.of(new ShardFilter(
+                ShardMethodEnum.MOD_ACL_ID.toString(),
+                Map.of(ShardFilter.SHARD_COUNT, String.valueOf(shardCount),
+                       ShardFilter.SHARD_INSTANCE, String.valueOf(shardInstance)),
+                node -> routeNode(shardCount, shardInstance, node)));
+    }
 }
\ No newline at end of file
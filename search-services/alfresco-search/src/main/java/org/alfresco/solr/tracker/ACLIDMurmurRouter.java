@@ -27,8 +27,13 @@
 package org.alfresco.solr.tracker;
 
 import org.apache.solr.common.util.Hash;
+import org.alfresco.repo.index.shard.ShardMethodEnum;
 import org.alfresco.solr.client.Node;
 import org.alfresco.solr.client.Acl;
+import org.alfresco.solr.client.ShardFilter;
+
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Nodes are evenly distributed over the shards at random based on the murmur hash of the ACL ID.
@@ -44,6 +49,8 @@ import org.alfresco.solr.client.Acl;
  */
 public class ACLIDMurmurRouter implements DocRouter
 {
+    private static final int MURMUR_SEED = 77;
+
     @Override
     public Boolean routeAcl(int numShards, int shardInstance, Acl acl)
     {
@@ -59,6 +66,22 @@ public class ACLIDMurmurRouter implements DocRouter
     private boolean route(long id, int numShards, int shardInstance)
     {
         String value = Long.toString(id);
-        return (Math.abs(Hash.murmurhash3_x86_32(value, 0, value.length(), 77)) % numShards) == shardInstance;
+        return (Math.abs(Hash.murmurhash3_x86_32(value, 0, value.length(), MURMUR_SEED)) % numShards) == shardInstance;
+    }
+
+    @Override
+    public Optional<ShardFilter> getShardFilter(int numShards, int shardInstance)
+    {
+        if (numShards <= 1)
+        {
+            return Optional.empty();
+        }
+
+        return Optional.of(new ShardFilter(
+                ShardMethodEnum.ACL_ID.toString(),
+                Map.of(ShardFilter.SHARD_COUNT, String.valueOf(numShards),
+                       ShardFilter.SHARD_INSTANCE, String.valueOf(shardInstance),
+                       ShardFilter.MURMUR_SEED, String.valueOf(MURMUR_SEED)),
+                node -> routeNode(numShards, shardInstance, node)));
     }
 }
\ No newline at end of file
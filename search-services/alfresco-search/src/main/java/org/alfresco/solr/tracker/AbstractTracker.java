@@ -75,6 +75,11 @@ public abstract class AbstractTracker implements Tracker
      * When rollback is set, original error is also gathered in order to provide detailed logging.
      */
     protected Throwable rollbackCausedBy;
+    /**
+     * When quarantine is enabled, the items failing on their own are skipped and retried later (see {@link RetryQueue})
+     * instead of rolling back the index, which is left for the failures of the whole batch.
+     */
+    protected boolean quarantineEnabled;
     protected final Type type;
     protected final String trackerId;
 
@@ -106,6 +111,8 @@ public abstract class AbstractTracker implements Tracker
         
         transformContent = Boolean.parseBoolean(p.getProperty("alfresco.index.transformContent", "true"));
 
+        quarantineEnabled = Boolean.parseBoolean(p.getProperty("alfresco.tracker.quarantine", "true"));
+
         this.trackerStats = this.infoSrv.getTrackerStats();
         
         this.type = type;
@@ -267,6 +274,14 @@ public abstract class AbstractTracker implements Tracker
         state = null;
     }
     
+    /**
+     * @return true if the given state is still the state of this tracker, i.e. it has not been invalidated by a rollback.
+     */
+    protected boolean isCurrent(TrackerState state)
+    {
+        return this.state == state;
+    }
+
     @Override
     public synchronized TrackerState getTrackerState()
     {
@@ -28,10 +28,12 @@ package org.alfresco.solr.tracker;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -41,8 +43,11 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
+import com.carrotsearch.hppc.LongHashSet;
 import com.google.common.collect.Lists;
 import org.alfresco.error.AlfrescoRuntimeException;
 import org.alfresco.httpclient.AuthenticationException;
@@ -50,6 +55,7 @@ import org.alfresco.repo.index.shard.ShardMethodEnum;
 import org.alfresco.solr.AclReport;
 import org.alfresco.solr.BoundedDeque;
 import org.alfresco.solr.InformationServer;
+import org.alfresco.solr.ReportProgress;
 import org.alfresco.solr.TrackerState;
 import org.alfresco.solr.adapters.IOpenBitSet;
 import org.alfresco.solr.client.Acl;
@@ -75,6 +81,7 @@ public class AclTracker extends AbstractTracker
     private static final int DEFAULT_CHANGE_SET_ACLS_BATCH_SIZE = 2000;
     private static final int DEFAULT_ACL_BATCH_SIZE = 100;
     private static final int DEFAULT_ACL_TRACKER_MAX_PARALLELISM = 32;
+    private static final int DEFAULT_REPORT_MAX_PARALLELISM = 4;
     private static final long DEFAULT_ACL_TRACKER_TIMESTEP = TIME_STEP_1_HR_IN_MS;
 
     private static final long INITIAL_MAX_ACL_CHANGE_SET_ID = 2000L;
@@ -82,6 +89,8 @@ public class AclTracker extends AbstractTracker
 
     private static final long MAX_TIME_STEP = TIME_STEP_32_DAYS_IN_MS;
 
+    private final TimeWindowStepper timeWindows = new TimeWindowStepper(MAX_TIME_STEP);
+
     private int aclTrackerParallelism;
 
     private int changeSetAclsBatchSize;
@@ -95,10 +104,17 @@ public class AclTracker extends AbstractTracker
     private ConcurrentLinkedQueue<Long> aclsToReindex = new ConcurrentLinkedQueue<>();
     private ConcurrentLinkedQueue<Long> aclsToIndex = new ConcurrentLinkedQueue<>();
     private ConcurrentLinkedQueue<Long> aclsToPurge = new ConcurrentLinkedQueue<>();
+
+    /** ACLs which failed on their own while indexing a batch, waiting to be retried. */
+    private RetryQueue quarantinedAcls = new RetryQueue();
+    private volatile boolean quarantinedAclsLoaded;
     private DocRouter docRouter;
 
     private ForkJoinPool forkJoinPool;
 
+    /** Pool used for reading, chunk by chunk, the repository ACL change sets checked by the index report. */
+    private ForkJoinPool reportPool;
+
     // Share run and write locks across all AclTracker threads
     private static Map<String, Semaphore> RUN_LOCK_BY_CORE = new ConcurrentHashMap<>();
     private static Map<String, Semaphore> WRITE_LOCK_BY_CORE = new ConcurrentHashMap<>();
@@ -136,6 +152,8 @@ public class AclTracker extends AbstractTracker
         aclTrackerParallelism = Integer.parseInt(p.getProperty("alfresco.acl.tracker.maxParallelism",
                 String.valueOf(DEFAULT_ACL_TRACKER_MAX_PARALLELISM)));
         forkJoinPool = new ForkJoinPool(aclTrackerParallelism);
+        reportPool = new ForkJoinPool(Integer.parseInt(p.getProperty("alfresco.report.maxParallelism",
+                String.valueOf(DEFAULT_REPORT_MAX_PARALLELISM))));
 
         timeStep = Long.parseLong(p.getProperty("alfresco.acl.tracker.timestep",
                 String.valueOf(DEFAULT_ACL_TRACKER_TIMESTEP)));
@@ -143,6 +161,8 @@ public class AclTracker extends AbstractTracker
         maxNumberOfAclChangeSets = Integer.parseInt(p.getProperty("alfresco.acl.tracker.maxNumberOfAclChangeSets",
                 String.valueOf(MAX_NUMBER_OF_ACL_CHANGE_SETS)));
 
+        quarantinedAcls = new RetryQueue(p);
+
         RUN_LOCK_BY_CORE.put(coreName, new Semaphore(1, true));
         WRITE_LOCK_BY_CORE.put(coreName, new Semaphore(1, true));
     }
@@ -153,6 +173,17 @@ public class AclTracker extends AbstractTracker
         trackRepository();
     }
 
+    @Override
+    public void shutdown()
+    {
+        super.shutdown();
+        if (forkJoinPool != null)
+        {
+            forkJoinPool.shutdownNow();
+            reportPool.shutdownNow();
+        }
+    }
+
     public void maintenance() throws Exception
     {
         purgeAclChangeSets();
@@ -161,6 +192,7 @@ public class AclTracker extends AbstractTracker
         reindexAcls();
         indexAclChangeSets();
         indexAcls();
+        retryQuarantinedAcls();
     }
 
 
@@ -171,7 +203,9 @@ public class AclTracker extends AbstractTracker
                 aclChangeSetsToPurge.size() > 0 ||
                 aclsToReindex.size() > 0 ||
                 aclsToIndex.size() > 0 ||
-                aclsToPurge.size() > 0;
+                aclsToPurge.size() > 0 ||
+                !quarantinedAclsLoaded ||
+                quarantinedAcls.hasDue();
     }
 
     protected void indexAclChangeSets() throws AuthenticationException, IOException, JSONException
@@ -232,6 +266,54 @@ public class AclTracker extends AbstractTracker
         }
     }
 
+    /**
+     * Reindexes the quarantined ACLs whose retry is due. ACLs failing again stay in quarantine, and in the index as
+     * error ACLs.
+     *
+     * The first call loads the error ACLs of the index, so the quarantine survives a restart.
+     */
+    protected void retryQuarantinedAcls() throws IOException
+    {
+        if (!quarantinedAclsLoaded)
+        {
+            for (Long aclId : infoSrv.getErrorAclIds())
+            {
+                if (!quarantinedAcls.contains(aclId))
+                {
+                    quarantineAcl(aclId);
+                }
+            }
+            quarantinedAclsLoaded = true;
+        }
+
+        for (Long aclId : quarantinedAcls.due())
+        {
+            try
+            {
+                List<AclReaders> readers = client.getAclReaders(Collections.singletonList(new Acl(0, aclId)));
+                indexAcl(readers, true);
+                infoSrv.deleteErrorAcl(aclId);
+                quarantinedAcls.recovered(aclId);
+                LOGGER.info("[CORE {}] - RETRY ACTION - Quarantined aclId {} has been reindexed", coreName, aclId);
+            }
+            catch (Exception exception)
+            {
+                LOGGER.warn("[CORE {}] - RETRY ACTION - Quarantined aclId {} could not be reindexed.",
+                        coreName, aclId, exception);
+                quarantineAcl(aclId);
+            }
+        }
+    }
+
+    private void quarantineAcl(long aclId)
+    {
+        if (!quarantinedAcls.quarantine(aclId))
+        {
+            LOGGER.error("[CORE {}] ACL {} failed too many times, it stays as error ACL in the index (its nodes are " +
+                    "not readable). Use the ACL REINDEX action once the cause is fixed.", coreName, aclId);
+        }
+    }
+
     protected void reindexAclChangeSets() throws AuthenticationException, IOException, JSONException
     {
         boolean requiresCommit = false;
@@ -498,22 +580,18 @@ public class AclTracker extends AbstractTracker
                                                  long timeStep, int maxResults, long endTime)
             throws AuthenticationException, IOException, JSONException
     {
-        long actualTimeStep  = timeStep;
-
         AclChangeSets aclChangeSets;
         // step forward in time until we find something or hit the time bound
         // max id unbounded
+        // The window size adapts to the density of the change sets (see TimeWindowStepper)
         Long startTime = fromCommitTime == null ? Long.valueOf(0L) : fromCommitTime;
         do
         {
+            long actualTimeStep = timeWindows.step(timeStep);
             aclChangeSets = client.getAclChangeSets(startTime, null,
                     startTime + actualTimeStep, null, maxResults);
+            timeWindows.windowProbed(actualTimeStep, aclChangeSets.getAclChangeSets().size(), maxResults, timeStep);
             startTime += actualTimeStep;
-            actualTimeStep *= 2;
-            if(actualTimeStep > MAX_TIME_STEP)
-            {
-                actualTimeStep = MAX_TIME_STEP;
-            }
         }
         while( ((aclChangeSets.getAclChangeSets().size() == 0) && (startTime < endTime)) ||
                 ((aclChangeSets.getAclChangeSets().size() > 0) && alreadyFoundChangeSets(changeSetsFound, aclChangeSets)));
@@ -522,6 +600,22 @@ public class AclTracker extends AbstractTracker
 
     }
 
+    /**
+     * @return the adaptive commit time windows used for getting the ACL change sets, with their metrics.
+     */
+    public TimeWindowStepper getTimeWindows()
+    {
+        return timeWindows;
+    }
+
+    /**
+     * @return the ACLs waiting to be retried, with the quarantine metrics.
+     */
+    public RetryQueue getQuarantinedAcls()
+    {
+        return quarantinedAcls;
+    }
+
     private boolean alreadyFoundChangeSets(BoundedDeque<AclChangeSet> changeSetsFound, AclChangeSets aclChangeSets)
     {
         if(changeSetsFound.size() == 0)
@@ -559,11 +653,98 @@ public class AclTracker extends AbstractTracker
 
     public IndexHealthReport checkIndex(Long toAclTx, Long fromTime, Long toTime)
                 throws AuthenticationException, IOException, JSONException
+    {
+        return checkIndex(toAclTx, fromTime, toTime, new ReportProgress());
+    }
+
+    /**
+     * Compares the repository ACL change sets up to toAclTx and within the given commit time window with the index,
+     * publishing the ids checked to the given progress.
+     */
+    public IndexHealthReport checkIndex(Long toAclTx, Long fromTime, Long toTime, ReportProgress progress)
+                throws AuthenticationException, IOException, JSONException
     {   
         // DB ACL TX Count
-        long firstChangeSetCommitTimex = 0;
         AclChangeSets firstChangeSets = client.getAclChangeSets(null, 0L,
                 null, INITIAL_MAX_ACL_CHANGE_SET_ID, 1);
+        if (firstChangeSets.getMaxChangeSetId() == null || fromTime != null)
+        {
+            return checkIndexByCommitTime(firstChangeSets, toAclTx, fromTime, toTime, progress);
+        }
+
+        long firstAclTxId = firstChangeSets.getAclChangeSets().isEmpty() ? 0 : firstChangeSets.getAclChangeSets().get(0).getId();
+        long lastAclTxId = toAclTx == null
+                ? firstChangeSets.getMaxChangeSetId()
+                : Math.min(toAclTx, firstChangeSets.getMaxChangeSetId());
+
+        IOpenBitSet aclTxIdsInDb = infoSrv.getOpenBitSetInstance();
+        LongAccumulator minAclTxId = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        LongAccumulator maxAclTxId = new LongAccumulator(Math::max, 0);
+
+        // Change set ids are unique, so each chunk of maxNumberOfAclChangeSets ids is read with a single request
+        long chunks = lastAclTxId < firstAclTxId ? 0 : (lastAclTxId - firstAclTxId) / maxNumberOfAclChangeSets + 1;
+        progress.toCheck(chunks == 0 ? 0 : lastAclTxId - firstAclTxId + 1);
+        try
+        {
+            reportPool.submit(() ->
+                    LongStream.range(0, chunks).parallel().forEach(chunk -> {
+                        long fromAclTxId = firstAclTxId + chunk * maxNumberOfAclChangeSets;
+                        long toAclTxId = Math.min(fromAclTxId + maxNumberOfAclChangeSets, lastAclTxId + 1);
+                        for (AclChangeSet set : getAclChangeSetsInIdRange(fromAclTxId, toAclTxId))
+                        {
+                            if ((fromTime == null || set.getCommitTimeMs() >= fromTime)
+                                    && (toTime == null || set.getCommitTimeMs() <= toTime))
+                            {
+                                synchronized (aclTxIdsInDb)
+                                {
+                                    aclTxIdsInDb.set(set.getId());
+                                }
+                                minAclTxId.accumulate(set.getId());
+                                maxAclTxId.accumulate(set.getId());
+                            }
+                        }
+                        progress.checked(toAclTxId - fromAclTxId);
+                    })).get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the repository ACL change sets", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException("Unable to read the repository ACL change sets", e.getCause());
+        }
+
+        return this.infoSrv.reportAclTransactionsInIndex(
+                aclTxIdsInDb.cardinality() == 0 ? null : minAclTxId.get(), aclTxIdsInDb, maxAclTxId.get(), progress);
+    }
+
+    /**
+     * Returns the ACL change sets with an id between fromAclTxId (inclusive) and toAclTxId (exclusive).
+     */
+    private List<AclChangeSet> getAclChangeSetsInIdRange(long fromAclTxId, long toAclTxId)
+    {
+        try
+        {
+            return client.getAclChangeSets(null, fromAclTxId, null, toAclTxId, maxNumberOfAclChangeSets).getAclChangeSets();
+        }
+        catch (IOException | AuthenticationException | JSONException e)
+        {
+            throw new AlfrescoRuntimeException("Failed to get ACL change sets " + fromAclTxId + " - " + toAclTxId, e);
+        }
+    }
+
+    /**
+     * Pages the repository ACL change sets by commit time: used when the repository doesn't return the max change set
+     * id, so the id range to be checked isn't known upfront, and when a time window is given, so only the change sets
+     * of the window are read.
+     */
+    private IndexHealthReport checkIndexByCommitTime(AclChangeSets firstChangeSets, Long toAclTx, Long fromTime, Long toTime,
+                                                     ReportProgress progress)
+                throws AuthenticationException, IOException, JSONException
+    {
+        long firstChangeSetCommitTimex = 0;
         if(firstChangeSets.getAclChangeSets().size() > 0)
         {
             AclChangeSet firstChangeSet = firstChangeSets.getAclChangeSets().get(0);
@@ -617,11 +798,13 @@ public class AclTracker extends AbstractTracker
                 lastAclTxCommitTime = set.getCommitTimeMs();
                 aclTxIdsInDb.set(set.getId());
                 changeSetsFound.add(set);
+                progress.toCheck(1);
+                progress.checked(1);
             }
         }
         while (aclTransactions.getAclChangeSets().size() > 0);
         
-        return this.infoSrv.reportAclTransactionsInIndex(minAclTxId, aclTxIdsInDb, maxAclTxId);
+        return this.infoSrv.reportAclTransactionsInIndex(minAclTxId, aclTxIdsInDb, maxAclTxId, progress);
     }
 
     public List<Long> getAclsForDbAclTransaction(Long acltxid)
@@ -691,15 +874,17 @@ public class AclTracker extends AbstractTracker
         {
             try
             {
-                getWriteLock().acquire();
-
                 /*
                 * We acquire the tracker state again here and set it globally. This is because the
                 * tracker state could have been invalidated due to a rollback by the CommitTracker.
                 * In this case the state will revert to the last transaction state record in the index.
+                *
+                * The write lock is only taken while indexing (see below), so the state is kept in a local variable:
+                * a rollback may invalidate the global one while the change sets are fetched.
                 */
 
-                this.state = getTrackerState();
+                TrackerState state = getTrackerState();
+                this.state = state;
                 
                 Long fromCommitTime = getChangeSetFromCommitTime(changeSetsFound,
                         state.getLastChangeSetCommitTimeOnServer() == 0 ? state.getLastGoodChangeSetCommitTimeInIndex()
@@ -734,19 +919,48 @@ public class AclTracker extends AbstractTracker
                 }
 
                 final AtomicInteger counter = new AtomicInteger();
+                final LongHashSet indexedChangeSetIds = getIndexedAclChangeSetIds(aclChangeSets.getAclChangeSets(), state);
                 Collection<List<AclChangeSet>> changeSetBatches = aclChangeSets.getAclChangeSets().stream()
                         .peek(changeSetsFound::add)
-                        .filter(this::isAclChangeSetAlreadyIndexed)
+                        .filter(changeSet -> !indexedChangeSetIds.contains(changeSet.getId()))
                         .collect(Collectors.groupingBy(it -> counter.getAndAdd(it.getAclCount()) / changeSetAclsBatchSize))
                         .values();
 
 
                 for (List<AclChangeSet> changeSetBatch : changeSetBatches)
                 {
-                    aclCount = indexBatchOfChangeSets(changeSetBatch);
-                    // Update last committed transactions
-                    setLastChangeSetIdAndCommitTimeInTrackerState(changeSetBatch, state);
-                    indexAclChangeSetAfterWorker(changeSetBatch, state);
+                    /*
+                    * This write lock is used to lock out the Commit Tracker. It is held only while a batch and its
+                    * change sets are indexed, so commits land on change set boundaries.
+                    */
+                    getWriteLock().acquire();
+                    try
+                    {
+                        if (!isCurrent(state))
+                        {
+                            LOGGER.warn("{}-[CORE {}] Tracking stopped, the index has been rolled back while " +
+                                    "fetching the ACL change sets", Thread.currentThread().getId(), coreName);
+                            return;
+                        }
+
+                        aclCount = indexBatchOfChangeSets(changeSetBatch);
+
+                        // The change sets of a failed batch must never be written: the batch is tracked again after
+                        // the rollback
+                        if (getRollback())
+                        {
+                            LOGGER.warn("{}-[CORE {}] Tracking stopped, the batch of {} ACL change sets will be tracked " +
+                                    "again after the rollback", Thread.currentThread().getId(), coreName, changeSetBatch.size());
+                            return;
+                        }
+                        // Update last committed transactions
+                        setLastChangeSetIdAndCommitTimeInTrackerState(changeSetBatch, state);
+                        indexAclChangeSetAfterWorker(changeSetBatch, state);
+                    }
+                    finally
+                    {
+                        getWriteLock().release();
+                    }
 
                     long endElapsed = System.nanoTime();
                     trackerStats.addElapsedAclTime(aclCount, endElapsed-startElapsed);
@@ -758,10 +972,6 @@ public class AclTracker extends AbstractTracker
             {
                 throw new IOException(e);
             }
-            finally
-            {
-                getWriteLock().release();
-            }
             
         }
         while ((aclChangeSets.getAclChangeSets().size() > 0));
@@ -770,28 +980,42 @@ public class AclTracker extends AbstractTracker
         
     }
 
-    private boolean isAclChangeSetAlreadyIndexed(AclChangeSet changeSet)
+    /**
+     * Resolves with a single index lookup which ACL change sets of the window have already been indexed.
+     * Only change sets committed before the last indexed commit time can be in the index.
+     */
+    private LongHashSet getIndexedAclChangeSetIds(List<AclChangeSet> changeSets, TrackerState state)
     {
+        LongHashSet indexedChangeSetIds = new LongHashSet();
+        long[] changeSetIds = changeSets.stream()
+                .filter(changeSet -> changeSet.getCommitTimeMs() <= state.getLastIndexedChangeSetCommitTime())
+                .mapToLong(AclChangeSet::getId)
+                .toArray();
+        if (changeSetIds.length == 0)
+        {
+            return indexedChangeSetIds;
+        }
 
         try
         {
-            boolean isInIndex = (changeSet.getCommitTimeMs() <= state.getLastIndexedChangeSetCommitTime() &&
-                    infoSrv.aclChangeSetInIndex(changeSet.getId(), true));
-            if (LOGGER.isTraceEnabled())
+            BitSet inIndex = infoSrv.aclChangeSetsInIndex(changeSetIds, true);
+            for (int i = inIndex.nextSetBit(0); i >= 0; i = inIndex.nextSetBit(i + 1))
             {
-                LOGGER.trace("{}-[CORE {}] Skipping change Set Id {} as it was already indexed",
-                        Thread.currentThread().getId(), coreName, changeSet.getId());
+                indexedChangeSetIds.add(changeSetIds[i]);
+                if (LOGGER.isTraceEnabled())
+                {
+                    LOGGER.trace("{}-[CORE {}] Skipping change Set Id {} as it was already indexed",
+                            Thread.currentThread().getId(), coreName, changeSetIds[i]);
+                }
             }
-            return !isInIndex;
         }
         catch (IOException e)
         {
             LOGGER.warn(
-                    "{}-[CORE {}] Error catched while checking if ACL Change Set {} was in index",
-                    Thread.currentThread().getId(), coreName, changeSet.getId(), e);
-            return true;
+                    "{}-[CORE {}] Error catched while checking if ACL Change Sets {} to {} were in index",
+                    Thread.currentThread().getId(), coreName, changeSetIds[0], changeSetIds[changeSetIds.length - 1], e);
         }
-
+        return indexedChangeSetIds;
     }
 
     private void setLastChangeSetIdAndCommitTimeInTrackerState(List<AclChangeSet> aclChangeSets, TrackerState state)
@@ -871,6 +1095,7 @@ public class AclTracker extends AbstractTracker
     class AclIndexWorker extends AbstractWorker
     {
         List<Acl> acls;
+        List<Acl> filteredAcls;
 
         AclIndexWorker(List<Acl> acls)
         {
@@ -880,7 +1105,7 @@ public class AclTracker extends AbstractTracker
         @Override
         protected void doWork() throws IOException, AuthenticationException, JSONException
         {
-            List<Acl> filteredAcls = filterAcls(acls);
+            filteredAcls = filterAcls(acls);
             if(filteredAcls.size() > 0)
             {
                 List<AclReaders> readers = client.getAclReaders(filteredAcls);
@@ -888,12 +1113,77 @@ public class AclTracker extends AbstractTracker
             }
         }
         
+        /**
+         * When quarantine is enabled the ACLs of the batch are indexed one at a time, and the ones failing on their
+         * own are recorded as error ACLs (their stale readers are removed) and quarantined. The index is rolled back
+         * if an error ACL cannot be written, or if none of them can be indexed and the repository does not answer
+         * (the failure is not caused by the ACLs then).
+         */
         @Override
         protected void onFail(Throwable failCausedBy)
         {
-        	setRollback(true, failCausedBy);
+            if (!quarantineEnabled || failCausedBy == null || filteredAcls == null)
+            {
+                setRollback(true, failCausedBy);
+                return;
+            }
+
+            Map<Long, Throwable> failures = new LinkedHashMap<>();
+            Throwable lastFailure = failCausedBy;
+            for (Acl acl : filteredAcls)
+            {
+                try
+                {
+                    indexAcl(client.getAclReaders(Collections.singletonList(acl)), true);
+                }
+                catch (Exception exception)
+                {
+                    LOGGER.warn("[CORE {}] ACL {} index failed and skipped in Change Set {}.",
+                            coreName, acl.getId(), acl.getAclChangeSetId(), exception);
+                    failures.put(acl.getId(), exception);
+                    lastFailure = exception;
+                }
+            }
+
+            if (failures.size() == filteredAcls.size() && !isRepositoryAvailable(filteredAcls.get(0)))
+            {
+                setRollback(true, lastFailure);
+                return;
+            }
+
+            try
+            {
+                for (Map.Entry<Long, Throwable> failure : failures.entrySet())
+                {
+                    infoSrv.indexErrorAcl(failure.getKey(), failure.getValue());
+                }
+            }
+            catch (Exception exception)
+            {
+                setRollback(true, exception);
+                return;
+            }
+            failures.keySet().forEach(AclTracker.this::quarantineAcl);
         }
         
+        /**
+         * Probes the repository by reading back the change set of the given ACL.
+         */
+        private boolean isRepositoryAvailable(Acl acl)
+        {
+            try
+            {
+                client.getAclChangeSets(null, acl.getAclChangeSetId(), null, acl.getAclChangeSetId() + 1, 1);
+                return true;
+            }
+            catch (Exception exception)
+            {
+                LOGGER.warn("[CORE {}] Repository is not available, the ACLs of Change Set {} are not quarantined.",
+                        coreName, acl.getAclChangeSetId(), exception);
+                return false;
+            }
+        }
+
         private List<Acl> filterAcls(List<Acl> acls)
         {
             ArrayList<Acl> filteredList = new ArrayList<>(acls.size());
@@ -36,8 +36,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Semaphore;
@@ -146,6 +148,7 @@ public class CascadeTracker extends AbstractTracker implements Tracker
     {
         InformationServer infoServer;
         List<NodeMetaData> nodes;
+        Throwable failCausedBy;
 
         CascadeIndexWorker(List<NodeMetaData> nodes, InformationServer infoServer)
         {
@@ -162,6 +165,7 @@ public class CascadeTracker extends AbstractTracker implements Tracker
         @Override
         protected void onFail(Throwable failCausedBy) 
         {
+            this.failCausedBy = failCausedBy;
             setRollback(true, failCausedBy);
         }
     }
@@ -214,12 +218,17 @@ public class CascadeTracker extends AbstractTracker implements Tracker
 
                 if(nodeMetaDatas.size() > 0) {
                     List<List<NodeMetaData>> nodeBatches = Lists.partition(nodeMetaDatas, cascadeBatchSize);
+                    Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
 
                     processedCascades = forkJoinPool.submit( () ->
                             nodeBatches.parallelStream().map( batch -> {
 
                                 CascadeIndexWorker worker = new CascadeIndexWorker(batch, infoSrv);
                                 worker.run();
+                                if (worker.failCausedBy != null)
+                                {
+                                    failures.add(worker.failCausedBy);
+                                }
 
                                 if (LOGGER.isTraceEnabled())
                                 {
@@ -233,7 +242,11 @@ public class CascadeTracker extends AbstractTracker implements Tracker
                             }).reduce(0, Integer::sum)
                     ).get();
 
-
+                    if (!failures.isEmpty())
+                    {
+                        // Leave the cascade flag of the transactions set, so they are cascaded again on the next run
+                        throw new IOException("Unable to cascade the updates of transactions " + txIds, failures.peek());
+                    }
                 }
                 //Update the transaction records.
                 updateTransactionsAfterWorker(txBatch);
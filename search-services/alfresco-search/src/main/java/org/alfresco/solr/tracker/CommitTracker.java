@@ -183,8 +183,14 @@ public class CommitTracker extends AbstractTracker
                 maintenance();
             }
 
-            //Do the commit opening the searcher if needed. This will commit all the work done by indexing trackers.
-            //This will return immediately and not wait for searchers to warm
+            /*
+            * The indexing trackers hold their write lock only while they index a batch and write its transaction
+            * (change set) documents, not while they fetch from the repository. So the commit waits at most for the
+            * batches in flight, and always lands on transaction boundaries.
+            *
+            * Do the commit opening the searcher if needed. This will commit all the work done by indexing trackers.
+            * This will return immediately and not wait for searchers to warm
+            */
             boolean searcherOpened = infoSrv.commit(openSearcherNeeded);
 
             lastCommit = currentTime;
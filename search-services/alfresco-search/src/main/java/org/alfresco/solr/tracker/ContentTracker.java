@@ -34,12 +34,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 import static org.alfresco.solr.utils.Utils.notNullOrEmpty;
 
@@ -120,24 +123,28 @@ public class ContentTracker extends AbstractTracker implements Tracker
                         break;
                     }
 
+                    // Each batch shares a single update request, the text content within a batch is fetched concurrently
                     List<List<TenantDbId>> docBatches = Lists.partition(docs, contentUpdateBatchSize);
-                    for (List<TenantDbId> batch : docBatches)
-                    {
-                        Integer processedDocuments = forkJoinPool.submit(() ->
-                                // Parallel task here, for example
-                                batch.parallelStream().map(doc -> {
-                                    ContentIndexWorkerRunnable ciwr = new ContentIndexWorkerRunnable(doc, infoSrv);
-                                    ciwr.run();
-                                    return 1;
-                                }).reduce(0, Integer::sum)
-                        ).get();
-
-                        long endElapsed = System.nanoTime();
-                        trackerStats.addElapsedContentTime(processedDocuments, endElapsed - startElapsed);
-                        startElapsed = endElapsed;
+                    List<TenantDbId> failedDocs = updateContent(docBatches);
 
+                    // Only the failed documents are retried, once. If they fail again they will be picked up
+                    // when the clean content cache is purged
+                    if (!failedDocs.isEmpty())
+                    {
+                        LOGGER.info("{}-[CORE {}] Retrying the content update of {} docs",
+                                Thread.currentThread().getId(), coreName, failedDocs.size());
+                        failedDocs = updateContent(Lists.partition(failedDocs, contentUpdateBatchSize));
+                        if (!failedDocs.isEmpty())
+                        {
+                            LOGGER.warn("{}-[CORE {}] Unable to update the content of {} docs",
+                                    Thread.currentThread().getId(), coreName, failedDocs.size());
+                        }
                     }
 
+                    long endElapsed = System.nanoTime();
+                    trackerStats.addElapsedContentTime(docs.size() - failedDocs.size(), endElapsed - startElapsed);
+                    startElapsed = endElapsed;
+
                     totalDocs += docs.size();
                     checkShutdown();
                 }
@@ -156,6 +163,25 @@ public class ContentTracker extends AbstractTracker implements Tracker
         }
     }
 
+    /**
+     * Updates the content of the given batches in parallel.
+     *
+     * @return the documents whose content could not be updated.
+     */
+    private List<TenantDbId> updateContent(List<List<TenantDbId>> docBatches) throws InterruptedException, ExecutionException
+    {
+        return forkJoinPool.submit(() ->
+                docBatches.parallelStream()
+                        .map(batch -> {
+                            ContentIndexWorkerRunnable ciwr = new ContentIndexWorkerRunnable(batch, infoSrv);
+                            ciwr.run();
+                            return ciwr.failedDocs;
+                        })
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList())
+        ).get();
+    }
+
     public boolean hasMaintenance()
     {
         return false;
@@ -175,11 +201,12 @@ public class ContentTracker extends AbstractTracker implements Tracker
     class ContentIndexWorkerRunnable extends AbstractWorker
     {
         InformationServer infoServer;
-        TenantDbId docRef;
+        List<TenantDbId> docRefs;
+        List<TenantDbId> failedDocs = Collections.emptyList();
 
-        ContentIndexWorkerRunnable(TenantDbId doc, InformationServer infoServer)
+        ContentIndexWorkerRunnable(List<TenantDbId> docs, InformationServer infoServer)
         {
-            this.docRef = doc;
+            this.docRefs = docs;
             this.infoServer = infoServer;
         }
 
@@ -188,7 +215,7 @@ public class ContentTracker extends AbstractTracker implements Tracker
         {
             checkShutdown();
 
-            infoServer.updateContent(docRef);
+            failedDocs = notNullOrEmpty(infoServer.updateContent(docRefs));
         }
         
         @Override
@@ -196,6 +223,7 @@ public class ContentTracker extends AbstractTracker implements Tracker
         {
             // This will be redone in future tracking operations
             LOGGER.warn("Content tracker failed due to {}", failCausedBy.getMessage(), failCausedBy);
+            failedDocs = docRefs;
         }
     }
 }
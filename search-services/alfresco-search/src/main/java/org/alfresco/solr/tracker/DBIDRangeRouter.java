@@ -31,9 +31,11 @@ import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.alfresco.repo.index.shard.ShardMethodEnum;
 import org.alfresco.service.namespace.QName;
 import org.alfresco.solr.client.Acl;
 import org.alfresco.solr.client.Node;
+import org.alfresco.solr.client.ShardFilter;
 
 /**
  * This routes documents within specific DBID ranges to specific shards.
@@ -121,4 +123,17 @@ public class DBIDRangeRouter implements DocRouter
     {
         return Map.of(DocRouterFactory.SHARD_RANGE_KEY, startRange + "-" + expandableRange);
     }
+
+    /**
+     * The range sent to the repository is the current one: if the range is expanded, the filter of the next
+     * request will follow.
+     */
+    @Override
+    public Optional<ShardFilter> getShardFilter(int shardCount, int shardInstance)
+    {
+        return Optional.of(new ShardFilter(
+                ShardMethodEnum.DB_ID_RANGE.toString(),
+                Map.of(ShardFilter.SHARD_RANGE, startRange + "-" + expandableRange),
+                node -> routeNode(shardCount, shardInstance, node)));
+    }
 }
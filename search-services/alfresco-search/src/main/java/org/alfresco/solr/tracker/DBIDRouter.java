@@ -27,8 +27,13 @@
 package org.alfresco.solr.tracker;
 
 import org.apache.solr.common.util.Hash;
+import org.alfresco.repo.index.shard.ShardMethodEnum;
 import org.alfresco.solr.client.Node;
 import org.alfresco.solr.client.Acl;
+import org.alfresco.solr.client.ShardFilter;
+
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * DBID murmur hash based document router.
@@ -51,6 +56,8 @@ import org.alfresco.solr.client.Acl;
  */
 public class DBIDRouter implements DocRouter
 {
+    static final int MURMUR_SEED = 77;
+
     @Override
     public Boolean routeAcl(int shardCount, int shardInstance, Acl acl)
     {
@@ -66,6 +73,22 @@ public class DBIDRouter implements DocRouter
         }
 
         String dbid = Long.toString(node.getId());
-        return (Math.abs(Hash.murmurhash3_x86_32(dbid, 0, dbid.length(), 77)) % shardCount) == shardInstance;
+        return (Math.abs(Hash.murmurhash3_x86_32(dbid, 0, dbid.length(), MURMUR_SEED)) % shardCount) == shardInstance;
+    }
+
+    @Override
+    public Optional<ShardFilter> getShardFilter(int shardCount, int shardInstance)
+    {
+        if(shardCount <= 1)
+        {
+            return Optional.empty();
+        }
+
+        return Optional.of(new ShardFilter(
+                ShardMethodEnum.DB_ID.toString(),
+                Map.of(ShardFilter.SHARD_COUNT, String.valueOf(shardCount),
+                       ShardFilter.SHARD_INSTANCE, String.valueOf(shardInstance),
+                       ShardFilter.MURMUR_SEED, String.valueOf(MURMUR_SEED)),
+                node -> routeNode(shardCount, shardInstance, node)));
     }
 }
\ No newline at end of file
@@ -27,9 +27,11 @@
 package org.alfresco.solr.tracker;
 
 import org.alfresco.util.ISO8601DateFormat;
+import org.alfresco.repo.index.shard.ShardMethodEnum;
 import org.alfresco.solr.client.Node;
 import org.alfresco.service.namespace.QName;
 import org.alfresco.solr.client.Acl;
+import org.alfresco.solr.client.ShardFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -140,4 +142,25 @@ public class DateMonthRouter implements DocRouter
                             DocRouterFactory.SHARD_DATE_GROUPING_KEY, String.valueOf(grouping)))
                 .orElse(emptyMap());
     }
+
+    /**
+     * The date the nodes are routed by is the shard property value, which the repository computes for the getNodes
+     * request anyway: the filter carries the month grouping, plus the DBID murmur seed of the nodes without a date.
+     */
+    @Override
+    public Optional<ShardFilter> getShardFilter(int numShards, int shardInstance)
+    {
+        if(numShards <= 1)
+        {
+            return Optional.empty();
+        }
+
+        return Optional.of(new ShardFilter(
+                ShardMethodEnum.DATE.toString(),
+                Map.of(ShardFilter.SHARD_COUNT, String.valueOf(numShards),
+                       ShardFilter.SHARD_INSTANCE, String.valueOf(shardInstance),
+                       ShardFilter.SHARD_DATE_GROUPING, String.valueOf(grouping),
+                       ShardFilter.MURMUR_SEED, String.valueOf(DBIDRouter.MURMUR_SEED)),
+                node -> routeNode(numShards, shardInstance, node)));
+    }
 }
@@ -27,6 +27,7 @@
 package org.alfresco.solr.tracker;
 
 import org.alfresco.solr.client.Node;
+import org.alfresco.solr.client.ShardFilter;
 
 import java.util.Collections;
 import java.util.Map;
@@ -82,5 +83,18 @@ public interface DocRouter
     default Map<String, String> getProperties(Optional<QName> shardProperty) {
         return Collections.emptyMap();
     }
+
+    /**
+     * Describes the routing predicate of this router, so that the repository can skip the nodes of the other shards.
+     * Nodes are filtered on the shard with {@link #routeNode(int, int, Node)} anyway, so routers which cannot
+     * describe their predicate (e.g. because it depends on the node properties) don't provide it.
+     *
+     * @param shardCount the total shard count.
+     * @param shardInstance the owning shard instance (i.e. instance number).
+     * @return the filter selecting the nodes of the shard, empty if the router cannot describe it.
+     */
+    default Optional<ShardFilter> getShardFilter(int shardCount, int shardInstance) {
+        return Optional.empty();
+    }
 }
 
@@ -26,8 +26,13 @@
 
 package org.alfresco.solr.tracker;
 
+import java.util.Map;
+import java.util.Optional;
+
+import org.alfresco.repo.index.shard.ShardMethodEnum;
 import org.alfresco.solr.client.Acl;
 import org.alfresco.solr.client.Node;
+import org.alfresco.solr.client.ShardFilter;
 
 /**
  * Routes the incoming nodes (not ACLs!) on the shard explicitly indicated in {@link Node#getExplicitShardId()} method.
@@ -87,4 +92,17 @@ public class ExplicitShardIdWithStaticPropertyRouter extends ComposableDocRouter
 
         return explicitShardId.equals(shardInstance);
     }
+
+    /**
+     * The explicit shard id of a node is assigned by the repository, which can then return only the nodes assigned to
+     * this shard instance.
+     */
+    @Override
+    public Optional<ShardFilter> getShardFilter(int shardCount, int shardInstance)
+    {
+        return Optional.of(new ShardFilter(
+                ShardMethodEnum.LAST_REGISTERED_INDEXING_SHARD.toString(),
+                Map.of(ShardFilter.SHARD_INSTANCE, String.valueOf(shardInstance)),
+                node -> Boolean.TRUE.equals(routeNode(shardCount, shardInstance, node))));
+    }
 }
\ No newline at end of file
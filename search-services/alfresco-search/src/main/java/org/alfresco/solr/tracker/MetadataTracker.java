@@ -26,6 +26,7 @@
 
 package org.alfresco.solr.tracker;
 
+import com.carrotsearch.hppc.LongHashSet;
 import com.google.common.collect.Lists;
 import org.alfresco.error.AlfrescoRuntimeException;
 import org.alfresco.httpclient.AuthenticationException;
@@ -33,6 +34,7 @@ import org.alfresco.repo.index.shard.ShardState;
 import org.alfresco.solr.BoundedDeque;
 import org.alfresco.solr.InformationServer;
 import org.alfresco.solr.NodeReport;
+import org.alfresco.solr.ReportProgress;
 import org.alfresco.solr.TrackerState;
 import org.alfresco.solr.adapters.IOpenBitSet;
 import org.alfresco.solr.client.GetNodesParameters;
@@ -48,20 +50,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.alfresco.repo.index.shard.ShardMethodEnum.DB_ID_RANGE;
 
@@ -75,18 +83,27 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
 
     private static final int METADATA_TRANSACTIONS_FOUND_QUEUE_SIZE = 100;
     private static final int DEFAULT_METADATA_TRACKER_MAX_PARALLELISM = 32;
+    private static final int DEFAULT_REPORT_MAX_PARALLELISM = 4;
     private static final int DEFAULT_TRANSACTION_DOCS_BATCH_SIZE = 2000;
     private static final int DEFAULT_MAX_NUMBER_OF_TRANSACTIONS = 2000;
     private static final int DEFAULT_NODE_BATCH_SIZE = 50;
     private static final String DEFAULT_INITIAL_TRANSACTION_RANGE = "0-2000";
     private static final long DEFAULT_METADATA_TRACKER_TIMESTEP = TIME_STEP_1_HR_IN_MS;
     private static final long INITIAL_MAX_TXN_ID = 2000L;
+    private static final boolean DEFAULT_METADATA_TRACKER_PREFETCH = true;
+
+    /**
+     * Prefetch requires at most two concurrent repository calls: the next transactions window and the nodes of the
+     * next transactions batch.
+     */
+    private static final int METADATA_TRACKER_PREFETCH_PARALLELISM = 2;
 
     private int matadataTrackerParallelism;
     private int transactionDocsBatchSize;
     private int nodeBatchSize;
     private int maxNumberOfTransactions;
     private long timeStep;
+    private final TimeWindowStepper timeWindows = new TimeWindowStepper(TIME_STEP_32_DAYS_IN_MS);
 
     private final ConcurrentLinkedQueue<Long> transactionsToReindex = new ConcurrentLinkedQueue<>();
     private final ConcurrentLinkedQueue<Long> transactionsToIndex = new ConcurrentLinkedQueue<>();
@@ -96,11 +113,24 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
     private final ConcurrentLinkedQueue<Long> nodesToPurge = new ConcurrentLinkedQueue<>();
     private final ConcurrentLinkedQueue<String> queriesToReindex = new ConcurrentLinkedQueue<>();
 
+    /** Nodes which failed on their own while indexing a batch, waiting to be retried. */
+    private RetryQueue quarantinedNodes = new RetryQueue();
+    private volatile boolean quarantinedNodesLoaded;
+
     private final boolean isRunningInProduction =
             !Boolean.parseBoolean(System.getProperty("alfresco.test", "false"));
 
     private ForkJoinPool forkJoinPool;
 
+    /**
+     * Fetches from the repository the next transactions window and the nodes of the next batch of transactions,
+     * while the current batch is being indexed.
+     */
+    private Prefetcher prefetcher;
+
+    /** Pool used for reading, chunk by chunk, the repository transactions checked by the index report. */
+    private ForkJoinPool reportPool;
+
     // Share run and write locks across all MetadataTracker threads
     private static Map<String, Semaphore> RUN_LOCK_BY_CORE = new ConcurrentHashMap<>();
     private static Map<String, Semaphore> WRITE_LOCK_BY_CORE = new ConcurrentHashMap<>();
@@ -180,8 +210,16 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
                         .split("-");
 
         cascadeTrackerEnabled = informationServer.cascadeTrackingEnabled();
+        quarantinedNodes = new RetryQueue(p);
         minTxnIdRange = new Pair<>(Long.valueOf(minTxninitialRangeString[0]), Long.valueOf(minTxninitialRangeString[1]));
         forkJoinPool = new ForkJoinPool(matadataTrackerParallelism);
+        reportPool = new ForkJoinPool(Integer.parseInt(p.getProperty("alfresco.report.maxParallelism",
+                String.valueOf(DEFAULT_REPORT_MAX_PARALLELISM))));
+
+        boolean prefetchEnabled = Boolean.parseBoolean(p.getProperty("alfresco.metadata.tracker.prefetch",
+                String.valueOf(DEFAULT_METADATA_TRACKER_PREFETCH)));
+        prefetcher = new Prefetcher(prefetchEnabled, METADATA_TRACKER_PREFETCH_PARALLELISM,
+                "MetadataTrackerPrefetch-" + coreName);
 
         RUN_LOCK_BY_CORE.put(coreName, new Semaphore(1, true));
         WRITE_LOCK_BY_CORE.put(coreName, new Semaphore(1, true));
@@ -234,6 +272,18 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
         super(Tracker.Type.METADATA);
     }
 
+    @Override
+    public void shutdown()
+    {
+        super.shutdown();
+        if (forkJoinPool != null)
+        {
+            forkJoinPool.shutdownNow();
+            reportPool.shutdownNow();
+            prefetcher.shutdown();
+        }
+    }
+
     @Override
     protected void doTrack(String iterationId)
             throws AuthenticationException, IOException, JSONException {
@@ -258,6 +308,7 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
         reindexNodesByQuery();
         indexTransactions();
         indexNodes();
+        retryQuarantinedNodes();
     }
 
     public boolean hasMaintenance()
@@ -268,7 +319,9 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
                 nodesToReindex.size() > 0 ||
                 nodesToIndex.size() > 0 ||
                 nodesToPurge.size() > 0 ||
-                queriesToReindex.size() > 0;
+                queriesToReindex.size() > 0 ||
+                !quarantinedNodesLoaded ||
+                quarantinedNodes.hasDue();
     }
 
     private void trackRepository() throws IOException, AuthenticationException, JSONException
@@ -326,7 +379,7 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
                 Transaction firstTransaction = firstTransactions.getTransactions().get(0);
                 long firstTransactionCommitTime = firstTransaction.getCommitTimeMs();
                 state.setLastGoodTxCommitTimeInIndex(firstTransactionCommitTime);
-                setLastTxCommitTimeAndTxIdInTrackerState(firstTransactions);
+                setLastTxCommitTimeAndTxIdInTrackerState(firstTransactions, this.state);
             }
         }
         
@@ -403,7 +456,7 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
                         null, minTxnIdRange.getSecond(), 1);
             }
             
-            setLastTxCommitTimeAndTxIdInTrackerState(firstTransactions);
+            setLastTxCommitTimeAndTxIdInTrackerState(firstTransactions, this.state);
             Long maxTxnCommitTimeInRepo = firstTransactions.getMaxTxnCommitTime();
             Long maxTxnIdInRepo = firstTransactions.getMaxTxnId();
             if (maxTxnCommitTimeInRepo != null && maxTxnIdInRepo != null)
@@ -522,6 +575,74 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
         }
     }
 
+    /**
+     * Reindexes the quarantined nodes whose retry is due. Nodes failing again stay in quarantine.
+     *
+     * The first call loads the error nodes of the index, so the quarantine survives a restart.
+     */
+    private void retryQuarantinedNodes() throws IOException
+    {
+        if (!quarantinedNodesLoaded)
+        {
+            for (Long nodeId : infoSrv.getErrorDocIds())
+            {
+                if (!quarantinedNodes.contains(nodeId))
+                {
+                    quarantineNode(nodeId);
+                }
+            }
+            quarantinedNodesLoaded = true;
+        }
+
+        List<Node> nodes = new ArrayList<>();
+        for (Long nodeId : quarantinedNodes.due())
+        {
+            Node node = new Node();
+            node.setId(nodeId);
+            node.setStatus(SolrApiNodeStatus.UNKNOWN);
+            node.setTxnId(Long.MAX_VALUE);
+            nodes.add(node);
+        }
+
+        for (List<Node> batch : Lists.partition(nodes, Math.max(nodeBatchSize, 1)))
+        {
+            List<Long> failedNodeIds;
+            try
+            {
+                failedNodeIds = this.infoSrv.indexNodes(batch, true);
+            }
+            catch (Exception exception)
+            {
+                LOGGER.warn("[CORE {}] - RETRY ACTION - Quarantined nodes {} could not be reindexed.",
+                        coreName, batch, exception);
+                failedNodeIds = batch.stream().map(Node::getId).collect(Collectors.toList());
+            }
+
+            Set<Long> failed = new HashSet<>(failedNodeIds);
+            for (Node node : batch)
+            {
+                if (failed.contains(node.getId()))
+                {
+                    quarantineNode(node.getId());
+                }
+                else
+                {
+                    quarantinedNodes.recovered(node.getId());
+                    LOGGER.info("[CORE {}] - RETRY ACTION - Quarantined node {} has been reindexed", coreName, node.getId());
+                }
+            }
+        }
+    }
+
+    private void quarantineNode(long nodeId)
+    {
+        if (!quarantinedNodes.quarantine(nodeId))
+        {
+            LOGGER.error("[CORE {}] Node {} failed too many times, it stays as error node in the index " +
+                    "until it is reindexed.", coreName, nodeId);
+        }
+    }
+
     private void reindexTransactions() throws IOException, AuthenticationException, JSONException
     {
         long startElapsed = System.nanoTime();
@@ -742,22 +863,30 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
         Transactions transactions;
         // step forward in time until we find something or hit the time bound
         // max id unbounded
+        // The window size adapts to the density of the transactions (see TimeWindowStepper)
         long startTime = fromCommitTime == null  ? 0L : fromCommitTime;
         if(startTime == 0)
         {
-            return client.getTransactions(startTime,
+            long windowStep = timeWindows.step(timeStep);
+            transactions = client.getTransactions(startTime,
                                           null,
-                                          startTime + timeStep,
+                                          startTime + windowStep,
                                           null, 
                                           maxResults, 
                                           shardstate);
+            checkNotCancelled();
+            timeWindows.windowProbed(windowStep, transactions.getTransactions().size(), maxResults, timeStep);
+            return transactions;
         }
 
         do
         {
-            transactions = client.getTransactions(startTime, null, startTime + timeStep,
+            long windowStep = timeWindows.step(timeStep);
+            transactions = client.getTransactions(startTime, null, startTime + windowStep,
                     null, maxResults, shardstate);
-            startTime += timeStep;
+            checkNotCancelled();
+            timeWindows.windowProbed(windowStep, transactions.getTransactions().size(), maxResults, timeStep);
+            startTime += windowStep;
             
             // If no transactions are found, advance the time window to the next available transaction commit time
             if (nextTxCommitTimeServiceAvailable && transactions.getTransactions().size() == 0)
@@ -769,6 +898,8 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
                             Thread.currentThread().getId(), coreName, startTime, nextTxCommitTime);
                     transactions = client.getTransactions(nextTxCommitTime, null,
                             nextTxCommitTime + timeStep, null, maxResults, shardstate);
+                    checkNotCancelled();
+                    timeWindows.windowProbed(timeStep, transactions.getTransactions().size(), maxResults, timeStep);
                 }
             }
 
@@ -779,6 +910,22 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
         return transactions;
     }
 
+    /**
+     * @return the adaptive commit time windows used for getting the transactions, with their metrics.
+     */
+    public TimeWindowStepper getTimeWindows()
+    {
+        return timeWindows;
+    }
+
+    /**
+     * @return the nodes waiting to be retried, with the quarantine metrics.
+     */
+    public RetryQueue getQuarantinedNodes()
+    {
+        return quarantinedNodes;
+    }
+
     /**
      * When using DB_ID_RANGE, fromCommitTime cannot be before the commit time of the first transaction
      * for the DB_ID_RANGE to be indexed and commit time of the last transaction cannot be lower than fromCommitTime.
@@ -786,9 +933,10 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
      *
      * @param fromCommitTime Starting commit time to get transactions from Repository
      * @param txnsFound List of transactions previously found
+     * @param endTime Time to stop indexing
      * @return List of transactions to be indexed
      */
-    private Transactions getDBIDRangeTransactions(Long fromCommitTime, BoundedDeque<Transaction> txnsFound)
+    private Transactions getDBIDRangeTransactions(Long fromCommitTime, BoundedDeque<Transaction> txnsFound, long endTime)
             throws NoSuchMethodException, AuthenticationException, IOException, JSONException, EncoderException
     {
         boolean shardOutOfRange = false;
@@ -827,7 +975,7 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
         }
 
         Transactions transactions = getSomeTransactions(txnsFound, fromCommitTime, timeStep, maxNumberOfTransactions,
-                                           state.getTimeToStopIndexing());
+                                           endTime);
 
 
         // When transactions are out of Shard range, only the latest transaction needs to be indexed
@@ -846,26 +994,42 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
         return transactions;
     }
 
-    private boolean isTransactionIndexed(Transaction transaction)
+    /**
+     * Resolves with a single index lookup which transactions of the window have already been indexed.
+     * Only transactions committed before the last indexed commit time can be in the index.
+     */
+    private LongHashSet getIndexedTransactionIds(List<Transaction> transactions, TrackerState state)
     {
+        LongHashSet indexedTxIds = new LongHashSet();
+        long[] txIds = transactions.stream()
+                .filter(transaction -> transaction.getCommitTimeMs() <= state.getLastIndexedTxCommitTime())
+                .mapToLong(Transaction::getId)
+                .toArray();
+        if (txIds.length == 0)
+        {
+            return indexedTxIds;
+        }
+
         try
         {
-            boolean isInIndex = (transaction.getCommitTimeMs() <= state.getLastIndexedTxCommitTime() &&
-                    infoSrv.txnInIndex(transaction.getId(), true));
-            if (LOGGER.isTraceEnabled())
+            BitSet inIndex = infoSrv.txnsInIndex(txIds, true);
+            for (int i = inIndex.nextSetBit(0); i >= 0; i = inIndex.nextSetBit(i + 1))
             {
-                LOGGER.trace("{}-[CORE {}] Skipping Transaction Id {} as it was already indexed",
-                        Thread.currentThread().getId(), coreName, transaction.getId());
+                indexedTxIds.add(txIds[i]);
+                if (LOGGER.isTraceEnabled())
+                {
+                    LOGGER.trace("{}-[CORE {}] Skipping Transaction Id {} as it was already indexed",
+                            Thread.currentThread().getId(), coreName, txIds[i]);
+                }
             }
-            return !isInIndex;
         }
         catch (IOException e)
         {
             LOGGER.warn(
-                    "{}-[CORE {}] Error catched while checking if Transaction Id {} was in index",
-                    Thread.currentThread().getId(), coreName, transaction.getId(), e);
-            return true;
+                    "{}-[CORE {}] Error catched while checking if Transaction Ids {} to {} were in index",
+                    Thread.currentThread().getId(), coreName, txIds[0], txIds[txIds.length - 1], e);
         }
+        return indexedTxIds;
     }
 
 
@@ -874,6 +1038,10 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
      *
      * Additionally, the nodes inside a transaction batch are indexed in batches of "nodeBatchSize" size.
      *
+     * When prefetch is enabled, the next transactions window and the nodes of the next batch of transactions are
+     * fetched from the repository while the current batch is indexed. Indexing (and so the tracker state update)
+     * still happens in commit time order, one batch after the other.
+     *
      * @throws IOException
      * @throws JSONException
      */
@@ -884,6 +1052,7 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
         Transactions transactions;
         BoundedDeque<Transaction> txnsFound = new BoundedDeque<>(METADATA_TRANSACTIONS_FOUND_QUEUE_SIZE);
         int totalUpdatedDocs = 0;
+        PrefetchedTransactions nextTransactions = null;
 
         LOGGER.info("{}-[CORE {}] Starting metadata tracker execution", Thread.currentThread().getId(), coreName);
 
@@ -891,34 +1060,32 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
         {
             try
             {
-                /*
-                * This write lock is used to lock out the Commit Tracker. The ensures that the MetaDataTracker will
-                * not be indexing content while commits or rollbacks are occurring.
-                */
-                getWriteLock().acquire();
-
                 /*
                 * We acquire the tracker state again here and set it globally. This is because the
                 * tracker state could have been invalidated due to a rollback by the CommitTracker.
                 * In this case the state will revert to the last transaction state record in the index.
+                *
+                * The write lock is only taken while indexing (see below), so the state is kept in a local variable:
+                * a rollback may invalidate the global one while the transactions are fetched.
                 */
-                this.state = getTrackerState();
+                TrackerState state = getTrackerState();
+                this.state = state;
 
                 Long fromCommitTime = getTxFromCommitTime(txnsFound,
                         state.getLastIndexedTxCommitTime() == 0 ? state.getLastGoodTxCommitTimeInIndex()
                                 : state.getLastIndexedTxCommitTime());
 
-                // Get transaction list to be indexed
-                if (docRouter instanceof DBIDRangeRouter && txIntervalCommitTimeServiceAvailable)
+                // Get transaction list to be indexed, unless it has been already prefetched from the same commit time
+                if (nextTransactions != null && nextTransactions.startsFrom(fromCommitTime, state.getTimeToStopIndexing()))
                 {
-                    transactions = getDBIDRangeTransactions(fromCommitTime, txnsFound);
+                    transactions = nextTransactions.get();
                 }
                 else
                 {
-                    transactions = getSomeTransactions(txnsFound, fromCommitTime, timeStep, maxNumberOfTransactions,
-                            state.getTimeToStopIndexing());
+                    cancel(nextTransactions);
+                    transactions = getTransactions(txnsFound, fromCommitTime, state.getTimeToStopIndexing());
                 }
-
+                nextTransactions = null;
 
                 if (transactions.getTransactions().size() > 0)
                 {
@@ -950,9 +1117,10 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
 
                 long transaction_number = transactions.getTransactions().size();
                 final AtomicInteger counter = new AtomicInteger();
-                Collection<List<Transaction>> txBatches = transactions.getTransactions().stream()
+                final LongHashSet indexedTxIds = getIndexedTransactionIds(transactions.getTransactions(), state);
+                List<List<Transaction>> txBatches = new ArrayList<>(transactions.getTransactions().stream()
                         .peek(txnsFound::add)
-                        .filter(this::isTransactionIndexed)
+                        .filter(transaction -> !indexedTxIds.contains(transaction.getId()))
                         .peek(transaction -> {
                             if (LOGGER.isTraceEnabled())
                             {
@@ -962,48 +1130,185 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
                         })
                         .collect(Collectors.groupingBy(transaction -> counter.getAndAdd(
                                 (int) (transaction.getDeletes() + transaction.getUpdates())) / transactionDocsBatchSize))
-                        .values();
+                        .values());
+
+                // Start fetching the next transactions window while this one is indexed
+                if (prefetcher.isEnabled() && transactions.getTransactions().size() > 0)
+                {
+                    nextTransactions = prefetchTransactions(txnsFound, txBatches, state);
+                }
 
                 // Index batches of transactions and the nodes updated or deleted within the transaction
-                for (List<Transaction> batch : txBatches)
+                Future<List<Node>> nextNodes = txBatches.isEmpty() ? null : prefetcher.submit(nodesOf(txBatches.get(0)));
+                try
                 {
+                    for (int i = 0; i < txBatches.size(); i++)
+                    {
+                        List<Transaction> batch = txBatches.get(i);
+                        List<Node> nodes = nextNodes.get();
+
+                        // Start fetching the nodes of the next batch while this one is indexed
+                        nextNodes = (i + 1 < txBatches.size()) ? prefetcher.submit(nodesOf(txBatches.get(i + 1))) : null;
+
+                        /*
+                        * This write lock is used to lock out the Commit Tracker. The ensures that the MetaDataTracker
+                        * will not be indexing content while commits or rollbacks are occurring. It is held only while
+                        * a batch and its transactions are indexed, so commits land on transaction boundaries and
+                        * don't wait for the repository calls.
+                        */
+                        getWriteLock().acquire();
+                        int docCount;
+                        try
+                        {
+                            if (!isCurrent(state))
+                            {
+                                LOGGER.warn("{}-[CORE {}] Tracking stopped, the index has been rolled back while " +
+                                        "fetching the transactions", Thread.currentThread().getId(), coreName);
+                                cancel(nextTransactions);
+                                return;
+                            }
 
-                    // Index nodes contained in the transactions
-                    int docCount =  indexBatchOfTransactions(batch);
-                    totalUpdatedDocs += docCount;
+                            // Index nodes contained in the transactions
+                            docCount = indexBatchOfNodes(nodes);
+                            totalUpdatedDocs += docCount;
 
-                    // Add the transactions as found to avoid processing them again in the next iteration
-                    batch.forEach(txnsFound::add);
+                            // The transactions of a failed batch must never be written: the batch is tracked again
+                            // after the rollback
+                            if (getRollback())
+                            {
+                                LOGGER.warn("{}-[CORE {}] Tracking stopped, the batch of {} transactions will be tracked " +
+                                        "again after the rollback", Thread.currentThread().getId(), coreName, batch.size());
+                                cancel(nextTransactions);
+                                return;
+                            }
 
-                    // Index the transactions
-                    indexTransactionsAfterWorker(batch);
-                    long endElapsed = System.nanoTime();
-                    trackerStats.addElapsedNodeTime(docCount, endElapsed - startElapsed);
-                    startElapsed = endElapsed;
+                            // Add the transactions as found to avoid processing them again in the next iteration
+                            batch.forEach(txnsFound::add);
+
+                            // Index the transactions
+                            indexTransactionsAfterWorker(batch);
+                        }
+                        finally
+                        {
+                            getWriteLock().release();
+                        }
+                        long endElapsed = System.nanoTime();
+                        trackerStats.addElapsedNodeTime(docCount, endElapsed - startElapsed);
+                        startElapsed = endElapsed;
+                    }
+                }
+                finally
+                {
+                    Prefetcher.cancel(nextNodes);
                 }
 
-                setLastTxCommitTimeAndTxIdInTrackerState(transactions);
+                setLastTxCommitTimeAndTxIdInTrackerState(transactions, state);
             }
             catch(Exception e)
             {
+                cancel(nextTransactions);
                 throw new IOException(e);
             }
-            finally
-            {
-                getWriteLock().release();
-            }
-        
         }
         while ((transactions.getTransactions().size() > 0));
 
         LOGGER.info("{}-[CORE {}] Tracked {} DOCs", Thread.currentThread().getId(), coreName, totalUpdatedDocs);
     }
 
+    /**
+     * Gets the transactions window starting at the given commit time.
+     */
+    private Transactions getTransactions(BoundedDeque<Transaction> txnsFound, Long fromCommitTime, long timeToStopIndexing)
+            throws AuthenticationException, IOException, JSONException, EncoderException, NoSuchMethodException
+    {
+        if (docRouter instanceof DBIDRangeRouter && txIntervalCommitTimeServiceAvailable)
+        {
+            return getDBIDRangeTransactions(fromCommitTime, txnsFound, timeToStopIndexing);
+        }
+        else
+        {
+            return getSomeTransactions(txnsFound, fromCommitTime, timeStep, maxNumberOfTransactions, timeToStopIndexing);
+        }
+    }
+
+    /**
+     * Starts fetching the transactions window which follows the current one.
+     *
+     * @param txnsFound the transactions found so far.
+     * @param txBatches the batches of transactions of the current window, to be indexed.
+     * @return the (future) transactions window, with the commit time it starts from.
+     */
+    private PrefetchedTransactions prefetchTransactions(BoundedDeque<Transaction> txnsFound, List<List<Transaction>> txBatches,
+                TrackerState state)
+    {
+        // The transactions of each batch are added again to txnsFound once indexed: the prefetch works on a copy
+        // including them, so it starts from the same commit time the next iteration computes
+        BoundedDeque<Transaction> nextTxnsFound = new BoundedDeque<>(METADATA_TRANSACTIONS_FOUND_QUEUE_SIZE);
+        nextTxnsFound.setDeque(txnsFound.getDeque());
+        txBatches.forEach(batch -> batch.forEach(nextTxnsFound::add));
+
+        long nextFromCommitTime = getTxFromCommitTime(nextTxnsFound, state.getLastIndexedTxCommitTime());
+        long timeToStopIndexing = state.getTimeToStopIndexing();
+
+        return new PrefetchedTransactions(nextFromCommitTime, timeToStopIndexing,
+                prefetcher.submit(() -> getTransactions(nextTxnsFound, nextFromCommitTime, timeToStopIndexing)));
+    }
+
+    private void cancel(PrefetchedTransactions prefetched)
+    {
+        if (prefetched != null)
+        {
+            Prefetcher.cancel(prefetched.transactions);
+        }
+    }
+
+    /**
+     * A transactions window being fetched ahead, with the commit time bounds it has been requested with.
+     */
+    private static class PrefetchedTransactions
+    {
+        private final long fromCommitTime;
+        private final long timeToStopIndexing;
+        private final Future<Transactions> transactions;
+
+        PrefetchedTransactions(long fromCommitTime, long timeToStopIndexing, Future<Transactions> transactions)
+        {
+            this.fromCommitTime = fromCommitTime;
+            this.timeToStopIndexing = timeToStopIndexing;
+            this.transactions = transactions;
+        }
+
+        boolean startsFrom(Long fromCommitTime, long timeToStopIndexing)
+        {
+            return fromCommitTime != null
+                    && this.fromCommitTime == fromCommitTime
+                    && this.timeToStopIndexing == timeToStopIndexing;
+        }
+
+        Transactions get() throws InterruptedException, ExecutionException
+        {
+            return transactions.get();
+        }
+    }
+
+    /**
+     * A prefetch (see {@link Prefetcher}) which has been cancelled may still be waiting for the repository: once
+     * interrupted it must stop before updating the time windows, as the tracker fetches the transactions on its own.
+     */
+    private void checkNotCancelled() throws InterruptedIOException
+    {
+        if (Thread.currentThread().isInterrupted())
+        {
+            throw new InterruptedIOException("Transactions fetch cancelled");
+        }
+    }
+
     /**
      * Update latest transaction indexed in MetadataTracker state
      * @param transactions List of transactions indexed
+     * @param state the state of this tracker
      */
-    private void setLastTxCommitTimeAndTxIdInTrackerState(Transactions transactions)
+    private void setLastTxCommitTimeAndTxIdInTrackerState(Transactions transactions, TrackerState state)
     {
         Long maxTxnCommitTime = transactions.getMaxTxnCommitTime();
         if (maxTxnCommitTime != null)
@@ -1044,20 +1349,15 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
 
 
     /**
-     * Index a batch of transactions.
-     *
-     * Updated or deleted nodes from these transactions are also packed into batches in order to get
-     * the metadata of the nodes in smaller invocations to Repository
+     * Gets the nodes updated or deleted within a batch of transactions.
+     * The request is built on the calling (tracker) thread, so the shard property is never updated by the prefetch
+     * thread running the returned call.
      *
      * @param txBatch Batch of transactions to be indexed
-     * @return Number of nodes indexed and last node indexed
-     *
-     * @throws AuthenticationException
-     * @throws IOException
-     * @throws JSONException
+     * @return a repository call returning the nodes of the transactions
      */
-    private int indexBatchOfTransactions(List<Transaction> txBatch)
-            throws AuthenticationException, IOException, JSONException, ExecutionException, InterruptedException {
+    private Callable<List<Node>> nodesOf(List<Transaction> txBatch)
+    {
         // Skip transactions without modifications (updates, deletes)
         ArrayList<Long> txIds = new ArrayList<>();
         for (Transaction tx : txBatch)
@@ -1076,15 +1376,37 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
         updateShardProperty();
         shardProperty.ifPresent(gnp::setShardProperty);
 
-        gnp.setCoreName(coreName);
-        List<Node> nodes = client.getNodes(gnp, Integer.MAX_VALUE);
-
-        if (LOGGER.isDebugEnabled())
+        // Let the repository skip the nodes of the other shards, which are filtered out here anyway (see
+        // NodeIndexWorker). The cascade tracking needs the updates of those nodes, so they are all fetched then.
+        if (!cascadeTrackerEnabled)
         {
-            LOGGER.debug("{}-[CORE {}] Found {} Nodes to be indexed from Transactions: {}",
-                    Thread.currentThread().getId(), coreName, nodes.size(), txIds);
+            docRouter.getShardFilter(shardCount, shardInstance).ifPresent(gnp::setShardFilter);
         }
 
+        gnp.setCoreName(coreName);
+
+        return () -> {
+            List<Node> nodes = client.getNodes(gnp, Integer.MAX_VALUE);
+
+            if (LOGGER.isDebugEnabled())
+            {
+                LOGGER.debug("{}-[CORE {}] Found {} Nodes to be indexed from Transactions: {}",
+                        Thread.currentThread().getId(), coreName, nodes.size(), txIds);
+            }
+            return nodes;
+        };
+    }
+
+    /**
+     * Index the nodes of a batch of transactions.
+     *
+     * Nodes are packed into batches in order to get the metadata of the nodes in smaller invocations to Repository
+     *
+     * @param nodes the nodes updated or deleted within a batch of transactions
+     * @return Number of nodes indexed
+     */
+    private int indexBatchOfNodes(List<Node> nodes) throws ExecutionException, InterruptedException
+    {
         // Group the nodes in batches of nodeBatchSize (or less)
         List<List<Node>> nodeBatches = Lists.partition(nodes, nodeBatchSize);
 
@@ -1116,10 +1438,16 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
             List<Node> filteredNodes = filterNodes(nodes);
             if(filteredNodes.size() > 0)
             {
-                this.infoServer.indexNodes(filteredNodes, true);
+                // Failing nodes have been recorded as error nodes (quarantine is enabled, otherwise the batch fails),
+                // the rest of the batch can be committed
+                List<Long> failedNodeIds = this.infoServer.indexNodes(filteredNodes, true);
+                failedNodeIds.forEach(MetadataTracker.this::quarantineNode);
             }
         }
         
+        /**
+         * Only failures of the whole batch get here (e.g. the index cannot be written), so the index is rolled back.
+         */
         @Override
         protected void onFail(Throwable failCausedBy)
         {
@@ -1235,11 +1563,96 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
 
     public IndexHealthReport checkIndex(Long toTx, Long fromTime, Long toTime)
                 throws IOException, AuthenticationException, JSONException, EncoderException, NoSuchMethodException
+    {
+        return checkIndex(toTx, fromTime, toTime, new ReportProgress());
+    }
+
+    /**
+     * Compares the repository transactions up to toTx and within the given commit time window with the index,
+     * publishing the ids checked to the given progress.
+     */
+    public IndexHealthReport checkIndex(Long toTx, Long fromTime, Long toTime, ReportProgress progress)
+                throws IOException, AuthenticationException, JSONException, EncoderException, NoSuchMethodException
     {
         // DB TX Count
-        long firstTransactionCommitTime = 0;
         Transactions firstTransactions = client.getTransactions(null, 0L,
                 null, INITIAL_MAX_TXN_ID, 1);
+        if (firstTransactions.getMaxTxnId() == null || fromTime != null)
+        {
+            return checkIndexByCommitTime(firstTransactions, toTx, fromTime, toTime, progress);
+        }
+
+        long firstTxId = firstTransactions.getTransactions().isEmpty() ? 0 : firstTransactions.getTransactions().get(0).getId();
+        long lastTxId = toTx == null ? firstTransactions.getMaxTxnId() : Math.min(toTx, firstTransactions.getMaxTxnId());
+
+        IOpenBitSet txIdsInDb = infoSrv.getOpenBitSetInstance();
+        LongAccumulator minTxId = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        LongAccumulator maxTxId = new LongAccumulator(Math::max, 0);
+
+        // Transaction ids are unique, so each chunk of maxNumberOfTransactions ids is read with a single request
+        long chunks = lastTxId < firstTxId ? 0 : (lastTxId - firstTxId) / maxNumberOfTransactions + 1;
+        progress.toCheck(chunks == 0 ? 0 : lastTxId - firstTxId + 1);
+        try
+        {
+            reportPool.submit(() ->
+                    LongStream.range(0, chunks).parallel().forEach(chunk -> {
+                        long fromTxId = firstTxId + chunk * maxNumberOfTransactions;
+                        long toTxId = Math.min(fromTxId + maxNumberOfTransactions, lastTxId + 1);
+                        for (Transaction info : getTransactionsInIdRange(fromTxId, toTxId))
+                        {
+                            if ((fromTime == null || info.getCommitTimeMs() >= fromTime)
+                                    && (toTime == null || info.getCommitTimeMs() <= toTime))
+                            {
+                                synchronized (txIdsInDb)
+                                {
+                                    txIdsInDb.set(info.getId());
+                                }
+                                minTxId.accumulate(info.getId());
+                                maxTxId.accumulate(info.getId());
+                            }
+                        }
+                        progress.checked(toTxId - fromTxId);
+                    })).get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the repository transactions", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException("Unable to read the repository transactions", e.getCause());
+        }
+
+        return this.infoSrv.reportIndexTransactions(
+                txIdsInDb.cardinality() == 0 ? null : minTxId.get(), txIdsInDb, maxTxId.get(), progress);
+    }
+
+    /**
+     * Returns the transactions with an id between fromTxId (inclusive) and toTxId (exclusive).
+     */
+    private List<Transaction> getTransactionsInIdRange(long fromTxId, long toTxId)
+    {
+        try
+        {
+            return client.getTransactions(null, fromTxId, null, toTxId, maxNumberOfTransactions).getTransactions();
+        }
+        catch (IOException | AuthenticationException | JSONException e)
+        {
+            throw new AlfrescoRuntimeException("Failed to get transactions " + fromTxId + " - " + toTxId, e);
+        }
+    }
+
+    /**
+     * Pages the repository transactions by commit time: used when the repository doesn't return the max transaction id,
+     * so the id range to be checked isn't known upfront, and when a time window is given, so only the transactions of
+     * the window are read.
+     */
+    private IndexHealthReport checkIndexByCommitTime(Transactions firstTransactions, Long toTx, Long fromTime, Long toTime,
+                                                     ReportProgress progress)
+                throws IOException, AuthenticationException, JSONException, EncoderException, NoSuchMethodException
+    {
+        long firstTransactionCommitTime = 0;
         if(firstTransactions.getTransactions().size() > 0)
         {
             Transaction firstTransaction = firstTransactions.getTransactions().get(0);
@@ -1292,11 +1705,13 @@ public class MetadataTracker extends CoreStatePublisher implements Tracker
                 lastTxCommitTime = info.getCommitTimeMs();
                 txIdsInDb.set(info.getId());
                 txnsFound.add(info);
+                progress.toCheck(1);
+                progress.checked(1);
             }
         }
         while (transactions.getTransactions().size() > 0);
 
-        return this.infoSrv.reportIndexTransactions(minTxId, txIdsInDb, maxTxId);
+        return this.infoSrv.reportIndexTransactions(minTxId, txIdsInDb, maxTxId, progress);
     }
 
     public void addTransactionToPurge(Long txId)
@@ -0,0 +1,133 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the repository calls a tracker needs next while it is still indexing the previous results.
+ *
+ * When enabled, the calls run on a small pool of daemon threads, and cancelling a call interrupts its thread.
+ * When disabled nothing is fetched ahead: a call runs in the calling thread on the first {@link Future#get()}.
+ */
+class Prefetcher
+{
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+    private final ExecutorService executor;
+
+    /**
+     * @param enabled true if the calls are run ahead, on a dedicated pool.
+     * @param parallelism the maximum number of calls running at the same time.
+     * @param threadName the name of the pool threads.
+     */
+    Prefetcher(boolean enabled, int parallelism, String threadName)
+    {
+        if (enabled)
+        {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism,
+                    IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+        }
+        else
+        {
+            this.executor = null;
+        }
+    }
+
+    boolean isEnabled()
+    {
+        return executor != null;
+    }
+
+    /**
+     * Stops the pool, interrupting the calls still running.
+     */
+    void shutdown()
+    {
+        if (executor != null)
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts the given call or, when prefetch is disabled, defers it to the first {@link Future#get()}.
+     */
+    <T> Future<T> submit(Callable<T> call)
+    {
+        return executor == null ? new DeferredCall<>(call) : executor.submit(call);
+    }
+
+    /**
+     * Cancels the given call, interrupting it if running. The call must check the interrupt status before updating
+     * any state shared with the tracker.
+     */
+    static void cancel(Future<?> call)
+    {
+        if (call != null)
+        {
+            call.cancel(true);
+        }
+    }
+
+    private static class DeferredCall<T> extends FutureTask<T>
+    {
+        DeferredCall(Callable<T> call)
+        {
+            super(call);
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException
+        {
+            run();
+            return super.get();
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException
+        {
+            run();
+            return super.get(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the identifiers of the items (e.g. nodes, ACLs) which failed on their own while indexing a batch, so they can
+ * be skipped and retried later instead of rolling back the whole index.
+ *
+ * Each failure delays the next retry of the item exponentially, from the retry delay up to the max retry delay.
+ * After max retries failures the item is dropped from the queue (i.e. it is left as it is in the index).
+ */
+public class RetryQueue
+{
+    private static final long DEFAULT_RETRY_DELAY = 60_000L;
+    private static final long DEFAULT_MAX_RETRY_DELAY = 3_600_000L;
+    private static final int DEFAULT_MAX_RETRIES = 5;
+
+    private final long retryDelay;
+    private final long maxRetryDelay;
+    private final int maxRetries;
+    private final LongSupplier clock;
+
+    private final Map<Long, Retry> retries = new ConcurrentHashMap<>();
+
+    private final LongAdder quarantined = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder givenUp = new LongAdder();
+
+    private static class Retry
+    {
+        final int failures;
+        final long nextAttempt;
+
+        Retry(int failures, long nextAttempt)
+        {
+            this.failures = failures;
+            this.nextAttempt = nextAttempt;
+        }
+    }
+
+    public RetryQueue()
+    {
+        this(DEFAULT_RETRY_DELAY, DEFAULT_MAX_RETRY_DELAY, DEFAULT_MAX_RETRIES, System::currentTimeMillis);
+    }
+
+    public RetryQueue(Properties p)
+    {
+        this(Long.parseLong(p.getProperty("alfresco.tracker.quarantine.retryDelay", String.valueOf(DEFAULT_RETRY_DELAY))),
+             Long.parseLong(p.getProperty("alfresco.tracker.quarantine.maxRetryDelay", String.valueOf(DEFAULT_MAX_RETRY_DELAY))),
+             Integer.parseInt(p.getProperty("alfresco.tracker.quarantine.maxRetries", String.valueOf(DEFAULT_MAX_RETRIES))),
+             System::currentTimeMillis);
+    }
+
+    RetryQueue(long retryDelay, long maxRetryDelay, int maxRetries, LongSupplier clock)
+    {
+        this.retryDelay = retryDelay;
+        this.maxRetryDelay = Math.max(maxRetryDelay, retryDelay);
+        this.maxRetries = maxRetries;
+        this.clock = clock;
+    }
+
+    /**
+     * Records a failure of the given item and schedules its next retry.
+     *
+     * @param id the item identifier.
+     * @return false if the item failed more than max retries times and has been dropped from the queue.
+     */
+    public boolean quarantine(long id)
+    {
+        quarantined.increment();
+
+        long now = clock.getAsLong();
+        Retry retry = retries.compute(id, (key, previous) -> {
+            int failures = previous == null ? 1 : previous.failures + 1;
+            long delay = Math.min(retryDelay << Math.min(failures - 1, 30), maxRetryDelay);
+            return new Retry(failures, now + delay);
+        });
+
+        if (retry.failures > maxRetries)
+        {
+            retries.remove(id);
+            givenUp.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records the successful retry of the given item, which leaves the queue.
+     *
+     * @param id the item identifier.
+     */
+    public void recovered(long id)
+    {
+        if (retries.remove(id) != null)
+        {
+            recovered.increment();
+        }
+    }
+
+    /**
+     * @return the items whose retry is due. They stay in the queue until they are {@link #recovered(long)} or
+     * {@link #quarantine(long)} is called again.
+     */
+    public List<Long> due()
+    {
+        long now = clock.getAsLong();
+        List<Long> due = new ArrayList<>();
+        retries.forEach((id, retry) -> {
+            if (retry.nextAttempt <= now)
+            {
+                due.add(id);
+            }
+        });
+        return due;
+    }
+
+    public boolean contains(long id)
+    {
+        return retries.containsKey(id);
+    }
+
+    public boolean hasDue()
+    {
+        long now = clock.getAsLong();
+        return retries.values().stream().anyMatch(retry -> retry.nextAttempt <= now);
+    }
+
+    /**
+     * @return the number of items waiting for a retry.
+     */
+    public int size()
+    {
+        return retries.size();
+    }
+
+    /**
+     * @return the number of failures recorded, retries included.
+     */
+    public long getQuarantined()
+    {
+        return quarantined.sum();
+    }
+
+    public long getRecovered()
+    {
+        return recovered.sum();
+    }
+
+    public long getGivenUp()
+    {
+        return givenUp.sum();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.tracker;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adapts the size of the commit time windows a tracker asks the repository for.
+ *
+ * After an empty window the next one is twice as large (up to a maximum), after a full window (i.e. one returning the
+ * maximum number of results) it is halved (down to the configured time step), otherwise it is kept. A tracker tracks
+ * a single shard, so the size reached follows the density of the shard history and is reused by the next lookups.
+ *
+ * The number of windows probed and of those which returned data are kept as metrics.
+ */
+public class TimeWindowStepper
+{
+    private final long maxStep;
+
+    private volatile long step;
+
+    private final LongAdder windowsProbed = new LongAdder();
+    private final LongAdder windowsWithData = new LongAdder();
+
+    public TimeWindowStepper(long maxStep)
+    {
+        this.maxStep = maxStep;
+    }
+
+    /**
+     * @param minStep the configured time step.
+     * @return the size of the next window.
+     */
+    public long step(long minStep)
+    {
+        return Math.max(step, minStep);
+    }
+
+    /**
+     * Records the outcome of a window and adapts the size of the next one.
+     *
+     * @param windowStep the size of the window.
+     * @param found the number of results the window returned.
+     * @param maxResults the maximum number of results the window could return.
+     * @param minStep the configured time step.
+     */
+    public void windowProbed(long windowStep, int found, int maxResults, long minStep)
+    {
+        windowsProbed.increment();
+        if (found == 0)
+        {
+            step = Math.min(windowStep * 2, Math.max(maxStep, minStep));
+        }
+        else
+        {
+            windowsWithData.increment();
+            step = found >= maxResults ? Math.max(windowStep / 2, minStep) : windowStep;
+        }
+    }
+
+    public long getWindowsProbed()
+    {
+        return windowsProbed.sum();
+    }
+
+    public long getWindowsWithData()
+    {
+        return windowsWithData.sum();
+    }
+}
@@ -39,9 +39,11 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.stream.Collectors;
-
-import static java.util.Optional.of;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Andy, Elia
@@ -51,46 +53,76 @@ public class AlfrescoFieldMapperTransformer extends DocTransformer
 {
     protected final static Logger LOGGER = LoggerFactory.getLogger(AlfrescoFieldMapperTransformer.class);
 
+    /** The mapping of the fields which aren't schema fields: they are left as they are */
+    private static final FieldMapping NOT_MAPPED = new FieldMapping(null, null, false);
+
     private ResultContext context;
     private SolrReturnFields solrReturnFields;
 
+    /** The mappings of the fields seen in the documents of the current request */
+    private final Map<String, FieldMapping> fieldMappings = new HashMap<>();
+    private final List<String> fieldNames = new ArrayList<>();
+
     @SuppressWarnings("unchecked")
     @Override
     public void transform(SolrDocument doc, int docid, float score)
     {
-        Collection<String> fieldNames = new ArrayList<>(doc.getFieldNames());
-        solrReturnFields = new SolrReturnFields(context.getRequest().getParams().get("originalFl"), context.getRequest());
+        fieldNames.clear();
+        fieldNames.addAll(doc.getFieldNames());
 
-        for (String fieldName : fieldNames)
+        for (int i = 0; i < fieldNames.size(); i++)
         {
-           SchemaField schemaField = context.getSearcher().getSchema().getFieldOrNull(fieldName);
-           if(schemaField != null)
+           String fieldName = fieldNames.get(i);
+           FieldMapping mapping = fieldMappings.computeIfAbsent(fieldName, this::mappingOf);
+           if (mapping == NOT_MAPPED)
+           {
+               continue;
+           }
+
+           SchemaField schemaField = mapping.schemaField;
+           if (mapping.requested)
            {
-               String alfrescoFieldName = AlfrescoSolrDataModel.getInstance().getAlfrescoPropertyFromSchemaField(fieldName);
-               if (isRequestedField(alfrescoFieldName) || alfrescoFieldName.equals("id"))
+               Object value = doc.getFieldValue(fieldName);
+               doc.removeFields(fieldName);
+               if (schemaField.multiValued())
                {
-                   Object value = doc.getFieldValue(fieldName);
-                   doc.removeFields(fieldName);
-                   if (schemaField.multiValued())
+                   Collection<Object> values = (Collection<Object>) value;
+                   Set<Object> collectionValue = new HashSet<>(Math.max(16, values.size() * 2));
+                   for (Object elem : values)
                    {
-                       Object collectionValue =
-                               ((Collection<Object>) value).stream()
-                                    .map(elem -> getFieldValue(schemaField, elem))
-                                    .collect(Collectors.toSet());
-                       doc.setField(alfrescoFieldName, collectionValue);
-                   }
-                   else
-                   {
-                       doc.setField(transformToUnderscoreNotation(alfrescoFieldName), getFieldValue(schemaField, value));
+                       collectionValue.add(getFieldValue(schemaField, elem));
                    }
+                   doc.setField(mapping.alfrescoFieldName, collectionValue);
                }
                else
                {
-                   doc.removeFields(alfrescoFieldName);
-                   doc.removeFields(fieldName);
+                   doc.setField(mapping.underscoreFieldName, getFieldValue(schemaField, value));
                }
            }
+           else
+           {
+               doc.removeFields(mapping.alfrescoFieldName);
+               doc.removeFields(fieldName);
+           }
+        }
+    }
+
+    /**
+     * Resolves the Alfresco name of the given schema field, and whether it has been requested.
+     */
+    private FieldMapping mappingOf(String fieldName)
+    {
+        SchemaField schemaField = context.getSearcher().getSchema().getFieldOrNull(fieldName);
+        if (schemaField == null)
+        {
+            return NOT_MAPPED;
         }
+
+        String alfrescoFieldName = AlfrescoSolrDataModel.getInstance().getAlfrescoPropertyFromSchemaField(fieldName);
+        return new FieldMapping(
+                schemaField,
+                alfrescoFieldName,
+                isRequestedField(alfrescoFieldName) || alfrescoFieldName.equals("id"));
     }
 
     @Override
@@ -103,6 +135,8 @@ public class AlfrescoFieldMapperTransformer extends DocTransformer
     public void setContext( ResultContext context )
     {
         this.context = context;
+        this.solrReturnFields = new SolrReturnFields(context.getRequest().getParams().get("originalFl"), context.getRequest());
+        this.fieldMappings.clear();
     }
 
     private boolean isRequestedField(String fieldName)
@@ -110,7 +144,7 @@ public class AlfrescoFieldMapperTransformer extends DocTransformer
         return solrReturnFields.wantsField(transformToUnderscoreNotation(fieldName));
     }
 
-    private String transformToUnderscoreNotation(String value)
+    private static String transformToUnderscoreNotation(String value)
     {
         return value.replace(":", "_");
     }
@@ -138,4 +172,20 @@ public class AlfrescoFieldMapperTransformer extends DocTransformer
 
         return value;
     }
-}
\ No newline at end of file
+
+    private static class FieldMapping
+    {
+        private final SchemaField schemaField;
+        private final String alfrescoFieldName;
+        private final String underscoreFieldName;
+        private final boolean requested;
+
+        private FieldMapping(SchemaField schemaField, String alfrescoFieldName, boolean requested)
+        {
+            this.schemaField = schemaField;
+            this.alfrescoFieldName = alfrescoFieldName;
+            this.underscoreFieldName = alfrescoFieldName == null ? null : transformToUnderscoreNotation(alfrescoFieldName);
+            this.requested = requested;
+        }
+    }
+}
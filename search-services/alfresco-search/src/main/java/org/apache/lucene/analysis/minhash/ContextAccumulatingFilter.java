@@ -24,97 +24,136 @@
  * #L%
  */
 
+
 package org.apache.lucene.analysis.minhash;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.lucene.analysis.TokenFilter;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.minhash.MinHashFilter.LongPair;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Accumulates the contexts of the words found in space separated shingles: the middle part (or the two middle parts)
+ * of a shingle is the word, the parts around it are its context. The contexts are kept in the bounded
+ * {@link ContextSketches} shared by the filters of a factory.
+ */
 public class ContextAccumulatingFilter extends TokenFilter
 {   
+    private static final Logger log = LoggerFactory.getLogger(ContextAccumulatingFilter.class);
 
     private final CharTermAttribute termAttribute = addAttribute(CharTermAttribute.class);
-    
-    private static  Map<String, Set<LongPair> > contexts = new ConcurrentHashMap<String, Set<LongPair> >(128);
+
+    private final ContextSketches contexts;
+
+    private final LongPair contextHash = new LongPair();
+
+    private byte[] contextBytes = new byte[256];
  
-    protected ContextAccumulatingFilter(TokenStream input)
+    protected ContextAccumulatingFilter(TokenStream input, ContextSketches contexts)
     {
         super(input);
+        this.contexts = contexts;
     }
   
 
     @Override
     final public boolean incrementToken() throws IOException
     {
-        // Pull the underlying stream of tokens
-        // Hash each token found
-        // Generate the required number of variants of this hash
-        // Keep the minimum hash value found so far of each variant
-
         boolean incremented = input.incrementToken();
         
         if(incremented)
         {
-            String current = new String(termAttribute.buffer(), 0, termAttribute.length());
-            String[] parts = current.split(" ");
-            StringBuilder contextBuilder = new StringBuilder();
-            StringBuilder wordBuilder = new StringBuilder();
-            for(int i = 0, l = parts.length; i < l; i++)
+            accumulate(termAttribute.buffer(), termAttribute.length());
+        }
+        
+        return incremented;
+    }
+
+    /**
+     * Works on the term buffer: the word is hashed as UTF-16LE into a reused byte array, and only copied when it is
+     * new to the sketches.
+     */
+    private void accumulate(char[] buffer, int length)
+    {
+        int parts = 1;
+        for(int i = 0; i < length; i++)
+        {
+            if(buffer[i] == ' ')
+            {
+                parts++;
+            }
+        }
+        int firstWordPart = (parts - 1) / 2;
+        int lastWordPart = parts / 2;
+
+        int wordStart = 0;
+        int wordEnd = length;
+        for(int i = 0, part = 0; i < length; i++)
+        {
+            if(buffer[i] == ' ')
             {
-                if( (i == Math.round(Math.floor((l-1)/2.0))) || (i == Math.round(Math.ceil((l-1)/2.0))))
+                part++;
+                if(part == firstWordPart)
                 {
-                    if(wordBuilder.length() > 0)
-                    {
-                        wordBuilder.append(" ");
-                    }
-                    wordBuilder.append(parts[i]);
+                    wordStart = i + 1;
                 }
-                else
+                else if(part == lastWordPart + 1)
                 {
-                    if(contextBuilder.length() > 0)
-                    {
-                        contextBuilder.append(" ");
-                    }
-                    contextBuilder.append(parts[i]);
+                    wordEnd = i;
+                    break;
                 }
             }
-            
-            String word = wordBuilder.toString();
-            String context = contextBuilder.toString();
-            
-            Set<LongPair> wordContexts = contexts.get(word);
-            if(wordContexts == null)
-            {
-                wordContexts = ConcurrentHashMap.<LongPair>newKeySet(128);
-                contexts.put(word, wordContexts);
-            }
-            byte[] bytes = context.getBytes("UTF-16LE");
-            LongPair contextHash = new LongPair();
-            MinHashFilter.murmurhash3_x64_128(bytes, 0, bytes.length, 0, contextHash);
-            wordContexts.add(contextHash);
         }
-        
-        return incremented;
+
+        // The context is the text before the word and the text after it, joined by a space
+        int before = Math.max(wordStart - 1, 0);
+        int afterStart = Math.min(wordEnd + 1, length);
+        int after = length - afterStart;
+        int contextLength = before + after + (before > 0 && after > 0 ? 1 : 0);
+        if(contextBytes.length < contextLength * 2)
+        {
+            contextBytes = new byte[Math.max(contextLength * 2, contextBytes.length * 2)];
+        }
+
+        int bytes = putUtf16(buffer, 0, before, 0);
+        if(before > 0 && after > 0)
+        {
+            bytes = putUtf16(' ', bytes);
+        }
+        bytes = putUtf16(buffer, afterStart, after, bytes);
+
+        MinHashFilter.murmurhash3_x64_128(contextBytes, 0, bytes, 0, contextHash);
+        contexts.add(buffer, wordStart, wordEnd - wordStart, contextHash.val1);
     }
 
+    private int putUtf16(char[] chars, int offset, int length, int position)
+    {
+        for(int i = offset, end = offset + length; i < end; i++)
+        {
+            position = putUtf16(chars[i], position);
+        }
+        return position;
+    }
+
+    private int putUtf16(char c, int position)
+    {
+        contextBytes[position++] = (byte) c;
+        contextBytes[position++] = (byte) (c >>> 8);
+        return position;
+    }
 
     @Override
     public void end() throws IOException
     {
         super.end();
-        long count = 0;
-        for(Set<LongPair> thing : contexts.values())
+        if(log.isDebugEnabled())
         {
-            count += thing.size();
+            log.debug(contexts.toString());
         }
-        
-        System.out.println("Words = "+contexts.size() + "     contexts = "+count);
     } 
     
     
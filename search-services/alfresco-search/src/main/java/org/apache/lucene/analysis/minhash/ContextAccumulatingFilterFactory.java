@@ -32,16 +32,32 @@ import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.util.TokenFilterFactory;
 
 /**
+ * Creates {@link ContextAccumulatingFilter}s sharing the context sketches of this factory.
+ * The sketches are bounded by the maxWords (default 10000) and maxContextsPerWord (default 64) arguments.
+ *
  * @author Andy
  */
 public class ContextAccumulatingFilterFactory extends TokenFilterFactory
 {
+    private final ContextSketches contexts;
+
     /**
      * @param args
      */
     public ContextAccumulatingFilterFactory(Map<String, String> args)
     {
         super(args);
+        int maxWords = getInt(args, "maxWords", 10000);
+        int maxContextsPerWord = getInt(args, "maxContextsPerWord", 64);
+        contexts = new ContextSketches(maxWords, maxContextsPerWord);
+    }
+
+    /**
+     * @return the contexts accumulated by the filters of this factory, with their memory usage
+     */
+    public ContextSketches getContexts()
+    {
+        return contexts;
     }
 
     /*
@@ -51,7 +67,7 @@ public class ContextAccumulatingFilterFactory extends TokenFilterFactory
     @Override
     public TokenStream create(TokenStream input)
     {
-        ContextAccumulatingFilter filter = new ContextAccumulatingFilter(input);
+        ContextAccumulatingFilter filter = new ContextAccumulatingFilter(input, contexts);
         return filter;
     }
 
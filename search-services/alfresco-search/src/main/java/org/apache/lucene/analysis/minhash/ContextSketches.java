@@ -0,0 +1,197 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.apache.lucene.analysis.minhash;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.CharsRef;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * The contexts seen for each word, held in bounded memory.
+ *
+ * At most maxWords words are kept, the least recently seen word being evicted first, and each word keeps a bottom-k
+ * sketch of its context hashes: the maxContextsPerWord smallest hashes seen.
+ */
+public class ContextSketches implements Accountable
+{
+    private static final int INITIAL_SKETCH_SIZE = 8;
+
+    private static final long ENTRY_OVERHEAD = RamUsageEstimator.shallowSizeOfInstance(CharsRef.class)
+            + RamUsageEstimator.shallowSizeOfInstance(Sketch.class)
+            // LinkedHashMap entry: hash, key, value, next, before, after
+            + RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + Integer.BYTES + 5 * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+
+    private final int maxWords;
+    private final int maxContextsPerWord;
+    private final LinkedHashMap<CharsRef, Sketch> sketches;
+    private final CharsRef lookupKey = new CharsRef();
+
+    private long contexts;
+    private long evictions;
+    private long ramBytesUsed;
+
+    public ContextSketches(int maxWords, int maxContextsPerWord)
+    {
+        if (maxWords < 1 || maxContextsPerWord < 1)
+        {
+            throw new IllegalArgumentException("maxWords and maxContextsPerWord must be positive");
+        }
+        this.maxWords = maxWords;
+        this.maxContextsPerWord = maxContextsPerWord;
+        this.sketches = new LinkedHashMap<CharsRef, Sketch>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CharsRef, Sketch> eldest)
+            {
+                if (size() > ContextSketches.this.maxWords)
+                {
+                    contexts -= eldest.getValue().size;
+                    ramBytesUsed -= ramBytesUsed(eldest.getKey(), eldest.getValue());
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Adds a context hash to the sketch of the word held in chars[offset, offset + length).
+     * The chars are only copied when the word is new.
+     */
+    public synchronized void add(char[] chars, int offset, int length, long contextHash)
+    {
+        lookupKey.chars = chars;
+        lookupKey.offset = offset;
+        lookupKey.length = length;
+        Sketch sketch = sketches.get(lookupKey);
+        if (sketch == null)
+        {
+            CharsRef word = CharsRef.deepCopyOf(lookupKey);
+            sketch = new Sketch(Math.min(INITIAL_SKETCH_SIZE, maxContextsPerWord));
+            ramBytesUsed += ramBytesUsed(word, sketch);
+            sketches.put(word, sketch);
+        }
+        // Don't hold on to the token buffer
+        lookupKey.chars = CharsRef.EMPTY_CHARS;
+
+        long sketchBytes = RamUsageEstimator.sizeOf(sketch.hashes);
+        if (sketch.add(contextHash, maxContextsPerWord))
+        {
+            contexts++;
+        }
+        ramBytesUsed += RamUsageEstimator.sizeOf(sketch.hashes) - sketchBytes;
+    }
+
+    public synchronized int words()
+    {
+        return sketches.size();
+    }
+
+    public synchronized long contexts()
+    {
+        return contexts;
+    }
+
+    public synchronized long evictions()
+    {
+        return evictions;
+    }
+
+    @Override
+    public synchronized long ramBytesUsed()
+    {
+        return ramBytesUsed;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "Words = " + sketches.size() + ", contexts = " + contexts + ", evicted words = " + evictions
+                + ", bytes = " + ramBytesUsed;
+    }
+
+    private static long ramBytesUsed(CharsRef word, Sketch sketch)
+    {
+        return ENTRY_OVERHEAD + RamUsageEstimator.sizeOf(word.chars) + RamUsageEstimator.sizeOf(sketch.hashes);
+    }
+
+    /**
+     * The smallest context hashes of a word, sorted.
+     */
+    private static final class Sketch
+    {
+        private long[] hashes;
+        private int size;
+
+        private Sketch(int initialSize)
+        {
+            hashes = new long[initialSize];
+        }
+
+        /**
+         * @return true if the sketch grew, false if the hash was already there or replaced a larger one
+         */
+        private boolean add(long hash, int maxSize)
+        {
+            int index = Arrays.binarySearch(hashes, 0, size, hash);
+            if (index >= 0)
+            {
+                return false;
+            }
+            index = -index - 1;
+
+            boolean grew = true;
+            if (size == maxSize)
+            {
+                if (index == size)
+                {
+                    return false;
+                }
+                // Drop the largest hash
+                size--;
+                grew = false;
+            }
+            else if (size == hashes.length)
+            {
+                hashes = Arrays.copyOf(hashes, Math.min(maxSize, size * 2));
+            }
+
+            System.arraycopy(hashes, index, hashes, index + 1, size - index);
+            hashes[index] = hash;
+            size++;
+            return grew;
+        }
+    }
+}
@@ -46,5 +46,13 @@ public class AlfrescoHttpShardHandlerFactory extends HttpShardHandlerFactory {
     return new AlfrescoHttpShardHandler(this, httpClient);
   }
 
+  /**
+   * Get the pooled http client the given factory uses for its shard requests, so other
+   * inter-shard calls can share its connections and configuration.
+   */
+  public static HttpClient getDefaultClient(HttpShardHandlerFactory factory){
+    return factory.defaultClient;
+  }
+
 }
 
@@ -36,19 +36,29 @@ import org.alfresco.solr.AlfrescoSolrDataModel;
 import org.alfresco.solr.AlfrescoSolrDataModel.FieldUse;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Terms;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.highlight.Highlighter;
 import org.apache.lucene.search.highlight.QueryScorer;
 import org.apache.lucene.search.highlight.WeightedSpanTerm;
 import org.apache.lucene.search.highlight.WeightedSpanTermExtractor;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
 import org.apache.solr.common.params.HighlightParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.core.PluginInfo;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.highlight.DefaultSolrHighlighter;
+import org.apache.solr.highlight.UnifiedSolrHighlighter;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.search.DocList;
 import org.apache.solr.search.SolrIndexSearcher;
@@ -63,8 +73,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.StreamSupport;
 
 /**
@@ -100,12 +112,49 @@ import java.util.stream.StreamSupport;
  *  &lt;/lst>
  * </pre>
  *
+ * When the {@link #USE_OFFSETS} parameter is true, the requested fields are highlighted by the Solr unified
+ * highlighter on their cross-locale (indexed) fields, using the offsets recorded in the index
+ * (storeOffsetsWithPositions) instead of re-analysing the stored text. The text is still loaded from the stored
+ * fields, and the same field mappings apply. If one of the requested fields has no cross-locale field, the whole
+ * request falls back to the default highlighting.
+ *
  * @see <a href="https://issues.alfresco.com/jira/browse/SEARCH-2033">SEARCH-2033</a>
  */
 public class AlfrescoSolrHighlighter extends DefaultSolrHighlighter implements PluginInfoInitialized
 {
 	private static final Logger LOGGER = LoggerFactory.getLogger(AlfrescoSolrHighlighter.class);
 
+	/** Request parameter which enables the offsets based highlighting. */
+	public static final String USE_OFFSETS = "hl.useOffsets";
+
+	/** Request context key of the (cross-locale field => stored field) mappings used by the offsets highlighter. */
+	private static final String STORED_FIELDS_CONTEXT_KEY = AlfrescoSolrHighlighter.class.getName() + ".storedFields";
+
+	private static final Pattern LOCALE_MARKER = Pattern.compile("\u0000[^\u0000]*\u0000");
+
+	/**
+	 * The Solr unified highlighter, which highlights the cross-locale fields with the text of the stored fields
+	 * they have been copied from.
+	 */
+	private static class OffsetsHighlighter extends UnifiedSolrHighlighter
+	{
+		@SuppressWarnings("unchecked")
+		@Override
+		protected UnifiedHighlighter getHighlighter(SolrQueryRequest request)
+		{
+			final Map<String, String> storedFields = (Map<String, String>) request.getContext().get(STORED_FIELDS_CONTEXT_KEY);
+			return new SolrExtendedUnifiedHighlighter(request)
+			{
+				@Override
+				protected List<CharSequence[]> loadFieldValues(IndexSearcher searcher, String[] fields, int[] docIds, int cacheCharsThreshold) throws IOException
+				{
+					String[] storedFieldNames = stream(fields).map(field -> storedFields.getOrDefault(field, field)).toArray(String[]::new);
+					return super.loadFieldValues(searcher, storedFieldNames, docIds, cacheCharsThreshold);
+				}
+			};
+		}
+	}
+
 	private static class DocumentIdentifiers
 	{
 		final String solrId;
@@ -138,11 +187,20 @@ public class AlfrescoSolrHighlighter extends DefaultSolrHighlighter implements P
 
 	private final Predicate<NamedList<Object>> notNullAndNotEmpty = response -> response != null && response.size() > 0;
 
+	private final UnifiedSolrHighlighter offsetsHighlighter = new OffsetsHighlighter();
+
 	public AlfrescoSolrHighlighter(SolrCore core)
 	{
 		super(core);
 	}
 
+	@Override
+	public void init(PluginInfo info)
+	{
+		super.init(info);
+		offsetsHighlighter.init(info);
+	}
+
 	@Override
 	protected Highlighter getHighlighter(Query query, String requestFieldname, SolrQueryRequest request)
 	{
@@ -184,19 +242,10 @@ public class AlfrescoSolrHighlighter extends DefaultSolrHighlighter implements P
 	protected QueryScorer getSpanQueryScorer(Query query, String requestFieldname, TokenStream tokenStream, SolrQueryRequest request)
 	{
 		String localFieldName = requestFieldname.substring(requestFieldname.lastIndexOf("}") + 1);
-		String schemaFieldName = AlfrescoSolrDataModel.getInstance().mapProperty(localFieldName, FieldUse.FTS, request);
-		if (!schemaFieldName.contains("_t@{"))
-		{
-			schemaFieldName = AlfrescoSolrDataModel.getInstance().mapProperty(localFieldName, FieldUse.FTS, request, 1);
-		}
 
-		// In case after the second query we didn't get the cross-locale version, then it's better to ignore the
-		// fieldMatch parameter; in this way we are sure the snippets will be properly returned (together with other
-		// unwanted fields)
-		if (!schemaFieldName.contains("_t@{"))
-		{
-			schemaFieldName = null;
-		}
+		// In case the field has no cross-locale version, then it's better to ignore the fieldMatch parameter; in this
+		// way we are sure the snippets will be properly returned (together with other unwanted fields)
+		String schemaFieldName = AlfrescoSolrDataModel.getInstance().getCrossLocaleField(localFieldName, request).orElse(null);
 
 		// The query scorer purpose is to give a score to the text fragments by the number of unique query terms found.
 		//
@@ -304,20 +353,43 @@ public class AlfrescoSolrHighlighter extends DefaultSolrHighlighter implements P
 		 	we need to maintain a map which associates each schema field (e.g. text@s_stored_lt@{http://www.alfresco.org/model/content/1.0}name)
 		 	with the corresponding request(ed) field (e.g. name).
 		*/
-		Map<String, String> mappings = withDebug(createInitialFieldMappings(request, highlightFields));
+		Map<String, String> storedFieldMappings = withDebug(createInitialFieldMappings(request, highlightFields));
+
+		// In offsets mode, the cross-locale fields are highlighted using the text of the stored fields above
+		Map<String, String> storedFields =
+				originalRequestParameters.getBool(USE_OFFSETS, false)
+						? createOffsetsFieldMappings(request, storedFieldMappings)
+						: null;
+		Map<String, String> mappings = storedFields == null ? storedFieldMappings : new HashMap<>();
+		if (storedFields != null)
+		{
+			storedFields.forEach((indexedField, storedField) -> mappings.put(indexedField, storedFieldMappings.get(storedField)));
+			withDebug(mappings);
+		}
 
 		// The identifiers map collects two documents identifiers for each document (Solr "id" and "DBID").
 		// Keys of the identifiers map are Solr "id", while values are simple value objects encapsulating all those two identifiers (for a specific document).
+		// They are read from the docValues, when available, instead of loading the stored fields of each document.
+		List<LeafReaderContext> leaves = request.getSearcher().getTopReaderContext().leaves();
 		Iterable<Integer> iterable = docs::iterator;
 		Map<String, DocumentIdentifiers> identifiers =
 				StreamSupport.stream(iterable.spliterator(), false)
-					.map(docid -> identifiersEntry(request.getSearcher(), docid, idFields, idFieldName))
+					.map(docid -> identifiersEntry(request.getSearcher(), leaves, docid, idFields, idFieldName))
 					.filter(Objects::nonNull)
 					.collect(toMap(AbstractMap.SimpleEntry::getKey, AbstractMap.SimpleEntry::getValue));
 
 		// First round: call the Solr highlighting procedure using the current fields mappings.
 		request.setParams(rewrite(originalRequestParameters, mappings, join(",", mappings.keySet())));
-		NamedList<Object> highlightingResponse = super.doHighlighting(docs, query, request, defaultFields);
+		NamedList<Object> highlightingResponse;
+		if (storedFields != null)
+		{
+			request.getContext().put(STORED_FIELDS_CONTEXT_KEY, storedFields);
+			highlightingResponse = offsetsHighlighter.doHighlighting(docs, query, request, defaultFields);
+		}
+		else
+		{
+			highlightingResponse = super.doHighlighting(docs, query, request, defaultFields);
+		}
 
         // Final step: under each document section, highlight snippets are associated with Solr field names,
 		// so we need to replace them with fields actually requested
@@ -335,7 +407,14 @@ public class AlfrescoSolrHighlighter extends DefaultSolrHighlighter implements P
 					}
 
 					documentHighlighting.forEach(fieldEntry -> {
-						detectAndRemoveLocalePrefix(fieldEntry);
+						if (storedFields != null)
+						{
+							removeLocaleMarkers(fieldEntry);
+						}
+						else
+						{
+							detectAndRemoveLocalePrefix(fieldEntry);
+						}
 
 						String solrFieldName = fieldEntry.getKey();
 						String requestFieldName = mappings.get(solrFieldName);
@@ -366,10 +445,44 @@ public class AlfrescoSolrHighlighter extends DefaultSolrHighlighter implements P
 		}
 	}
 
-	private AbstractMap.SimpleEntry<String, DocumentIdentifiers> identifiersEntry(SolrIndexSearcher searcher, int docid, Set<String> idFields, String idFieldName)
+	/**
+	 * Snippets produced from offsets may start anywhere in the stored text, so the locale marker, if any, can be
+	 * in any of them.
+	 *
+	 * @param highlightFieldEntry the response highlight entry for a specific field.
+	 */
+	private void removeLocaleMarkers(Map.Entry<String, Object> highlightFieldEntry)
+	{
+		if (highlightFieldEntry.getValue() instanceof String[])
+		{
+			String [] snippets = (String[])highlightFieldEntry.getValue();
+			for (int i = 0; i < snippets.length; i++)
+			{
+				if (snippets[i] != null && snippets[i].indexOf('\u0000') != -1)
+				{
+					snippets[i] = LOCALE_MARKER.matcher(snippets[i]).replaceAll("");
+				}
+			}
+		}
+	}
+
+	private AbstractMap.SimpleEntry<String, DocumentIdentifiers> identifiersEntry(SolrIndexSearcher searcher, List<LeafReaderContext> leaves, int docid, Set<String> idFields, String idFieldName)
 	{
 		try
 		{
+			LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(docid, leaves));
+			LeafReader reader = leaf.reader();
+			if (hasDocValues(reader, idFieldName, DocValuesType.SORTED) && hasDocValues(reader, "DBID", DocValuesType.NUMERIC))
+			{
+				int segmentDocid = docid - leaf.docBase;
+				String solrId = DocValues.getSorted(reader, idFieldName).get(segmentDocid).utf8ToString();
+				String dbid =
+						DocValues.getDocsWithField(reader, "DBID").get(segmentDocid)
+								? String.valueOf(DocValues.getNumeric(reader, "DBID").get(segmentDocid))
+								: null;
+				return new AbstractMap.SimpleEntry<>(solrId, new DocumentIdentifiers(solrId, dbid));
+			}
+
 			Document doc = searcher.doc(docid, idFields);
 			String solrId = doc.get(idFieldName);
 			return new AbstractMap.SimpleEntry<>(solrId, new DocumentIdentifiers(solrId, doc.get("DBID")));
@@ -380,6 +493,12 @@ public class AlfrescoSolrHighlighter extends DefaultSolrHighlighter implements P
 		}
 	}
 
+	private boolean hasDocValues(LeafReader reader, String fieldName, DocValuesType type)
+	{
+		FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(fieldName);
+		return fieldInfo != null && fieldInfo.getDocValuesType() == type;
+	}
+
 	private void rewriteLocalFieldParameters(ModifiableSolrParams newParams, SolrParams previousParams, String fieldName, String schemaFieldName)
 	{
 		rewriteHighlightFieldOptions(newParams, previousParams, HighlightParams.SIMPLE_PRE, fieldName, schemaFieldName);
@@ -466,4 +585,33 @@ public class AlfrescoSolrHighlighter extends DefaultSolrHighlighter implements P
 								requestFieldName))
 				.collect(toMap(AbstractMap.SimpleEntry::getKey, AbstractMap.SimpleEntry::getValue, (prev, next) -> next, HashMap::new));
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Maps each stored field used for highlighting to the cross-locale field it is copied to, which is the field
+	 * highlighted in offsets mode. For example:
+	 *
+	 * <pre>
+	 * 	content@s___t@{http://www.alfresco.org/model/content/1.0}content	=>	content@s_stored_lt@{http://www.alfresco.org/model/content/1.0}content
+	 * </pre>
+	 *
+	 * @param request the current incoming client request.
+	 * @param storedFieldMappings the (stored field => requested field) mappings.
+	 * @return the (cross-locale field => stored field) mappings, or null if one of the requested fields has no cross-locale field.
+	 */
+	private Map<String, String> createOffsetsFieldMappings(SolrQueryRequest request, Map<String, String> storedFieldMappings)
+	{
+		Map<String, String> storedFields = new HashMap<>();
+		for (Map.Entry<String, String> mapping : storedFieldMappings.entrySet())
+		{
+			String requestFieldName = mapping.getValue();
+			Optional<String> indexedFieldName = AlfrescoSolrDataModel.getInstance().getCrossLocaleField(requestFieldName, request);
+			if (indexedFieldName.isEmpty())
+			{
+				LOGGER.debug("Request field {} has no cross-locale field, offsets highlighting won't be used.", requestFieldName);
+				return null;
+			}
+			storedFields.put(indexedFieldName.get(), mapping.getKey());
+		}
+		return storedFields;
+	}
+}
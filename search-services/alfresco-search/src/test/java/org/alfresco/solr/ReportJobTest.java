@@ -0,0 +1,134 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link ReportJob} class.
+ */
+public class ReportJobTest
+{
+    private final AtomicLong now = new AtomicLong(1000);
+
+    @Test
+    public void runningJob_shouldExposeTheReportOfTheCoresCheckedSoFar()
+    {
+        ReportJob job = new ReportJob(asList("alfresco", "archive"), now::get);
+        AtomicReference<NamedList<Object>> partialStatus = new AtomicReference<>();
+
+        job.run(coreName -> {
+            if (coreName.equals("archive"))
+            {
+                now.set(1500);
+                partialStatus.set(job.toNamedList());
+            }
+            return coreReport(coreName);
+        });
+
+        NamedList<Object> status = partialStatus.get();
+        assertEquals(ReportJob.STATUS_RUNNING, status.get("status"));
+        assertEquals(2, status.get("Cores"));
+        assertEquals(1, status.get("Cores reported"));
+        assertEquals(500L, status.get("Elapsed time (ms)"));
+        assertEquals(coreReport("alfresco"), ((NamedList<?>) status.get("report")).get("alfresco"));
+    }
+
+    @Test
+    public void runningJob_shouldExposeTheIdsCheckedSoFar()
+    {
+        ReportJob job = new ReportJob(asList("alfresco", "archive"), now::get);
+        AtomicReference<NamedList<Object>> partialStatus = new AtomicReference<>();
+
+        job.run(coreName -> {
+            job.getProgress().toCheck(100);
+            job.getProgress().checked(40);
+            if (coreName.equals("archive"))
+            {
+                assertFalse(job.isFinished());
+                partialStatus.set(job.toNamedList());
+            }
+            return coreReport(coreName);
+        });
+
+        NamedList<Object> status = partialStatus.get();
+        assertEquals(80L, status.get("Ids checked"));
+        assertEquals(200L, status.get("Ids to check"));
+        assertTrue(job.isFinished());
+    }
+
+    @Test
+    public void completedJob_shouldExposeTheWholeReport()
+    {
+        ReportJob job = new ReportJob(asList("alfresco", "archive"), now::get);
+        job.run(this::coreReport);
+        now.set(5000);
+
+        NamedList<Object> status = job.toNamedList();
+        assertEquals(ReportJob.STATUS_COMPLETED, status.get("status"));
+        assertNull(status.get("errorMessage"));
+        assertEquals(2, status.get("Cores reported"));
+        assertEquals(0L, status.get("Elapsed time (ms)"));
+        assertEquals(coreReport("archive"), ((NamedList<?>) status.get("report")).get("archive"));
+    }
+
+    @Test
+    public void failingCore_shouldFailTheJobKeepingThePartialReport()
+    {
+        ReportJob job = new ReportJob(asList("alfresco", "archive"), now::get);
+        job.run(coreName -> {
+            if (coreName.equals("archive"))
+            {
+                throw new IllegalStateException("Repository not available");
+            }
+            return coreReport(coreName);
+        });
+
+        NamedList<Object> status = job.toNamedList();
+        assertEquals(ReportJob.STATUS_FAILED, status.get("status"));
+        assertEquals("Repository not available", status.get("errorMessage"));
+        assertEquals(1, status.get("Cores reported"));
+    }
+
+    private NamedList<Object> coreReport(String coreName)
+    {
+        NamedList<Object> report = new SimpleOrderedMap<>();
+        report.add("Core", coreName);
+        return report;
+    }
+}
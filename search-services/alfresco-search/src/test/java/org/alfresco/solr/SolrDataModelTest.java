@@ -28,8 +28,13 @@ package org.alfresco.solr;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
+import org.alfresco.model.ContentModel;
 import org.alfresco.service.namespace.QName;
+import org.alfresco.solr.AlfrescoSolrDataModel.FieldUse;
+import org.alfresco.solr.AlfrescoSolrDataModel.IndexedField;
 import org.junit.Test;
 
 /**
@@ -53,4 +58,34 @@ public class SolrDataModelTest
         Long actualId = AlfrescoSolrDataModel.parseTransactionId(id);
         assertEquals(expectedId, actualId);
     }
+
+    @Test
+    public void fieldMappingsAreCachedUntilTheDictionaryChanges()
+    {
+        AlfrescoSolrDataModel dataModel = AlfrescoSolrDataModel.getInstance();
+
+        IndexedField indexedFields = dataModel.getIndexedFieldNamesForProperty(ContentModel.PROP_NAME);
+        IndexedField queryableFields = dataModel.getQueryableFields(ContentModel.PROP_NAME, null, FieldUse.FTS);
+        assertSame(indexedFields, dataModel.getIndexedFieldNamesForProperty(ContentModel.PROP_NAME));
+        assertSame(queryableFields, dataModel.getQueryableFields(ContentModel.PROP_NAME, null, FieldUse.FTS));
+
+        dataModel.afterInitModels();
+
+        IndexedField recomputed = dataModel.getIndexedFieldNamesForProperty(ContentModel.PROP_NAME);
+        assertNotSame(indexedFields, recomputed);
+        assertEquals(indexedFields.getFields().size(), recomputed.getFields().size());
+        assertNotSame(queryableFields, dataModel.getQueryableFields(ContentModel.PROP_NAME, null, FieldUse.FTS));
+    }
+
+    @Test
+    public void queryableFieldsAreCachedPerFieldUse()
+    {
+        AlfrescoSolrDataModel dataModel = AlfrescoSolrDataModel.getInstance();
+
+        IndexedField ftsFields = dataModel.getQueryableFields(ContentModel.PROP_NAME, null, FieldUse.FTS);
+        IndexedField sortFields = dataModel.getQueryableFields(ContentModel.PROP_NAME, null, FieldUse.SORT);
+        assertNotSame(ftsFields, sortFields);
+        assertSame(ftsFields, dataModel.getQueryableFields(ContentModel.PROP_NAME, null, FieldUse.FTS));
+        assertSame(sortFields, dataModel.getQueryableFields(ContentModel.PROP_NAME, null, FieldUse.SORT));
+    }
 }
@@ -26,12 +26,32 @@
 
 package org.alfresco.solr;
 
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.Random;
 import java.util.stream.Stream;
 
 import org.alfresco.service.cmr.dictionary.DataTypeDefinition;
 import org.alfresco.service.cmr.dictionary.PropertyDefinition;
+import org.alfresco.solr.client.NodeMetaData;
+import org.alfresco.solr.client.NodeMetaDataParameters;
 import org.alfresco.solr.client.SOLRAPIClient;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.CommonParams;
@@ -41,6 +61,11 @@ import org.apache.solr.core.SolrResourceLoader;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.request.SolrRequestHandler;
 import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.schema.FieldType;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -48,7 +73,11 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static java.util.Optional.ofNullable;
+import static java.util.stream.Collectors.toList;
+import static org.alfresco.repo.search.adaptor.lucene.QueryConstants.FIELD_TXID;
 import static org.alfresco.service.cmr.dictionary.DataTypeDefinition.ANY;
 import static org.alfresco.service.cmr.dictionary.DataTypeDefinition.ASSOC_REF;
 import static org.alfresco.service.cmr.dictionary.DataTypeDefinition.BOOLEAN;
@@ -78,6 +107,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -315,4 +346,196 @@ public class SolrInformationServerTest
 
         assertNull(document);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void appendHex_shouldWriteTheLegacyFingerprintEncoding()
+    {
+        char[] out = new char[4];
+        for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++)
+        {
+            int length = SolrInformationServer.appendHex((char) c, out, 0);
+            assertEquals(Integer.toHexString(c), new String(out, 0, length));
+        }
+    }
+
+    @Test
+    public void fingerprintTermEncoder_shouldEncodeTheTokensAsTheLegacyHexPath()
+    {
+        // Longer tokens first, then shorter ones, so that the reused buffer both grows and keeps stale chars
+        List<String> tokens = asList(
+                "minhash token longer than the initial sixty four chars of the term buffer",
+                "\u0000\u0001\u00ff\u0100\u0fff\u1000\uffff",
+                "caf\u00e9 \u4e2d\u6587",
+                "a",
+                "");
+
+        SolrInformationServer.FingerprintTermEncoder encoder = new SolrInformationServer.FingerprintTermEncoder(false);
+        for (String token : tokens)
+        {
+            StringBuilder legacyTerm = new StringBuilder();
+            for (char c : token.toCharArray())
+            {
+                legacyTerm.append(Integer.toHexString(c));
+            }
+
+            // As the token stream does, pass a buffer longer than the token
+            char[] buffer = (token + "trailing chars").toCharArray();
+            assertEquals(legacyTerm.toString(), encoder.encode(buffer, token.length()));
+        }
+    }
+
+    @Test
+    public void isBlank_shouldOnlyConsiderTheTextAfterTheLocaleMarker()
+    {
+        assertTrue(SolrInformationServer.isBlank("\u0000en\u0000", 4));
+        assertTrue(SolrInformationServer.isBlank("\u0000en\u0000 \t\r\n", 4));
+        assertFalse(SolrInformationServer.isBlank("\u0000en\u0000 text ", 4));
+    }
+
+    @Test
+    public void appendBase64_shouldWriteTheCompactFingerprintEncoding()
+    {
+        Random random = new Random(42);
+        char[] out = new char[64];
+        for (int length = 0; length <= 16; length++)
+        {
+            char[] chars = new char[length];
+            ByteBuffer bytes = ByteBuffer.allocate(length * 2);
+            for (int i = 0; i < length; i++)
+            {
+                chars[i] = (char) random.nextInt(Character.MAX_VALUE + 1);
+                bytes.putChar(chars[i]);
+            }
+
+            int written = SolrInformationServer.appendBase64(chars, length, out, 0);
+            assertEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.array()), new String(out, 0, written));
+        }
+    }
+
+    @Test
+    public void txnsInIndex_shouldResolveTheWholeWindowWithASingleSearcher() throws Exception
+    {
+        try (RAMDirectory directory = new RAMDirectory())
+        {
+            try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig()))
+            {
+                // Two segments, the second one with a deleted transaction
+                writer.addDocument(transactionDoc(5));
+                writer.commit();
+                writer.addDocument(transactionDoc(7));
+                writer.addDocument(transactionDoc(9));
+                writer.commit();
+                writer.deleteDocuments(new Term(FIELD_TXID, "9"));
+            }
+
+            try (DirectoryReader reader = DirectoryReader.open(directory))
+            {
+                SolrIndexSearcher searcher = mock(SolrIndexSearcher.class);
+                IndexSchema schema = mock(IndexSchema.class);
+                SchemaField field = mock(SchemaField.class);
+                FieldType fieldType = mock(FieldType.class);
+                when(searcher.getSchema()).thenReturn(schema);
+                when(schema.getField(FIELD_TXID)).thenReturn(field);
+                when(field.getType()).thenReturn(fieldType);
+                doAnswer(invocation -> {
+                    invocation.<BytesRefBuilder>getArgument(1).copyChars(invocation.<CharSequence>getArgument(0));
+                    return null;
+                }).when(fieldType).readableToIndexed(any(CharSequence.class), any(BytesRefBuilder.class));
+                when(searcher.getTopReaderContext()).thenReturn(reader.getContext());
+                RefCounted<SolrIndexSearcher> refCounted = new RefCounted<SolrIndexSearcher>(searcher)
+                {
+                    @Override
+                    protected void close()
+                    {
+                    }
+                };
+                refCounted.incref();
+                when(core.getSearcher()).thenReturn(refCounted);
+
+                BitSet inIndex = infoServer.txnsInIndex(new long[] { 7, 3, 5, 7, 9 }, false);
+
+                assertEquals(3, inIndex.cardinality());
+                assertTrue(inIndex.get(0));
+                assertTrue(inIndex.get(2));
+                assertTrue(inIndex.get(3));
+                verify(core).getSearcher();
+                assertEquals(0, refCounted.getRefcount());
+            }
+        }
+    }
+
+    @Test
+    public void fetchNodesMetaDataInBatches_shouldHandTheKnownNodesToTheConsumerInOrder() throws Exception
+    {
+        SolrInformationServer batchingInfoServer = batchingInfoServer();
+
+        List<List<Long>> requestedBatches = Collections.synchronizedList(new ArrayList<>());
+        when(client.getNodesMetaData(any(NodeMetaDataParameters.class))).thenAnswer(invocation -> {
+            List<Long> nodeIds = invocation.<NodeMetaDataParameters>getArgument(0).getNodeIds();
+            requestedBatches.add(new ArrayList<>(nodeIds));
+
+            // Node 4 is unknown to the repository
+            return nodeIds.stream().map(id -> id == 4 ? null : nodeMetaData(id)).collect(toList());
+        });
+
+        List<Long> consumed = new ArrayList<>();
+        batchingInfoServer.fetchNodesMetaDataInBatches(
+                asList(1L, 2L, 3L, 4L, 5L),
+                this::nodeIdsParameters,
+                nodeMetaData -> consumed.add(nodeMetaData.getId()));
+
+        assertEquals(asList(1L, 2L, 3L, 5L), consumed);
+        assertEquals(3, requestedBatches.size());
+        assertTrue(requestedBatches.containsAll(asList(asList(1L, 2L), asList(3L, 4L), singletonList(5L))));
+    }
+
+    @Test(expected = IOException.class)
+    public void fetchNodesMetaDataInBatches_shouldFailWhenABatchCannotBeFetched() throws Exception
+    {
+        SolrInformationServer batchingInfoServer = batchingInfoServer();
+
+        when(client.getNodesMetaData(any(NodeMetaDataParameters.class))).thenAnswer(invocation -> {
+            List<Long> nodeIds = invocation.<NodeMetaDataParameters>getArgument(0).getNodeIds();
+            if (nodeIds.contains(3L))
+            {
+                throw new ConnectException("Repository unavailable");
+            }
+            return nodeIds.stream().map(this::nodeMetaData).collect(toList());
+        });
+
+        batchingInfoServer.fetchNodesMetaDataInBatches(
+                asList(1L, 2L, 3L, 4L, 5L),
+                this::nodeIdsParameters,
+                nodeMetaData -> {});
+    }
+
+    private SolrInformationServer batchingInfoServer()
+    {
+        Properties properties = new Properties();
+        properties.setProperty("alfresco.cascade.tracker.childBatchSize", "2");
+        properties.setProperty("alfresco.cascade.tracker.maxInFlightChildBatches", "2");
+        when(resourceLoader.getCoreProperties()).thenReturn(properties);
+        return new SolrInformationServer(adminHandler, core, client);
+    }
+
+    private NodeMetaDataParameters nodeIdsParameters(List<Long> nodeIds)
+    {
+        NodeMetaDataParameters parameters = new NodeMetaDataParameters();
+        parameters.setNodeIds(nodeIds);
+        return parameters;
+    }
+
+    private NodeMetaData nodeMetaData(long nodeId)
+    {
+        NodeMetaData nodeMetaData = new NodeMetaData();
+        nodeMetaData.setId(nodeId);
+        return nodeMetaData;
+    }
+
+    private Document transactionDoc(long txId)
+    {
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_TXID, Long.toString(txId), Field.Store.NO));
+        return doc;
+    }
+}
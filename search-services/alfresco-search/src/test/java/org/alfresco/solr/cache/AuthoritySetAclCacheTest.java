@@ -0,0 +1,101 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.alfresco.solr.query.AuthoritySetAcls;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AuthoritySetAclCacheTest
+{
+    private AuthoritySetAclCache cache;
+
+    private Object persistence;
+
+    @Before
+    public void setUp()
+    {
+        Map<String, String> args = new HashMap<>();
+        args.put("name", CacheConstants.ALFRESCO_AUTHORITY_SET_ACL_CACHE);
+        args.put("size", "2");
+
+        cache = new AuthoritySetAclCache();
+        persistence = cache.init(args, null, new AuthoritySetAclCacheRegenerator());
+    }
+
+    @Test
+    public void cachedEntry_shouldBeReturnedOnLookup()
+    {
+        AuthoritySetAcls acls = acls(1_000_000);
+        cache.put("|GROUP_EVERYONE|admin", acls);
+
+        assertSame(acls, cache.get("|GROUP_EVERYONE|admin"));
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void buildStats_shouldBeReported()
+    {
+        cache.put("|a", acls(2_000_000));
+        cache.put("|b", acls(4_000_000));
+
+        NamedList stats = cache.getStatistics();
+        assertEquals(2L, stats.get("builds"));
+        assertEquals(6L, stats.get("buildTimeMs"));
+        assertEquals(3d, stats.get("avgBuildTimeMs"));
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void cumulativeBuildStats_shouldSurviveANewCacheGeneration()
+    {
+        cache.put("|a", acls(2_000_000));
+
+        Map<String, String> args = new HashMap<>();
+        args.put("size", "2");
+        AuthoritySetAclCache next = new AuthoritySetAclCache();
+        next.init(args, persistence, new AuthoritySetAclCacheRegenerator());
+        next.put("|b", acls(4_000_000));
+
+        NamedList stats = next.getStatistics();
+        assertEquals(1L, stats.get("builds"));
+        assertEquals(2L, stats.get("cumulative_builds"));
+        assertEquals(6L, stats.get("cumulative_buildTimeMs"));
+    }
+
+    private AuthoritySetAcls acls(long buildTimeNanos)
+    {
+        return new AuthoritySetAcls(null, null, null, buildTimeNanos);
+    }
+}
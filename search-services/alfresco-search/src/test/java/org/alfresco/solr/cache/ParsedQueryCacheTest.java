@@ -0,0 +1,157 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.alfresco.service.cmr.search.SearchParameters;
+import org.alfresco.solr.ContextAwareQuery;
+import org.alfresco.solr.query.ParsedQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.search.SolrCache;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParsedQueryCacheTest
+{
+    private ParsedQueryCache cache;
+
+    @Before
+    public void setUp()
+    {
+        Map<String, String> args = new HashMap<>();
+        args.put("name", CacheConstants.ALFRESCO_PARSED_QUERY_CACHE);
+        args.put("size", "2");
+
+        cache = new ParsedQueryCache();
+        cache.init(args, null, new ParsedQueryCacheRegenerator());
+        cache.setState(SolrCache.State.LIVE);
+    }
+
+    @Test
+    public void sameQuery_shouldHaveTheSameKey()
+    {
+        ParsedQuery parsedQuery = parsedQuery(1_000_000);
+        cache.put(key("cm:name:alfresco"), parsedQuery);
+
+        assertSame(parsedQuery, cache.get(key("cm:name:alfresco")));
+        assertNull(cache.get(key("cm:name:solr")));
+    }
+
+    @Test
+    public void transactionDataExclusion_shouldBePartOfTheKey()
+    {
+        SearchParameters excludingTransactionData = searchParameters("cm:name:alfresco");
+        excludingTransactionData.excludeDataInTheCurrentTransaction(true);
+        SearchParameters includingTransactionData = searchParameters("cm:name:alfresco");
+        includingTransactionData.excludeDataInTheCurrentTransaction(false);
+
+        assertNotEquals(
+                new ParsedQuery.Key(includingTransactionData, "afts"),
+                new ParsedQuery.Key(excludingTransactionData, "afts"));
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void parseStats_shouldReportTheParseTimeSavedByHits()
+    {
+        cache.put(key("a"), parsedQuery(2_000_000));
+        cache.put(key("b"), parsedQuery(4_000_000));
+        cache.get(key("b"));
+        cache.get(key("b"));
+
+        NamedList stats = cache.getStatistics();
+        assertEquals(2L, stats.get("parses"));
+        assertEquals(6L, stats.get("parseTimeMs"));
+        assertEquals(8L, stats.get("savedParseTimeMs"));
+    }
+
+    @Test
+    public void timeDependentQueries_shouldNotBeCacheable()
+    {
+        assertTrue(ParsedQuery.isCacheable(searchParameters("cm:name:alfresco")));
+        assertFalse(ParsedQuery.isCacheable(searchParameters("cm:created:[NOW-1DAY TO NOW]")));
+        assertFalse(ParsedQuery.isCacheable(searchParameters("FINGERPRINT:1234")));
+        assertFalse(ParsedQuery.isCacheable(searchParameters("cm:created:[today TO MAX]")));
+    }
+
+    @Test
+    public void wordsContainingTimeKeywords_shouldBeCacheable()
+    {
+        assertTrue(ParsedQuery.isCacheable(searchParameters("cm:name:snowdrop")));
+        assertTrue(ParsedQuery.isCacheable(searchParameters("TEXT:knowledge AND TEXT:fingerprints")));
+    }
+
+    @Test
+    public void cachedQuery_shouldBeBoundToTheSearchParametersOfTheRequest()
+    {
+        SearchParameters parsingRequest = searchParameters("cm:name:alfresco");
+        ParsedQuery parsedQuery = new ParsedQuery(new ContextAwareQuery(new MatchAllDocsQuery(), parsingRequest), null, 0);
+
+        SearchParameters executingRequest = searchParameters("cm:name:alfresco");
+        executingRequest.setMaxItems(10);
+        ParsedQuery boundQuery = parsedQuery.boundTo(executingRequest);
+
+        assertSame(executingRequest, ((ContextAwareQuery) boundQuery.getQuery()).getSearchParameters());
+        assertEquals(new ContextAwareQuery(new MatchAllDocsQuery(), executingRequest), boundQuery.getQuery());
+        assertSame(parsingRequest, ((ContextAwareQuery) parsedQuery.getQuery()).getSearchParameters());
+    }
+
+    @Test
+    public void cachedFilterQuery_shouldBeSharedAsItIs()
+    {
+        ParsedQuery parsedQuery = new ParsedQuery(new ContextAwareQuery(new MatchAllDocsQuery(), null), null, 0);
+
+        assertSame(parsedQuery, parsedQuery.boundTo(searchParameters("cm:name:alfresco")));
+    }
+
+    private ParsedQuery.Key key(String query)
+    {
+        return new ParsedQuery.Key(searchParameters(query), "afts");
+    }
+
+    private SearchParameters searchParameters(String query)
+    {
+        SearchParameters searchParameters = new SearchParameters();
+        searchParameters.setQuery(query);
+        return searchParameters;
+    }
+
+    private ParsedQuery parsedQuery(long parseTimeNanos)
+    {
+        return new ParsedQuery(new MatchAllDocsQuery(), null, parseTimeNanos);
+    }
+}
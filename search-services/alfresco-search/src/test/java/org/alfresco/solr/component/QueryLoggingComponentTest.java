@@ -0,0 +1,184 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.CloseHook;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.handler.component.ResponseBuilder;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.search.DocListAndSet;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.processor.UpdateRequestProcessor;
+import org.apache.solr.update.processor.UpdateRequestProcessorChain;
+import org.apache.solr.util.RTimer;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class QueryLoggingComponentTest
+{
+    private QueryLoggingComponent component;
+    private SolrCore core;
+    private CoreContainer container;
+    private UpdateRequestProcessor processor;
+    private CloseHook closeHook;
+
+    @Before
+    public void setUp()
+    {
+        core = mock(SolrCore.class);
+        container = mock(CoreContainer.class);
+        SolrCore logCore = mock(SolrCore.class);
+        UpdateRequestProcessorChain chain = mock(UpdateRequestProcessorChain.class);
+        processor = mock(UpdateRequestProcessor.class);
+        when(core.getName()).thenReturn("alfresco");
+        when(core.getCoreContainer()).thenReturn(container);
+        when(container.isLoaded("alfresco_qlog")).thenReturn(true);
+        when(container.getCore("alfresco_qlog")).thenReturn(logCore);
+        when(logCore.getUpdateProcessingChain(isNull())).thenReturn(chain);
+        when(chain.createProcessor(any(), any())).thenReturn(processor);
+
+        // Batches are only written when full or on close
+        NamedList<Object> args = new NamedList<>();
+        args.add("queueSize", 10);
+        args.add("batchSize", 2);
+        args.add("flushIntervalMs", 600000);
+
+        component = new QueryLoggingComponent();
+        component.init(args);
+        component.inform(core);
+
+        ArgumentCaptor<CloseHook> closeHookCaptor = ArgumentCaptor.forClass(CloseHook.class);
+        verify(core).addCloseHook(closeHookCaptor.capture());
+        closeHook = closeHookCaptor.getValue();
+    }
+
+    @Test(timeout = 30000)
+    public void fullBatch_shouldBeWrittenWithoutWaitingForTheFlushInterval() throws IOException
+    {
+        component.process(responseBuilder());
+        component.process(responseBuilder());
+        component.process(responseBuilder());
+
+        verify(processor, timeout(10000).times(2)).processAdd(any(AddUpdateCommand.class));
+        closeHook.preClose(core);
+    }
+
+    @Test(timeout = 30000)
+    public void coreClose_shouldWriteTheQueuedEntriesWithoutWaitingForTheFlushInterval() throws IOException
+    {
+        component.process(responseBuilder());
+        component.process(responseBuilder());
+        component.process(responseBuilder());
+
+        closeHook.preClose(core);
+
+        verify(processor, times(3)).processAdd(any(AddUpdateCommand.class));
+        assertEquals(3L, component.getStatistics().get("written"));
+        assertEquals(0L, component.getStatistics().get("failed"));
+    }
+
+    @Test(timeout = 30000)
+    public void queriesAfterCoreClose_shouldNotBeQueued() throws IOException
+    {
+        closeHook.preClose(core);
+
+        component.process(responseBuilder());
+
+        verify(processor, never()).processAdd(any(AddUpdateCommand.class));
+        assertEquals(0L, component.getStatistics().get("queued"));
+    }
+
+    @Test(timeout = 30000)
+    public void queriesOfACoreWithoutLogCore_shouldNotStartTheWriter() throws IOException
+    {
+        SolrCore archiveCore = mock(SolrCore.class);
+        when(archiveCore.getName()).thenReturn("archive");
+        when(archiveCore.getCoreContainer()).thenReturn(container);
+        when(container.isLoaded("archive_qlog")).thenReturn(false);
+
+        QueryLoggingComponent archiveComponent = new QueryLoggingComponent();
+        archiveComponent.init(new NamedList<>());
+        archiveComponent.inform(archiveCore);
+        archiveComponent.process(responseBuilder());
+
+        assertFalse(Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.getName().equals("QueryLogWriter-archive")));
+        assertEquals(0L, archiveComponent.getStatistics().get("queued"));
+        archiveComponent.close();
+    }
+
+    @Test(timeout = 30000)
+    public void entriesOfAnUnloadedLogCore_shouldBeCountedAsDropped() throws IOException
+    {
+        when(container.getCore("alfresco_qlog")).thenReturn(null);
+
+        component.process(responseBuilder());
+        component.process(responseBuilder());
+        component.process(responseBuilder());
+
+        closeHook.preClose(core);
+
+        verify(processor, never()).processAdd(any(AddUpdateCommand.class));
+        assertEquals(3L, component.getStatistics().get("dropped"));
+        assertEquals(0L, component.getStatistics().get("written"));
+    }
+
+    private ResponseBuilder responseBuilder()
+    {
+        SolrQueryRequest request = mock(SolrQueryRequest.class);
+        when(request.getParams()).thenReturn(new ModifiableSolrParams().set("q", "cm:name:alfresco"));
+        when(request.getContext()).thenReturn(new HashMap<>());
+        when(request.getRequestTimer()).thenReturn(new RTimer());
+
+        ResponseBuilder rb = new ResponseBuilder(request, new SolrQueryResponse(), new ArrayList<>());
+        rb.setQuery(new MatchAllDocsQuery());
+        rb.setResults(new DocListAndSet());
+        return rb;
+    }
+}
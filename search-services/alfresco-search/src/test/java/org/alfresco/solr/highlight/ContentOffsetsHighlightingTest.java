@@ -0,0 +1,158 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.highlight;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.FlattenGraphFilterFactory;
+import org.apache.lucene.analysis.custom.CustomAnalyzer;
+import org.apache.lucene.analysis.icu.ICUFoldingFilterFactory;
+import org.apache.lucene.analysis.icu.segmentation.ICUTokenizerFactory;
+import org.apache.lucene.analysis.miscellaneous.WordDelimiterGraphFilterFactory;
+import org.apache.lucene.analysis.pattern.PatternReplaceCharFilterFactory;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Indexes content with the index analyzer of the text___offsets field type (see the rerank schema template), storing
+ * the offsets in the postings as content@s___t@* does, and highlights it from those offsets.
+ */
+public class ContentOffsetsHighlightingTest
+{
+    private static final String FIELD = "content@s___t@{http://www.alfresco.org/model/content/1.0}content";
+    private static final String CONTENT = "The WiFi password of the lab123 router is on the e-mail.";
+
+    private Analyzer analyzer;
+    private RAMDirectory directory;
+    private DirectoryReader reader;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        analyzer = CustomAnalyzer.builder()
+                .addCharFilter(PatternReplaceCharFilterFactory.class, "pattern", "\\x{0000}.*\\x{0000}", "replacement", "")
+                .addCharFilter(PatternReplaceCharFilterFactory.class, "pattern", "(#0;.*#0;)", "replacement", "")
+                .withTokenizer(ICUTokenizerFactory.class)
+                .addTokenFilter(WordDelimiterGraphFilterFactory.class,
+                        "generateWordParts", "1",
+                        "generateNumberParts", "1",
+                        "catenateWords", "1",
+                        "catenateNumbers", "1",
+                        "catenateAll", "1",
+                        "splitOnCaseChange", "1",
+                        "splitOnNumerics", "1",
+                        "preserveOriginal", "1",
+                        "stemEnglishPossessive", "1")
+                .addTokenFilter(FlattenGraphFilterFactory.class)
+                .addTokenFilter(ICUFoldingFilterFactory.class)
+                .build();
+
+        FieldType withOffsets = new FieldType(TextField.TYPE_STORED);
+        withOffsets.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        withOffsets.freeze();
+
+        directory = new RAMDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)))
+        {
+            Document document = new Document();
+            document.add(new Field(FIELD, CONTENT, withOffsets));
+            writer.addDocument(document);
+        }
+        reader = DirectoryReader.open(directory);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        reader.close();
+        directory.close();
+        analyzer.close();
+    }
+
+    @Test
+    public void analyzer_shouldNeverMoveTheOffsetsBackwards() throws IOException
+    {
+        try (TokenStream tokens = analyzer.tokenStream(FIELD, CONTENT))
+        {
+            OffsetAttribute offsets = tokens.addAttribute(OffsetAttribute.class);
+            tokens.reset();
+            int lastStartOffset = 0;
+            while (tokens.incrementToken())
+            {
+                assertTrue(offsets.startOffset() >= lastStartOffset);
+                assertTrue(offsets.endOffset() >= offsets.startOffset());
+                lastStartOffset = offsets.startOffset();
+            }
+            tokens.end();
+        }
+    }
+
+    @Test
+    public void highlighting_shouldMarkWholeWordsFromThePostingsOffsets() throws IOException
+    {
+        assertArrayEquals(
+                new String[] { "The <b>WiFi</b> password of the lab123 router is on the e-mail." },
+                highlight(new TermQuery(new Term(FIELD, "wifi"))));
+    }
+
+    @Test
+    public void highlighting_shouldMarkWordPartsFromThePostingsOffsets() throws IOException
+    {
+        assertArrayEquals(
+                new String[] { "The WiFi password of the <b>lab</b>123 router is on the e-mail." },
+                highlight(new TermQuery(new Term(FIELD, "lab"))));
+    }
+
+    private String[] highlight(Query query) throws IOException
+    {
+        IndexSearcher searcher = new IndexSearcher(reader);
+        UnifiedHighlighter highlighter = new UnifiedHighlighter(searcher, analyzer);
+        return highlighter.highlight(FIELD, query, searcher.search(query, 1));
+    }
+}
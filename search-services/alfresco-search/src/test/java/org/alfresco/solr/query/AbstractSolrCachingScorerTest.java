@@ -0,0 +1,228 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.solr.search.BitDocSet;
+import org.apache.solr.search.DocSet;
+import org.apache.solr.search.SortedIntDocSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the leaf-local iterator of {@link AbstractSolrCachingScorer} over an index of three segments of four
+ * documents each, where the first two documents of every segment have type "a".
+ */
+public class AbstractSolrCachingScorerTest
+{
+    private static final int SEGMENTS = 3;
+    private static final int DOCS_PER_SEGMENT = 4;
+
+    /** Global doc ids of the cached set: 1 and 3 of every segment. */
+    private static final int[] CACHED_DOCS = { 1, 3, 5, 7, 9, 11 };
+
+    private RAMDirectory directory;
+    private DirectoryReader reader;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        directory = new RAMDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE)))
+        {
+            for (int segment = 0; segment < SEGMENTS; segment++)
+            {
+                for (int doc = 0; doc < DOCS_PER_SEGMENT; doc++)
+                {
+                    Document document = new Document();
+                    document.add(new StringField("type", doc < 2 ? "a" : "b", Field.Store.NO));
+                    writer.addDocument(document);
+                }
+                writer.commit();
+            }
+        }
+        reader = DirectoryReader.open(directory);
+        assertEquals(SEGMENTS, reader.leaves().size());
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        reader.close();
+        directory.close();
+    }
+
+    @Test
+    public void bitDocSet_shouldBeIteratedWithLeafLocalIds() throws IOException
+    {
+        assertLeafDocs(bitDocSet());
+    }
+
+    @Test
+    public void sortedIntDocSet_shouldBeIteratedWithLeafLocalIds() throws IOException
+    {
+        assertLeafDocs(new SortedIntDocSet(CACHED_DOCS));
+    }
+
+    @Test
+    public void advanceToNoMoreDocs_shouldExhaustTheIteratorOfEverySegment() throws IOException
+    {
+        for (LeafReaderContext leaf : reader.leaves())
+        {
+            DocIdSetIterator iterator = scorer(bitDocSet(), leaf).iterator();
+            assertEquals(NO_MORE_DOCS, iterator.advance(NO_MORE_DOCS));
+            assertEquals(NO_MORE_DOCS, iterator.docID());
+        }
+    }
+
+    @Test
+    public void conjunction_shouldMatchTheCachedDocsOfEverySegment() throws IOException
+    {
+        IndexSearcher searcher = new IndexSearcher(reader);
+        searcher.setQueryCache(null);
+
+        BooleanQuery query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term("type", "a")), Occur.MUST)
+                .add(new CachedDocSetQuery(bitDocSet()), Occur.MUST)
+                .build();
+        TotalHitCountCollector collector = new TotalHitCountCollector();
+        searcher.search(query, collector);
+
+        // Doc 1 of every segment
+        assertEquals(SEGMENTS, collector.getTotalHits());
+    }
+
+    private void assertLeafDocs(DocSet docSet) throws IOException
+    {
+        for (LeafReaderContext leaf : reader.leaves())
+        {
+            DocIdSetIterator iterator = scorer(docSet, leaf).iterator();
+            List<Integer> docs = new ArrayList<>();
+            for (int doc = iterator.nextDoc(); doc != NO_MORE_DOCS; doc = iterator.nextDoc())
+            {
+                docs.add(doc);
+            }
+            assertEquals(List.of(1, 3), docs);
+
+            iterator = scorer(docSet, leaf).iterator();
+            assertEquals(3, iterator.advance(2));
+            assertEquals(NO_MORE_DOCS, iterator.advance(DOCS_PER_SEGMENT));
+        }
+    }
+
+    private static BitDocSet bitDocSet()
+    {
+        FixedBitSet bits = new FixedBitSet(SEGMENTS * DOCS_PER_SEGMENT);
+        for (int doc : CACHED_DOCS)
+        {
+            bits.set(doc);
+        }
+        return new BitDocSet(bits);
+    }
+
+    private static Scorer scorer(DocSet docSet, LeafReaderContext leaf)
+    {
+        return scorer(null, docSet, leaf);
+    }
+
+    private static Scorer scorer(Weight weight, DocSet docSet, LeafReaderContext leaf)
+    {
+        return new AbstractSolrCachingScorer(weight, docSet, leaf, null) {};
+    }
+
+    /**
+     * Matches the docs of a cached {@link DocSet} through an {@link AbstractSolrCachingScorer}.
+     */
+    private static class CachedDocSetQuery extends Query
+    {
+        private final DocSet docSet;
+
+        CachedDocSetQuery(DocSet docSet)
+        {
+            this.docSet = docSet;
+        }
+
+        @Override
+        public Weight createWeight(IndexSearcher searcher, boolean needsScores)
+        {
+            return new ConstantScoreWeight(this)
+            {
+                @Override
+                public Scorer scorer(LeafReaderContext context)
+                {
+                    return AbstractSolrCachingScorerTest.scorer(this, docSet, context);
+                }
+            };
+        }
+
+        @Override
+        public String toString(String field)
+        {
+            return "CachedDocSetQuery";
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return sameClassAs(other) && docSet.equals(((CachedDocSetQuery) other).docSet);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return classHash() ^ docSet.hashCode();
+        }
+    }
+}
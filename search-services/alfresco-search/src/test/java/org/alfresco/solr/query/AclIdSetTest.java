@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class AclIdSetTest
+{
+    @Test
+    public void noIds_shouldReturnTheEmptySet()
+    {
+        AclIdSet set = AclIdSet.of(new long[10], 0);
+
+        assertSame(AclIdSet.EMPTY, set);
+        assertTrue(set.isEmpty());
+        assertFalse(set.get(0));
+    }
+
+    @Test
+    public void denseIds_shouldUseABitmapSizedOnTheRange()
+    {
+        long[] ids = { 1_000_010, 1_000_000, 1_000_005, 1_000_005, 1_000_001 };
+
+        AclIdSet set = AclIdSet.of(ids, ids.length);
+
+        assertTrue(set instanceof AclIdSet.DenseAclIdSet);
+        assertEquals(4, set.size());
+        assertTrue(set.get(1_000_000));
+        assertTrue(set.get(1_000_005));
+        assertTrue(set.get(1_000_010));
+        assertFalse(set.get(1_000_002));
+        assertFalse(set.get(999_999));
+        assertFalse(set.get(1_000_011));
+        assertTrue(set.ramBytesUsed() < 1024);
+    }
+
+    @Test
+    public void sparseIds_shouldUseASortedArray()
+    {
+        long[] ids = { 70_000_000_000L, 3, 60_000_000, 3 };
+
+        AclIdSet set = AclIdSet.of(ids, ids.length);
+
+        assertTrue(set instanceof AclIdSet.SparseAclIdSet);
+        assertEquals(3, set.size());
+        assertTrue(set.get(3));
+        assertTrue(set.get(60_000_000));
+        assertTrue(set.get(70_000_000_000L));
+        assertFalse(set.get(4));
+        assertFalse(set.get(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void setsWithTheSameIds_shouldBeEqual()
+    {
+        assertEquals(AclIdSet.of(new long[] { 1, 2, 3 }, 3), AclIdSet.of(new long[] { 3, 2, 1, 2 }, 4));
+        assertEquals(AclIdSet.of(new long[] { 1, 60_000_000 }, 2), AclIdSet.of(new long[] { 60_000_000, 1 }, 2));
+        assertEquals(AclIdSet.of(new long[] { 1, 60_000_000 }, 2).hashCode(), AclIdSet.of(new long[] { 60_000_000, 1 }, 2).hashCode());
+
+        assertNotEquals(AclIdSet.of(new long[] { 1, 2, 3 }, 3), AclIdSet.of(new long[] { 1, 2, 4 }, 3));
+        assertNotEquals(AclIdSet.of(new long[] { 1, 60_000_000 }, 2), AclIdSet.of(new long[] { 2, 60_000_000 }, 2));
+    }
+
+    @Test
+    public void randomIds_shouldBehaveLikeASet()
+    {
+        Random random = new Random(42);
+        for (int bound : new int[] { 100, 10_000, 100_000_000 })
+        {
+            TreeSet<Long> expected = new TreeSet<>();
+            long[] ids = new long[1000];
+            int count = 0;
+            while (count < 900)
+            {
+                long id = random.nextInt(bound);
+                ids[count++] = id;
+                expected.add(id);
+            }
+
+            AclIdSet set = AclIdSet.of(ids, count);
+
+            assertEquals(expected.size(), set.size());
+            for (long id = 0; id < Math.min(bound, 20_000); id++)
+            {
+                assertEquals(expected.contains(id), set.get(id));
+            }
+            expected.forEach(id -> assertTrue(set.get(id)));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.handler.component.ResponseBuilder;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.schema.TrieLongField;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContentSizeGroupingCollectorTest
+{
+    private static final String SIZE_FIELD = "content@s__size@{http://www.alfresco.org/model/content/1.0}content";
+
+    private RAMDirectory directory;
+    private ResponseBuilder rb;
+
+    @Before
+    public void setUp()
+    {
+        directory = new RAMDirectory();
+
+        IndexSchema schema = mock(IndexSchema.class);
+        when(schema.getFieldOrNull(SIZE_FIELD)).thenReturn(new SchemaField(SIZE_FIELD, new TrieLongField()));
+        SolrQueryRequest request = mock(SolrQueryRequest.class);
+        when(request.getSchema()).thenReturn(schema);
+        rb = new ResponseBuilder(request, new SolrQueryResponse(), new ArrayList<>());
+    }
+
+    @After
+    public void tearDown()
+    {
+        directory.close();
+    }
+
+    @Test
+    public void sizesInSeveralSegments_shouldBeCountedOnce() throws IOException
+    {
+        Map<String, Object> counts = contentSizeCounts(1, 2, new long[] { 0, 20 }, new long[] { 10 }, new long[] { 5, 15, 20 });
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("[0 TO 11>", 3L);
+        expected.put("[11 TO 22>", 3L);
+        assertEquals(expected, counts);
+    }
+
+    @Test
+    public void sameSize_shouldBeCountedInASingleBucket() throws IOException
+    {
+        Map<String, Object> counts = contentSizeCounts(1, 10, new long[] { 5, 5 }, new long[] { 5 });
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("[5 TO 6>", 3L);
+        assertEquals(expected, counts);
+    }
+
+    @Test
+    public void sizeOnABucketEdge_shouldBeCountedInTheUpperBucket() throws IOException
+    {
+        // width = (21 - 0) / 2 + 1 = 11
+        Map<String, Object> counts = contentSizeCounts(1, 2, new long[] { 0, 10 }, new long[] { 11, 21 });
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("[0 TO 11>", 2L);
+        expected.put("[11 TO 22>", 2L);
+        assertEquals(expected, counts);
+    }
+
+    @Test
+    public void scaledSizes_shouldLeaveEmptyBucketsInTheRange() throws IOException
+    {
+        // Scaled sizes 1, 2 and 4: width = (4 - 1) / 4 + 1 = 1
+        Map<String, Object> counts = contentSizeCounts(1024, 4, new long[] { 1024, 2047 }, new long[] { 2048, 4096 });
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("[1 TO 2>", 2L);
+        expected.put("[2 TO 3>", 1L);
+        expected.put("[3 TO 4>", 0L);
+        expected.put("[4 TO 5>", 1L);
+        assertEquals(expected, counts);
+    }
+
+    /**
+     * Indexes the given sizes, one segment per array, and collects all the documents.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> contentSizeCounts(int scale, int buckets, long[]... segments) throws IOException
+    {
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE)))
+        {
+            for (long[] sizes : segments)
+            {
+                for (long size : sizes)
+                {
+                    Document doc = new Document();
+                    doc.add(new NumericDocValuesField(SIZE_FIELD, size));
+                    writer.addDocument(doc);
+                }
+                writer.commit();
+            }
+        }
+
+        try (DirectoryReader reader = DirectoryReader.open(directory))
+        {
+            assertEquals(segments.length, reader.leaves().size());
+
+            ContentSizeGroupingCollector collector = new ContentSizeGroupingCollector(rb, scale, buckets, SIZE_FIELD);
+            collector.setDelegate(new TotalHitCountCollector());
+            new IndexSearcher(reader).search(new MatchAllDocsQuery(), collector);
+            collector.finish();
+        }
+
+        NamedList<Object> analytics = (NamedList<Object>) rb.rsp.getValues().get("analytics");
+        Map<String, Object> counts = new LinkedHashMap<>();
+        NamedList<Object> fieldCounts = (NamedList<Object>) analytics.get("contentSize()");
+        for (int i = 0; i < fieldCounts.size(); i++)
+        {
+            counts.put(fieldCounts.getName(i), fieldCounts.getVal(i));
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.handler.component.ResponseBuilder;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.schema.StrField;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MimetypeGroupingCollectorTest
+{
+    private static final String MIMETYPE_FIELD = "content@s__mimetype@{http://www.alfresco.org/model/content/1.0}content";
+
+    private RAMDirectory directory;
+    private ResponseBuilder rb;
+
+    @Before
+    public void setUp()
+    {
+        directory = new RAMDirectory();
+
+        IndexSchema schema = mock(IndexSchema.class);
+        when(schema.getFieldOrNull(MIMETYPE_FIELD)).thenReturn(new SchemaField(MIMETYPE_FIELD, new StrField()));
+        SolrQueryRequest request = mock(SolrQueryRequest.class);
+        when(request.getSchema()).thenReturn(schema);
+        rb = new ResponseBuilder(request, new SolrQueryResponse(), new ArrayList<>());
+    }
+
+    @After
+    public void tearDown()
+    {
+        directory.close();
+    }
+
+    @Test
+    public void mimetypesInSeveralSegments_shouldBeMergedAcrossSegments() throws IOException
+    {
+        // The same mimetype has a different ordinal in each segment
+        Map<String, Object> counts = mimetypeCounts(new HashMap<>(), false,
+                new String[] { "application/pdf", "text/plain", "text/plain" },
+                new String[] { "text/plain", null },
+                new String[] { "image/png", "application/pdf" });
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("application/pdf", 2L);
+        expected.put("text/plain", 3L);
+        expected.put("image/png", 1L);
+        assertEquals(expected, counts);
+    }
+
+    @Test
+    public void groupedMimetypes_shouldBeCountedByGroup() throws IOException
+    {
+        HashMap<String, String> mappings = new HashMap<>();
+        mappings.put("text/plain", "Text");
+        mappings.put("text/html", "Text");
+
+        Map<String, Object> counts = mimetypeCounts(mappings, true,
+                new String[] { "text/plain", "application/pdf" },
+                new String[] { "text/html", "text/plain" });
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("Text", 3L);
+        expected.put("application/pdf", 1L);
+        assertEquals(expected, counts);
+    }
+
+    /**
+     * Indexes the given mimetypes (null for a document without content), one segment per array, and collects all the
+     * documents.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> mimetypeCounts(HashMap<String, String> mappings, boolean doGroup, String[]... segments) throws IOException
+    {
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE)))
+        {
+            for (String[] mimetypes : segments)
+            {
+                for (String mimetype : mimetypes)
+                {
+                    Document doc = new Document();
+                    if (mimetype != null)
+                    {
+                        doc.add(new SortedDocValuesField(MIMETYPE_FIELD, new BytesRef(mimetype)));
+                    }
+                    writer.addDocument(doc);
+                }
+                writer.commit();
+            }
+        }
+
+        try (DirectoryReader reader = DirectoryReader.open(directory))
+        {
+            assertEquals(segments.length, reader.leaves().size());
+
+            MimetypeGroupingCollector collector = new MimetypeGroupingCollector(rb, mappings, doGroup, MIMETYPE_FIELD);
+            collector.setDelegate(new TotalHitCountCollector());
+            new IndexSearcher(reader).search(new MatchAllDocsQuery(), collector);
+            collector.finish();
+        }
+
+        NamedList<Object> analytics = (NamedList<Object>) rb.rsp.getValues().get("analytics");
+        Map<String, Object> counts = new HashMap<>();
+        NamedList<Object> fieldCounts = (NamedList<Object>) analytics.get("mimetype()");
+        for (int i = 0; i < fieldCounts.size(); i++)
+        {
+            counts.put(fieldCounts.getName(i), fieldCounts.getVal(i));
+        }
+        return counts;
+    }
+}
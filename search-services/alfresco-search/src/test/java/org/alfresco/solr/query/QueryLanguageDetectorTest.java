@@ -0,0 +1,89 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.solr.common.util.NamedList;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.cybozu.labs.langdetect.Language;
+
+public class QueryLanguageDetectorTest
+{
+    @BeforeClass
+    public static void loadLanguageProfiles() throws Exception
+    {
+        // The language profiles are loaded by AbstractQParser
+        Class.forName(AbstractQParser.class.getName());
+    }
+
+    @Test
+    public void sameText_shouldBeDetectedOnce()
+    {
+        QueryLanguageDetector detector = new QueryLanguageDetector(10, 1, null);
+
+        List<Language> languages = detector.detect("Der schnelle braune Fuchs springt über den faulen Hund");
+        assertFalse(languages.isEmpty());
+        assertEquals("de", languages.get(0).lang);
+        assertSame(languages, detector.detect("Der schnelle braune Fuchs springt über den faulen Hund"));
+
+        NamedList<Object> stats = detector.getStatistics();
+        assertEquals(1L, stats.get("languageDetections"));
+        assertEquals(2L, stats.get("languageDetectionCacheLookups"));
+        assertEquals(1L, stats.get("languageDetectionCacheHits"));
+        assertEquals(0.5d, stats.get("languageDetectionCacheHitRatio"));
+    }
+
+    @Test
+    public void shortTexts_shouldNotBeDetected()
+    {
+        QueryLanguageDetector detector = new QueryLanguageDetector(10, 4, null);
+
+        assertTrue(detector.detect(" ab ").isEmpty());
+        assertEquals(0L, detector.getStatistics().get("languageDetections"));
+        assertEquals(1L, detector.getStatistics().get("languageDetectionShortCircuits"));
+    }
+
+    @Test
+    public void asciiTexts_shouldGetTheConfiguredLanguage()
+    {
+        QueryLanguageDetector detector = new QueryLanguageDetector(10, 1, "en");
+
+        assertEquals("en", detector.detect("quick brown fox").get(0).lang);
+        assertEquals(0L, detector.getStatistics().get("languageDetections"));
+
+        assertEquals("de", detector.detect("Der schnelle braune Fuchs springt über den faulen Hund").get(0).lang);
+        assertEquals(1L, detector.getStatistics().get("languageDetections"));
+    }
+}
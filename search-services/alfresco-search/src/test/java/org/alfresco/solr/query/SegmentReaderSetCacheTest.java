@@ -0,0 +1,129 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.alfresco.repo.search.adaptor.lucene.QueryConstants;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.FixedBitSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SegmentReaderSetCacheTest
+{
+    private static final AclIdSet ACL_IDS = AclIdSet.of(new long[] { 1, 3 }, 2);
+
+    private RAMDirectory directory;
+    private DirectoryReader reader;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        SegmentReaderSetCache.clear();
+        directory = new RAMDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig()))
+        {
+            for (long aclId = 0; aclId < 4; aclId++)
+            {
+                Document doc = new Document();
+                doc.add(new NumericDocValuesField(QueryConstants.FIELD_ACLID, aclId));
+                writer.addDocument(doc);
+            }
+        }
+        reader = DirectoryReader.open(directory);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        reader.close();
+        directory.close();
+        SegmentReaderSetCache.clear();
+    }
+
+    @Test
+    public void sameAuthoritiesAndAcls_shouldReuseTheSegmentBits() throws IOException
+    {
+        LeafReader segment = reader.leaves().get(0).reader();
+
+        FixedBitSet readableDocs = SegmentReaderSetCache.getReadableDocs("|a|b", ACL_IDS, segment, 10, Long.MAX_VALUE);
+
+        assertEquals(2, readableDocs.cardinality());
+        assertTrue(readableDocs.get(1) && readableDocs.get(3));
+        assertSame(readableDocs, SegmentReaderSetCache.getReadableDocs("|a|b", ACL_IDS, segment, 10, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void maxBytesExceeded_shouldEvictTheLeastRecentlyUsedEntries() throws IOException
+    {
+        LeafReader segment = reader.leaves().get(0).reader();
+        long entryBytes = SegmentReaderSetCache.getReadableDocs("|a", ACL_IDS, segment, 10, Long.MAX_VALUE).ramBytesUsed();
+        SegmentReaderSetCache.clear();
+
+        FixedBitSet first = SegmentReaderSetCache.getReadableDocs("|a", ACL_IDS, segment, 10, entryBytes);
+        SegmentReaderSetCache.getReadableDocs("|b", ACL_IDS, segment, 10, entryBytes);
+
+        assertEquals(entryBytes, SegmentReaderSetCache.getCachedBytes());
+        assertNotSame(first, SegmentReaderSetCache.getReadableDocs("|a", ACL_IDS, segment, 10, entryBytes));
+    }
+
+    @Test
+    public void maxEntriesPerSegmentExceeded_shouldEvictTheLeastRecentlyUsedEntry() throws IOException
+    {
+        LeafReader segment = reader.leaves().get(0).reader();
+
+        FixedBitSet first = SegmentReaderSetCache.getReadableDocs("|a", ACL_IDS, segment, 1, Long.MAX_VALUE);
+        FixedBitSet second = SegmentReaderSetCache.getReadableDocs("|b", ACL_IDS, segment, 1, Long.MAX_VALUE);
+
+        assertEquals(second.ramBytesUsed(), SegmentReaderSetCache.getCachedBytes());
+        assertNotSame(first, SegmentReaderSetCache.getReadableDocs("|a", ACL_IDS, segment, 1, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void closedSegment_shouldBePurged() throws IOException
+    {
+        SegmentReaderSetCache.getReadableDocs("|a", ACL_IDS, reader.leaves().get(0).reader(), 10, Long.MAX_VALUE);
+        assertTrue(SegmentReaderSetCache.getCachedBytes() > 0);
+
+        reader.close();
+
+        assertEquals(0, SegmentReaderSetCache.getCachedBytes());
+    }
+}
@@ -28,8 +28,10 @@ package org.alfresco.solr.query;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collections;
 import java.util.LinkedList;
 
 import org.alfresco.repo.search.impl.parsers.FTSQueryException;
@@ -41,7 +43,13 @@ import org.apache.lucene.search.spans.SpanNearQuery;
 import org.apache.lucene.search.spans.SpanQuery;
 import org.apache.lucene.search.spans.SpanTermQuery;
 import org.apache.lucene.util.Version;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.handler.component.HttpShardHandlerFactory;
 import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.search.SolrIndexSearcher;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -127,5 +135,28 @@ public class Solr4QueryParserTest
                     tokenSequenceWithRepeatedGroup.get(i).toString(), ((SpanTermQuery) termClauses[i]).getTerm().text());
         }
     }
-    
+
+    @Test
+    public void fetchFingerPrint_shouldReturnNullWhenEveryShardFails()
+    {
+        String shards = "127.0.0.1:1/solr/alfresco";
+        SolrQueryRequest req = Mockito.mock(SolrQueryRequest.class);
+        SolrCore core = Mockito.mock(SolrCore.class);
+        CoreContainer coreContainer = Mockito.mock(CoreContainer.class);
+        HttpShardHandlerFactory shardHandlerFactory = Mockito.mock(HttpShardHandlerFactory.class);
+        SolrIndexSearcher searcher = Mockito.mock(SolrIndexSearcher.class);
+        Mockito.when(req.getCore()).thenReturn(core);
+        Mockito.when(core.getCoreContainer()).thenReturn(coreContainer);
+        Mockito.when(coreContainer.getShardHandlerFactory()).thenReturn(shardHandlerFactory);
+        Mockito.when(shardHandlerFactory.buildURLList(shards)).thenReturn(Collections.singletonList("http://" + shards));
+        Mockito.when(req.getParams()).thenReturn(new ModifiableSolrParams().set(CommonParams.TIME_ALLOWED, 5000));
+        Mockito.when(req.getSearcher()).thenReturn(searcher);
+
+        Solr4QueryParser fingerPrintParser = new Solr4QueryParser(req, Version.LATEST, "TEXT", null, FTSQueryParser.RerankPhase.SINGLE_PASS);
+
+        // The refused connection is logged, not thrown, and nothing is cached for the node
+        assertNull(fingerPrintParser.fetchFingerPrint(shards, "1"));
+        Mockito.verify(searcher, Mockito.never()).cacheInsert(Mockito.anyString(), Mockito.any(), Mockito.any());
+    }
+
 }
@@ -0,0 +1,112 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.tracker;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import org.alfresco.solr.InformationServer;
+import org.alfresco.solr.client.Acl;
+import org.alfresco.solr.client.AclChangeSets;
+import org.alfresco.solr.client.SOLRAPIClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AclTrackerTest
+{
+    private final static long ACL_CHANGE_SET_ID = 10L;
+    private final static long ACL_ID = 999L;
+
+    @Mock
+    private SOLRAPIClient repositoryClient;
+
+    @Mock
+    private InformationServer srv;
+
+    @Mock
+    private TrackerStats trackerStats;
+
+    private AclTracker aclTracker;
+
+    @Before
+    public void setUp()
+    {
+        when(srv.getTrackerStats()).thenReturn(trackerStats);
+        aclTracker = new AclTracker(new Properties(), repositoryClient, "theCoreName", srv);
+    }
+
+    @Test
+    public void singleAclBatch_shouldQuarantineTheAclWhenTheRepositoryIsAvailable() throws Exception
+    {
+        IOException poison = new IOException("Unreadable ACL");
+        when(repositoryClient.getAclReaders(anyList())).thenThrow(poison);
+        when(repositoryClient.getAclChangeSets(isNull(), anyLong(), isNull(), anyLong(), anyInt()))
+                .thenReturn(mock(AclChangeSets.class));
+
+        aclTracker.new AclIndexWorker(singletonList(new Acl(ACL_CHANGE_SET_ID, ACL_ID))).run();
+
+        assertFalse(aclTracker.getRollback());
+        verify(srv).indexErrorAcl(ACL_ID, poison);
+        assertTrue(aclTracker.getQuarantinedAcls().contains(ACL_ID));
+    }
+
+    @Test
+    public void singleAclBatch_shouldRollbackWhenTheRepositoryIsNotAvailable() throws Exception
+    {
+        IOException unreachable = new IOException("Connection refused");
+        when(repositoryClient.getAclReaders(anyList())).thenThrow(unreachable);
+        when(repositoryClient.getAclChangeSets(isNull(), anyLong(), isNull(), anyLong(), anyInt()))
+                .thenThrow(unreachable);
+
+        aclTracker.new AclIndexWorker(singletonList(new Acl(ACL_CHANGE_SET_ID, ACL_ID))).run();
+
+        assertTrue(aclTracker.getRollback());
+        assertEquals(unreachable, aclTracker.getRollbackCausedBy());
+        verify(srv, never()).indexErrorAcl(eq(ACL_ID), any());
+        assertFalse(aclTracker.getQuarantinedAcls().contains(ACL_ID));
+    }
+}
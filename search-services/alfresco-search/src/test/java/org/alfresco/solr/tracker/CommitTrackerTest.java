@@ -0,0 +1,121 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+
+import org.alfresco.solr.InformationServer;
+import org.alfresco.solr.client.SOLRAPIClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CommitTrackerTest
+{
+    @Mock
+    private SOLRAPIClient repositoryClient;
+
+    @Mock
+    private InformationServer srv;
+
+    @Mock
+    private MetadataTracker metadataTracker;
+
+    @Mock
+    private AclTracker aclTracker;
+
+    @Mock
+    private ContentTracker contentTracker;
+
+    private CommitTracker commitTracker;
+
+    @Before
+    public void setUp()
+    {
+        Properties props = new Properties();
+        // Commit at every cycle
+        props.setProperty("alfresco.commitInterval", "-1");
+
+        commitTracker = new CommitTracker(props, repositoryClient, "theCoreName", srv,
+                asList(metadataTracker, aclTracker, contentTracker));
+    }
+
+    @Test
+    public void commit_shouldLockOutTheIndexingTrackersUntilItIsDone() throws Throwable
+    {
+        Semaphore metadataLock = new Semaphore(1);
+        Semaphore aclLock = new Semaphore(1);
+        when(metadataTracker.getWriteLock()).thenReturn(metadataLock);
+        when(aclTracker.getWriteLock()).thenReturn(aclLock);
+        when(srv.commit(false)).thenAnswer(invocation -> {
+            assertEquals(0, metadataLock.availablePermits());
+            assertEquals(0, aclLock.availablePermits());
+            return false;
+        });
+
+        commitTracker.doTrack("AnIterationId");
+
+        verify(srv).commit(false);
+        assertEquals(1, metadataLock.availablePermits());
+        assertEquals(1, aclLock.availablePermits());
+    }
+
+    @Test
+    public void rollback_shouldLockOutTheIndexingTrackersAndSkipTheCommit() throws Throwable
+    {
+        Semaphore metadataLock = new Semaphore(1);
+        Semaphore aclLock = new Semaphore(1);
+        Semaphore contentLock = new Semaphore(1);
+        when(metadataTracker.getRollback()).thenReturn(true);
+        when(metadataTracker.getWriteLock()).thenReturn(metadataLock);
+        when(aclTracker.getWriteLock()).thenReturn(aclLock);
+        when(contentTracker.getWriteLock()).thenReturn(contentLock);
+
+        commitTracker.doTrack("AnIterationId");
+
+        verify(srv).rollback();
+        verify(srv, never()).commit(anyBoolean());
+        verify(metadataTracker).setRollback(false, null);
+        verify(metadataTracker).invalidateState();
+        assertEquals(1, commitTracker.getRollbackCount());
+
+        assertEquals(1, metadataLock.availablePermits());
+        assertEquals(1, aclLock.availablePermits());
+        assertEquals(1, contentLock.availablePermits());
+    }
+}
@@ -29,6 +29,7 @@ package org.alfresco.solr.tracker;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 
@@ -126,24 +127,17 @@ public class ContentTrackerIT
          */
 
         // From docs1
-        TenantDbId docRef = new TenantDbId();
-        docRef.dbId = 1L;
-        docRef.tenant = "1";
-
-        order.verify(srv, times(UPDATE_BATCH)).updateContent(docRef);
+        order.verify(srv).updateContent(docs1.subList(0, UPDATE_BATCH));
         order.verify(srv).commit();
 
         // The one extra doc should be processed and then committed
-        order.verify(srv).updateContent(thirdDoc);
+        order.verify(srv).updateContent(Collections.singletonList(thirdDoc));
         order.verify(srv).commit();
         
         order.verify(srv).getDocsWithUncleanContent();
         
         // From docs2
-        docRef = new TenantDbId();
-        docRef.dbId = 2L;
-        docRef.tenant = "2";
-        order.verify(srv, times(UPDATE_BATCH)).updateContent(docRef);
+        order.verify(srv).updateContent(docs2);
         order.verify(srv).commit();
         
         order.verify(srv).getDocsWithUncleanContent();
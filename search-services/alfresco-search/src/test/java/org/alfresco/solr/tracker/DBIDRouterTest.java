@@ -29,6 +29,7 @@ package org.alfresco.solr.tracker;
 import static java.util.Arrays.stream;
 import static java.util.stream.IntStream.range;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.when;
@@ -38,6 +39,7 @@ import static org.alfresco.solr.AlfrescoSolrUtils.randomShardCountGreaterThanOne
 import org.alfresco.repo.index.shard.ShardMethodEnum;
 import org.alfresco.solr.client.Acl;
 import org.alfresco.solr.client.Node;
+import org.alfresco.solr.client.ShardFilter;
 import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
 import org.junit.Before;
 import org.junit.Test;
@@ -136,4 +138,29 @@ public class DBIDRouterTest
                 nodeDistributionMap.values().toString() + ", SD = " + deviation + ", SD_NORM = " + norm + "%",
                 norm < 30);
     }
+
+    @Test
+    public void oneShardInTheCluster_shouldNotProvideAShardFilter()
+    {
+        assertFalse(router.getShardFilter(1, 0).isPresent());
+    }
+
+    @Test
+    public void shardFilter_shouldAcceptTheNodesRoutedToTheShard()
+    {
+        int shardCount = 4;
+        int shardInstance = 2;
+
+        ShardFilter filter = router.getShardFilter(shardCount, shardInstance).orElseThrow();
+        assertEquals(ShardMethodEnum.DB_ID.toString(), filter.getShardMethod());
+        assertEquals("4", filter.getParameters().get(ShardFilter.SHARD_COUNT));
+        assertEquals("2", filter.getParameters().get(ShardFilter.SHARD_INSTANCE));
+        assertEquals("77", filter.getParameters().get(ShardFilter.MURMUR_SEED));
+
+        range(0, 1000).forEach(id -> {
+            Node node = new Node();
+            node.setId(id);
+            assertEquals(router.routeNode(shardCount, shardInstance, node), filter.accepts(node));
+        });
+    }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.tracker;
+
+import static java.util.stream.IntStream.range;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.alfresco.repo.index.shard.ShardMethodEnum;
+import org.alfresco.solr.client.Node;
+import org.alfresco.solr.client.ShardFilter;
+import org.junit.Test;
+
+public class DateMonthRouterTest
+{
+    private final DateMonthRouter router = new DateMonthRouter("3");
+
+    @Test
+    public void oneShardInTheCluster_shouldNotProvideAShardFilter()
+    {
+        assertFalse(router.getShardFilter(1, 0).isPresent());
+    }
+
+    @Test
+    public void shardFilter_shouldAcceptTheNodesRoutedToTheShard()
+    {
+        int shardCount = 4;
+        int shardInstance = 1;
+
+        ShardFilter filter = router.getShardFilter(shardCount, shardInstance).orElseThrow();
+        assertEquals(ShardMethodEnum.DATE.toString(), filter.getShardMethod());
+        assertEquals("4", filter.getParameters().get(ShardFilter.SHARD_COUNT));
+        assertEquals("1", filter.getParameters().get(ShardFilter.SHARD_INSTANCE));
+        assertEquals("3", filter.getParameters().get(ShardFilter.SHARD_DATE_GROUPING));
+        assertEquals("77", filter.getParameters().get(ShardFilter.MURMUR_SEED));
+
+        // Dated nodes over four years, plus undated nodes which fall back to the DBID routing
+        range(0, 1000).forEach(id -> {
+            Node node = new Node();
+            node.setId(id);
+            if (id % 2 == 0)
+            {
+                node.setShardPropertyValue(String.format("%d-%02d-15T12:00:00.000Z", 2017 + id % 4, 1 + id % 12));
+            }
+            assertEquals(router.routeNode(shardCount, shardInstance, node), filter.accepts(node));
+        });
+    }
+}
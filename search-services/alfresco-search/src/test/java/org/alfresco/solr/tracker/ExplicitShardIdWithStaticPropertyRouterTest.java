@@ -29,13 +29,16 @@ package org.alfresco.solr.tracker;
 import static java.util.stream.IntStream.range;
 import static org.alfresco.solr.AlfrescoSolrUtils.randomPositiveInteger;
 import static org.alfresco.solr.AlfrescoSolrUtils.randomShardCountGreaterThanOne;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
+import org.alfresco.repo.index.shard.ShardMethodEnum;
 import org.alfresco.solr.client.Acl;
 import org.alfresco.solr.client.Node;
+import org.alfresco.solr.client.ShardFilter;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -111,4 +114,21 @@ public class ExplicitShardIdWithStaticPropertyRouterTest
 
         assertFalse(router.routeNode(shardCount, shardInstance + 1, node));
     }
+
+    @Test
+    public void shardFilter_shouldAcceptTheNodesExplicitlyAssignedToTheShard()
+    {
+        ShardFilter filter = router.getShardFilter(4, 2).orElseThrow();
+        assertEquals(ShardMethodEnum.LAST_REGISTERED_INDEXING_SHARD.toString(), filter.getShardMethod());
+        assertEquals("2", filter.getParameters().get(ShardFilter.SHARD_INSTANCE));
+
+        Node assigned = new Node();
+        assigned.setExplicitShardId(2);
+        Node assignedElsewhere = new Node();
+        assignedElsewhere.setExplicitShardId(3);
+
+        assertTrue(filter.accepts(assigned));
+        assertFalse(filter.accepts(assignedElsewhere));
+        assertFalse(filter.accepts(new Node()));
+    }
 }
\ No newline at end of file
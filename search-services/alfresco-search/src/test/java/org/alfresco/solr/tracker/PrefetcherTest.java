@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link Prefetcher} class.
+ */
+public class PrefetcherTest
+{
+    @Test
+    public void disabledPrefetch_shouldRunTheCallInTheCallingThreadOnGet() throws Exception
+    {
+        Prefetcher prefetcher = new Prefetcher(false, 2, "prefetch");
+        AtomicInteger calls = new AtomicInteger();
+        AtomicReference<Thread> callThread = new AtomicReference<>();
+
+        Future<Integer> call = prefetcher.submit(() -> {
+            callThread.set(Thread.currentThread());
+            return calls.incrementAndGet();
+        });
+
+        assertFalse(prefetcher.isEnabled());
+        assertEquals(0, calls.get());
+        assertEquals(1, (int) call.get());
+        assertEquals(1, (int) call.get());
+        assertSame(Thread.currentThread(), callThread.get());
+    }
+
+    @Test
+    public void disabledPrefetch_cancelledCall_shouldNeverRun()
+    {
+        Prefetcher prefetcher = new Prefetcher(false, 2, "prefetch");
+        AtomicInteger calls = new AtomicInteger();
+
+        Prefetcher.cancel(prefetcher.submit(calls::incrementAndGet));
+
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    public void enabledPrefetch_shouldRunTheCallAheadInAnotherThread() throws Exception
+    {
+        Prefetcher prefetcher = new Prefetcher(true, 2, "prefetch");
+        CountDownLatch called = new CountDownLatch(1);
+        AtomicReference<Thread> callThread = new AtomicReference<>();
+
+        Future<String> call = prefetcher.submit(() -> {
+            callThread.set(Thread.currentThread());
+            called.countDown();
+            return "done";
+        });
+
+        assertTrue(prefetcher.isEnabled());
+        assertTrue(called.await(10, TimeUnit.SECONDS));
+        assertEquals("done", call.get());
+        assertNotSame(Thread.currentThread(), callThread.get());
+        assertTrue(callThread.get().isDaemon());
+    }
+
+    @Test
+    public void enabledPrefetch_cancelledCall_shouldBeInterrupted() throws Exception
+    {
+        Prefetcher prefetcher = new Prefetcher(true, 2, "prefetch");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        Future<Void> call = prefetcher.submit(() -> {
+            started.countDown();
+            try
+            {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            }
+            catch (InterruptedException e)
+            {
+                interrupted.countDown();
+            }
+            return null;
+        });
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Prefetcher.cancel(call);
+
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package org.alfresco.solr.tracker;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link RetryQueue} class.
+ */
+public class RetryQueueTest
+{
+    private final AtomicLong now = new AtomicLong();
+    private RetryQueue queue;
+
+    @Before
+    public void setUp()
+    {
+        queue = new RetryQueue(1000, 4000, 3, now::get);
+    }
+
+    @Test
+    public void quarantinedItem_shouldBeDueAfterTheRetryDelay()
+    {
+        assertTrue(queue.quarantine(7));
+
+        now.set(999);
+        assertFalse(queue.hasDue());
+        assertEquals(emptyList(), queue.due());
+
+        now.set(1000);
+        assertTrue(queue.hasDue());
+        assertEquals(singletonList(7L), queue.due());
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void failingRetries_shouldBackOffExponentiallyUpToTheMaxRetryDelay()
+    {
+        queue = new RetryQueue(1000, 3000, 10, now::get);
+
+        queue.quarantine(7);
+        now.set(1000);
+        queue.quarantine(7);
+        now.set(2999);
+        assertFalse(queue.hasDue());
+        now.set(3000);
+        assertTrue(queue.hasDue());
+
+        queue.quarantine(7);
+        now.set(5999);
+        assertFalse(queue.hasDue());
+        now.set(6000);
+        assertTrue(queue.hasDue());
+    }
+
+    @Test
+    public void recoveredItem_shouldLeaveTheQueue()
+    {
+        queue.quarantine(7);
+        assertTrue(queue.contains(7));
+        queue.recovered(7);
+        queue.recovered(8);
+
+        assertFalse(queue.contains(7));
+        assertEquals(0, queue.size());
+        assertEquals(1, queue.getQuarantined());
+        assertEquals(1, queue.getRecovered());
+    }
+
+    @Test
+    public void itemFailingMoreThanMaxRetries_shouldBeGivenUp()
+    {
+        assertTrue(queue.quarantine(7));
+        assertTrue(queue.quarantine(7));
+        assertTrue(queue.quarantine(7));
+        assertFalse(queue.quarantine(7));
+
+        assertEquals(0, queue.size());
+        assertEquals(4, queue.getQuarantined());
+        assertEquals(1, queue.getGivenUp());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.tracker;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link TimeWindowStepper} class.
+ */
+public class TimeWindowStepperTest
+{
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    @Test
+    public void emptyWindows_shouldWidenUpToTheMaximum()
+    {
+        TimeWindowStepper stepper = new TimeWindowStepper(8 * HOUR);
+
+        for (long expected : new long[] { HOUR, 2 * HOUR, 4 * HOUR, 8 * HOUR, 8 * HOUR })
+        {
+            long step = stepper.step(HOUR);
+            assertEquals(expected, step);
+            stepper.windowProbed(step, 0, 100, HOUR);
+        }
+
+        assertEquals(5, stepper.getWindowsProbed());
+        assertEquals(0, stepper.getWindowsWithData());
+    }
+
+    @Test
+    public void fullWindows_shouldShrinkDownToTheTimeStep()
+    {
+        TimeWindowStepper stepper = new TimeWindowStepper(8 * HOUR);
+        stepper.windowProbed(HOUR, 0, 100, HOUR);
+        stepper.windowProbed(2 * HOUR, 0, 100, HOUR);
+        assertEquals(4 * HOUR, stepper.step(HOUR));
+
+        stepper.windowProbed(4 * HOUR, 100, 100, HOUR);
+        assertEquals(2 * HOUR, stepper.step(HOUR));
+
+        stepper.windowProbed(2 * HOUR, 50, 100, HOUR);
+        assertEquals(2 * HOUR, stepper.step(HOUR));
+
+        stepper.windowProbed(2 * HOUR, 100, 100, HOUR);
+        stepper.windowProbed(HOUR, 100, 100, HOUR);
+        assertEquals(HOUR, stepper.step(HOUR));
+
+        assertEquals(6, stepper.getWindowsProbed());
+        assertEquals(4, stepper.getWindowsWithData());
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.transformer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.when;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.ResultContext;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AlfrescoFieldMapperTransformerTest
+{
+    private static final String NAME_FIELD = "text@s_stored_lt@{http://www.alfresco.org/model/content/1.0}name";
+
+    @Mock
+    private ResultContext context;
+
+    @Mock
+    private SolrQueryRequest request;
+
+    @Mock
+    private SolrIndexSearcher searcher;
+
+    @Mock
+    private IndexSchema schema;
+
+    @Mock
+    private SchemaField nameField;
+
+    private AlfrescoFieldMapperTransformer transformer;
+
+    @Before
+    public void setUp()
+    {
+        when(context.getRequest()).thenReturn(request);
+        when(context.getSearcher()).thenReturn(searcher);
+        when(searcher.getSchema()).thenReturn(schema);
+        when(schema.getFieldOrNull(NAME_FIELD)).thenReturn(nameField);
+
+        transformer = new AlfrescoFieldMapperTransformer();
+    }
+
+    @Test
+    public void requestedField_shouldBeReturnedWithItsUnderscoreAlfrescoName()
+    {
+        when(request.getParams()).thenReturn(new ModifiableSolrParams().set("originalFl", "cm_name"));
+        when(nameField.multiValued()).thenReturn(false);
+        transformer.setContext(context);
+
+        SolrDocument doc = new SolrDocument();
+        doc.setField(NAME_FIELD, "alfresco");
+        transformer.transform(doc, 0, 0);
+
+        assertEquals("alfresco", doc.getFieldValue("cm_name"));
+        assertFalse(doc.containsKey(NAME_FIELD));
+    }
+
+    @Test
+    public void notRequestedField_shouldBeRemoved()
+    {
+        when(request.getParams()).thenReturn(new ModifiableSolrParams().set("originalFl", "cm_title"));
+        transformer.setContext(context);
+
+        SolrDocument doc = new SolrDocument();
+        doc.setField(NAME_FIELD, "alfresco");
+        transformer.transform(doc, 0, 0);
+
+        assertFalse(doc.containsKey(NAME_FIELD));
+        assertFalse(doc.containsKey("cm_name"));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.apache.lucene.analysis.minhash;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ContextSketchesTest
+{
+    @Test
+    public void contextsPerWord_shouldBeCapped()
+    {
+        ContextSketches sketches = new ContextSketches(10, 4);
+        char[] word = "fox".toCharArray();
+        for (long hash = 100; hash > 0; hash--)
+        {
+            sketches.add(word, 0, word.length, hash);
+        }
+        sketches.add(word, 0, word.length, 1);
+
+        assertEquals(1, sketches.words());
+        assertEquals(4, sketches.contexts());
+    }
+
+    @Test
+    public void leastRecentlySeenWords_shouldBeEvicted()
+    {
+        ContextSketches sketches = new ContextSketches(2, 4);
+        char[] buffer = "quick brown fox".toCharArray();
+        sketches.add(buffer, 0, 5, 1);
+        sketches.add(buffer, 6, 5, 1);
+        long twoWords = sketches.ramBytesUsed();
+        sketches.add(buffer, 0, 5, 2);
+        sketches.add(buffer, 12, 3, 1);
+
+        assertEquals(2, sketches.words());
+        assertEquals(1, sketches.evictions());
+        assertEquals(3, sketches.contexts());
+        assertTrue(sketches.ramBytesUsed() > 0);
+        assertTrue(sketches.ramBytesUsed() <= twoWords + 64);
+    }
+}
@@ -52,6 +52,7 @@ public class GetNodesParameters
     private Set<QName> excludeAspects;
     
     private QName shardProperty;
+    private ShardFilter shardFilter;
     private String coreName;
 
     public boolean getStoreFilter()
@@ -159,6 +160,16 @@ public class GetNodesParameters
         this.shardProperty = shardProperty;
     }
 
+    public ShardFilter getShardFilter()
+    {
+        return this.shardFilter;
+    }
+
+    public void setShardFilter(ShardFilter shardFilter)
+    {
+        this.shardFilter = shardFilter;
+    }
+
     public String getCoreName()
     {
         return this.coreName;
@@ -27,6 +27,7 @@
 package org.alfresco.solr.client;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import org.alfresco.error.AlfrescoRuntimeException;
@@ -79,12 +80,12 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import static java.util.Optional.ofNullable;
 
@@ -273,64 +274,78 @@ public class SOLRAPIClient
      * @return                              the readers for the ACLs
      */
     public List<AclReaders> getAclReaders(List<Acl> acls) throws AuthenticationException, IOException, JSONException
+    {
+        List<AclReaders> aclsReaders = new ArrayList<AclReaders>(acls.size());
+        getAclReaders(acls, aclsReaders::add);
+        return aclsReaders;
+    }
+
+    /**
+     * Get the ACL readers for a given list of ACLs, handing each of them to the consumer as soon as it has been
+     * read from the response stream.
+     *
+     * @param acls                          the ACLs
+     * @param consumer                      the consumer of the readers for the ACLs
+     */
+    public void getAclReaders(List<Acl> acls, Consumer<AclReaders> consumer) throws AuthenticationException, IOException, JSONException
     {
         StringBuilder url = new StringBuilder(GET_ACLS_READERS);
         
         JSONObject jsonReq = new JSONObject();
         JSONArray aclIdsJSON = new JSONArray();
-        List<Long> aclIds = new ArrayList<Long>();
         for (Acl acl : acls)
         {
-            Long aclId = acl.getId();
-            aclIdsJSON.put(aclId);
-            aclIds.add(aclId);
+            aclIdsJSON.put(acl.getId());
         }
         jsonReq.put("aclIds", aclIdsJSON);
 
         PostRequest req = new PostRequest(url.toString(), jsonReq.toString(), "application/json");
-        JSONObject json = callRepository(GET_ACLS_READERS, req);
-
-        JSONArray aclsReadersJSON = json.getJSONArray("aclsReaders");
-        List<AclReaders> aclsReaders = new ArrayList<AclReaders>(aclsReadersJSON.length());
-        for (int i = 0; i < aclsReadersJSON.length(); i++)
-        {
-            JSONObject aclReadersJSON = aclsReadersJSON.getJSONObject(i);
-            long aclId = aclReadersJSON.getLong("aclId");
-            JSONArray readersJSON = aclReadersJSON.getJSONArray("readers");
-            List<String> readers = authorityListFromJSON(readersJSON);
-            JSONArray deniedJSON = aclReadersJSON.getJSONArray("denied");
-            List<String> denied = authorityListFromJSON(deniedJSON);
-            long aclChangeSetId = aclReadersJSON.getLong("aclChangeSetId");
-            
-            String tenantDomain = aclReadersJSON.getString("tenantDomain");
-            if (tenantDomain == null)
+        streamRepository(GET_ACLS_READERS, req, "aclsReaders", parser -> consumer.accept(readAclReaders(parser)));
+    }
+
+    private AclReaders readAclReaders(JsonParser parser) throws IOException
+    {
+        long aclId = 0;
+        List<String> readers = new ArrayList<String>();
+        List<String> denied = new ArrayList<String>();
+        long aclChangeSetId = 0;
+        String tenantDomain = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL)
             {
-                tenantDomain = TenantService.DEFAULT_DOMAIN;
+                continue;
+            }
+
+            switch (fieldName)
+            {
+                case "aclId":
+                    aclId = parser.getValueAsLong();
+                    break;
+                case "readers":
+                    readers = readStringArray(parser);
+                    break;
+                case "denied":
+                    denied = readStringArray(parser);
+                    break;
+                case "aclChangeSetId":
+                    aclChangeSetId = parser.getValueAsLong();
+                    break;
+                case "tenantDomain":
+                    tenantDomain = parser.getValueAsString();
+                    break;
+                default:
+                    parser.skipChildren();
             }
-            
-            AclReaders aclReaders = new AclReaders(aclId, readers, denied, aclChangeSetId, tenantDomain);
-            aclsReaders.add(aclReaders);
         }
-        // Done
-        return aclsReaders;
-    }
-    
-    /**
-     * Convert a JSON array of authorities to a simple Java List&lt;String&gt;
-     * 
-     * @param jsonArray JSONArray
-     * @return List&lt;String&gt;
-     * @throws JSONException
-     */
-    private List<String> authorityListFromJSON(JSONArray jsonArray) throws JSONException
-    {
-        List<String> authorities = new ArrayList<String>(jsonArray.length());
-        for (int j = 0; j < jsonArray.length(); j++)
+
+        if (tenantDomain == null)
         {
-            String authority = jsonArray.getString(j);
-            authorities.add(authority);
+            tenantDomain = TenantService.DEFAULT_DOMAIN;
         }
-        return authorities;
+        return new AclReaders(aclId, readers, denied, aclChangeSetId, tenantDomain);
     }
     
     public Transactions getTransactions(Long fromCommitTime, Long minTxnId, Long toCommitTime, Long maxTxnId, int maxResults) throws AuthenticationException, IOException, JSONException
@@ -508,6 +523,17 @@ public class SOLRAPIClient
     }
     
     public List<Node> getNodes(GetNodesParameters parameters, int maxResults) throws AuthenticationException, IOException, JSONException
+    {
+        List<Node> nodes = new ArrayList<>();
+        getNodes(parameters, maxResults, nodes::add);
+        return nodes;
+    }
+
+    /**
+     * Same as {@link #getNodes(GetNodesParameters, int)}, but each node is handed to the consumer as soon as it has
+     * been read from the response stream.
+     */
+    public void getNodes(GetNodesParameters parameters, int maxResults, Consumer<Node> consumer) throws AuthenticationException, IOException, JSONException
     {
         StringBuilder url = new StringBuilder(GET_NODES_URL);
 
@@ -571,74 +597,78 @@ public class SOLRAPIClient
             body.put("coreName", parameters.getCoreName());
         }
 
-        
-        PostRequest req = new PostRequest(url.toString(), body.toString(), "application/json");
-        JSONObject json = callRepository(GET_NODES_URL, req);
-
-        JSONArray jsonNodes = json.getJSONArray("nodes");
-        List<Node> nodes = new ArrayList<>(jsonNodes.length());
-        for(int i = 0; i < jsonNodes.length(); i++)
+        if (parameters.getShardFilter() != null)
         {
-            JSONObject jsonNodeInfo = jsonNodes.getJSONObject(i);
-            Node nodeInfo = new Node();
-            if(jsonNodeInfo.has("id"))
+            JSONObject shardFilter = new JSONObject();
+            shardFilter.put("shardMethod", parameters.getShardFilter().getShardMethod());
+            for (Entry<String, String> parameter : parameters.getShardFilter().getParameters().entrySet())
             {
-                nodeInfo.setId(jsonNodeInfo.getLong("id"));
+                shardFilter.put(parameter.getKey(), parameter.getValue());
             }
+            body.put("shardFilter", shardFilter);
+        }
 
-            if(jsonNodeInfo.has("nodeRef"))
-            {
-                nodeInfo.setNodeRef(jsonNodeInfo.getString("nodeRef"));
-            }
-            
-            if(jsonNodeInfo.has("txnId"))
-            {
-                nodeInfo.setTxnId(jsonNodeInfo.getLong("txnId"));
-            }
-            
-            if(jsonNodeInfo.has("aclId"))
-            {
-                nodeInfo.setAclId(jsonNodeInfo.getLong("aclId"));
-            }
-            
-            if(jsonNodeInfo.has("shardPropertyValue"))
-            {
-                nodeInfo.setShardPropertyValue(jsonNodeInfo.getString("shardPropertyValue"));
-            }
+        
+        PostRequest req = new PostRequest(url.toString(), body.toString(), "application/json");
+        streamRepository(GET_NODES_URL, req, "nodes", parser -> consumer.accept(readNode(parser)));
+    }
 
-            if(jsonNodeInfo.has("explicitShardId"))
-            {
-                nodeInfo.setExplicitShardId(jsonNodeInfo.getInt("explicitShardId"));
-            }
-            
-            if(jsonNodeInfo.has("tenant"))
+    private Node readNode(JsonParser parser) throws IOException
+    {
+        Node nodeInfo = new Node();
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL)
             {
-                nodeInfo.setTenant(jsonNodeInfo.getString("tenant"));
+                continue;
             }
 
-            if(jsonNodeInfo.has("status"))
-            {
-                Node.SolrApiNodeStatus status;
-                String statusStr = jsonNodeInfo.getString("status");
-                if(statusStr.equals("u"))
-                {
-                    status = Node.SolrApiNodeStatus.UPDATED;
-                }
-                else if(statusStr.equals("d"))
-                {
-                    status = Node.SolrApiNodeStatus.DELETED;
-                }
-                else
-                {
-                    status = Node.SolrApiNodeStatus.UNKNOWN;
-                }
-                nodeInfo.setStatus(status);
+            switch (fieldName)
+            {
+                case "id":
+                    nodeInfo.setId(parser.getValueAsLong());
+                    break;
+                case "nodeRef":
+                    nodeInfo.setNodeRef(parser.getValueAsString());
+                    break;
+                case "txnId":
+                    nodeInfo.setTxnId(parser.getValueAsLong());
+                    break;
+                case "aclId":
+                    nodeInfo.setAclId(parser.getValueAsLong());
+                    break;
+                case "shardPropertyValue":
+                    nodeInfo.setShardPropertyValue(parser.getValueAsString());
+                    break;
+                case "explicitShardId":
+                    nodeInfo.setExplicitShardId(parser.getValueAsInt());
+                    break;
+                case "tenant":
+                    nodeInfo.setTenant(parser.getValueAsString());
+                    break;
+                case "status":
+                    Node.SolrApiNodeStatus status;
+                    String statusStr = parser.getValueAsString();
+                    if(statusStr.equals("u"))
+                    {
+                        status = Node.SolrApiNodeStatus.UPDATED;
+                    }
+                    else if(statusStr.equals("d"))
+                    {
+                        status = Node.SolrApiNodeStatus.DELETED;
+                    }
+                    else
+                    {
+                        status = Node.SolrApiNodeStatus.UNKNOWN;
+                    }
+                    nodeInfo.setStatus(status);
+                    break;
+                default:
+                    parser.skipChildren();
             }
-            
-            nodes.add(nodeInfo);
         }
-
-        return nodes;
+        return nodeInfo;
     }
     
     private PropertyValue getSinglePropertyValue(DataTypeDefinition dataType, Object value) throws JSONException
@@ -733,6 +763,18 @@ public class SOLRAPIClient
     }
     
     public List<NodeMetaData> getNodesMetaData(NodeMetaDataParameters params) throws AuthenticationException, IOException, JSONException
+    {
+        List<NodeMetaData> nodes = new ArrayList<>();
+        getNodesMetaData(params, nodes::add);
+        return nodes;
+    }
+
+    /**
+     * Same as {@link #getNodesMetaData(NodeMetaDataParameters)}, but each node metadata is built straight from the
+     * response stream and handed to the consumer as soon as it has been read, so a batch of large nodes is never
+     * held in memory as a whole JSON tree.
+     */
+    public void getNodesMetaData(NodeMetaDataParameters params, Consumer<NodeMetaData> consumer) throws AuthenticationException, IOException, JSONException
     {
         List<Long> nodeIds = params.getNodeIds();
         
@@ -807,187 +849,213 @@ public class SOLRAPIClient
         }
 
         PostRequest req = new PostRequest(url.toString(), body.toString(), "application/json");
-        JSONObject json = callRepository(GET_METADATA_URL, req);
+        streamRepository(GET_METADATA_URL, req, "nodes", parser -> consumer.accept(readNodeMetaData(parser)));
+    }
 
-        JSONArray jsonNodes = json.getJSONArray("nodes");
-        List<NodeMetaData> nodes = new ArrayList<>(jsonNodes.length());
-        for(int i = 0; i < jsonNodes.length(); i++)
+    private NodeMetaData readNodeMetaData(JsonParser parser) throws IOException, JSONException
+    {
+        NodeMetaData metaData = new NodeMetaData();
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
         {
-            JSONObject jsonNodeInfo = jsonNodes.getJSONObject(i);
-            NodeMetaData metaData = new NodeMetaData();
-            
-            if(jsonNodeInfo.has("id"))
+            String fieldName = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL)
             {
-                metaData.setId(jsonNodeInfo.getLong("id"));
-            }
-            
-            if(jsonNodeInfo.has("tenantDomain"))
-            {
-                metaData.setTenantDomain(jsonNodeInfo.getString("tenantDomain"));
-            }
-            
-            if(jsonNodeInfo.has("txnId"))
-            {
-                metaData.setTxnId(jsonNodeInfo.getLong("txnId"));
-            }
-            
-            if(jsonNodeInfo.has("aclId"))
-            {
-                metaData.setAclId(jsonNodeInfo.getLong("aclId"));
+                continue;
             }
 
-            if(jsonNodeInfo.has("nodeRef"))
-            {
-                metaData.setNodeRef(new NodeRef(jsonNodeInfo.getString("nodeRef")));
-            }
-            
-            if(jsonNodeInfo.has("type"))
-            {
-                metaData.setType(deserializer.deserializeValue(QName.class, jsonNodeInfo.getString("type")));
-            }
-            
-            if(jsonNodeInfo.has("aspects"))
-            {
-                JSONArray jsonAspects = jsonNodeInfo.getJSONArray("aspects");
-                Set<QName> aspects = new HashSet<QName>(jsonAspects.length());
-                for(int j = 0; j < jsonAspects.length(); j++)
-                {
-                    String jsonAspect = (String)jsonAspects.get(j);
-                    aspects.add(deserializer.deserializeValue(QName.class, jsonAspect));
-                }
-                metaData.setAspects(aspects);
-            }
+            switch (fieldName)
+            {
+                case "id":
+                    metaData.setId(parser.getValueAsLong());
+                    break;
+                case "tenantDomain":
+                    metaData.setTenantDomain(parser.getValueAsString());
+                    break;
+                case "txnId":
+                    metaData.setTxnId(parser.getValueAsLong());
+                    break;
+                case "aclId":
+                    metaData.setAclId(parser.getValueAsLong());
+                    break;
+                case "nodeRef":
+                    metaData.setNodeRef(new NodeRef(parser.getValueAsString()));
+                    break;
+                case "type":
+                    metaData.setType(deserializer.deserializeValue(QName.class, parser.getValueAsString()));
+                    break;
+                case "aspects":
+                    Set<QName> aspects = new HashSet<QName>();
+                    for (String aspect : readStringArray(parser))
+                    {
+                        aspects.add(deserializer.deserializeValue(QName.class, aspect));
+                    }
+                    metaData.setAspects(aspects);
+                    break;
+                case "paths":
+                    List<Pair<String, QName>> paths = new ArrayList<Pair<String, QName>>();
+                    List<String> ancestorPaths = new ArrayList<String>();
+                    while (parser.nextToken() == JsonToken.START_OBJECT)
+                    {
+                        String pathValue = null;
+                        QName qname = null;
+                        while (parser.nextToken() == JsonToken.FIELD_NAME)
+                        {
+                            String pathField = parser.getCurrentName();
+                            parser.nextToken();
+                            if ("path".equals(pathField))
+                            {
+                                pathValue = parser.getValueAsString();
+                            }
+                            else if ("qname".equals(pathField))
+                            {
+                                qname = deserializer.deserializeValue(QName.class, parser.getValueAsString());
+                            }
+                            else if ("apath".equals(pathField))
+                            {
+                                ancestorPaths.add(parser.getValueAsString());
+                            }
+                            else
+                            {
+                                parser.skipChildren();
+                            }
+                        }
+                        paths.add(new Pair<String, QName>(pathValue, qname));
+                    }
+                    metaData.setPaths(paths);
+                    metaData.setAncestorPaths(ancestorPaths);
+                    break;
+                case "namePaths":
+                    List<List<String>> namePaths = new ArrayList<List<String>>();
+                    while (parser.nextToken() == JsonToken.START_OBJECT)
+                    {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME)
+                        {
+                            String namePathField = parser.getCurrentName();
+                            parser.nextToken();
+                            if ("namePath".equals(namePathField))
+                            {
+                                namePaths.add(readStringArray(parser));
+                            }
+                            else
+                            {
+                                parser.skipChildren();
+                            }
+                        }
+                    }
+                    metaData.setNamePaths(namePaths);
+                    break;
+                case "ancestors":
+                    HashSet<NodeRef> ancestors = new HashSet<NodeRef>();
+                    for (String ancestorNodeRefString : readStringArray(parser))
+                    {
+                        ancestors.add(new NodeRef(ancestorNodeRefString));
+                    }
+                    metaData.setAncestors(ancestors);
+                    break;
+                case "properties":
+                    Map<QName, PropertyValue> properties = new HashMap<QName, PropertyValue>();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME)
+                    {
+                        String propName = parser.getCurrentName();
+                        QName propQName = deserializer.deserializeValue(QName.class, propName);
+                        parser.nextToken();
 
-            if(jsonNodeInfo.has("paths"))
-            {
-                JSONArray jsonPaths = jsonNodeInfo.getJSONArray("paths");
-                List<Pair<String, QName>> paths = new ArrayList<Pair<String, QName>>(jsonPaths.length());
-                List<String> ancestorPaths = new ArrayList<String>();
-                for(int j = 0; j < jsonPaths.length(); j++)
-                {
-                    JSONObject path = jsonPaths.getJSONObject(j);
-                    String pathValue = path.getString("path");
-                    QName qname = path.has("qname") ? deserializer.deserializeValue(QName.class, path.getString("qname")) : null;
-                    paths.add(new Pair<String, QName>(pathValue, qname));
-                    if(path.has("apath"))
+                        // Only the value of a single property is ever materialised as JSON, for the type conversion
+                        Object propValueObj = readJSONValue(parser);
+
+                        // check the expected property type to determine how to process the value
+                        PropertyDefinition propertyDef = dictionaryService.getProperty(propQName);
+                        properties.put(propQName, getPropertyValue(propertyDef, propValueObj));
+                    }
+                    metaData.setProperties(properties);
+                    break;
+                case "parentAssocsCrc":
+                    metaData.setParentAssocsCrc(parser.getValueAsLong());
+                    break;
+                case "parentAssocs":
+                    List<ChildAssociationRef> parentAssocs = new ArrayList<ChildAssociationRef>();
+                    for (String childAssocRefStr : readStringArray(parser))
                     {
-                    	String ancestorPath = path.getString("apath");
-                    	ancestorPaths.add(ancestorPath);
+                        parentAssocs.add(new ChildAssociationRef(childAssocRefStr));
                     }
-                }
-                metaData.setPaths(paths);
-                metaData.setAncestorPaths(ancestorPaths);
-            }
-            
-            if(jsonNodeInfo.has("namePaths"))
-            {
-                JSONArray jsonNamePaths = jsonNodeInfo.getJSONArray("namePaths");
-                List<List<String>> namePaths = new ArrayList<List<String>>(jsonNamePaths.length());
-                for(int j = 0; j < jsonNamePaths.length(); j++)
-                {
-                    JSONObject jsonNamePath = jsonNamePaths.getJSONObject(j);
-                    JSONArray jsonNameElements = jsonNamePath.getJSONArray("namePath");
-                    List<String> namePath = new ArrayList<String>(jsonNameElements.length());
-                    for(int k = 0; k < jsonNameElements.length(); k++)
+                    metaData.setParentAssocs(parentAssocs);
+                    break;
+                case "childAssocs":
+                    List<ChildAssociationRef> childAssocs = new ArrayList<ChildAssociationRef>();
+                    for (String childAssocRefStr : readStringArray(parser))
                     {
-                        String namePathElement =  jsonNameElements.getString(k);
-                        namePath.add(namePathElement);
+                        childAssocs.add(new ChildAssociationRef(childAssocRefStr));
                     }
-                    namePaths.add(namePath);
-                }
-                metaData.setNamePaths(namePaths);
-            }
-            
-            if(jsonNodeInfo.has("ancestors"))
-            {
-                JSONArray jsonAncestors = jsonNodeInfo.getJSONArray("ancestors");
-                HashSet<NodeRef> ancestors = new HashSet<NodeRef>(jsonAncestors.length());
-                for(int j = 0; j < jsonAncestors.length(); j++)
-                {
-                    String ancestorNodeRefString = jsonAncestors.getString(j);
-                    NodeRef ancestorNodeRef = new NodeRef(ancestorNodeRefString);
-                    ancestors.add(ancestorNodeRef);
-                }
-                metaData.setAncestors(ancestors);
+                    metaData.setChildAssocs(childAssocs);
+                    break;
+                case "childIds":
+                    List<Long> childIds = new ArrayList<Long>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY)
+                    {
+                        childIds.add(parser.getValueAsLong());
+                    }
+                    metaData.setChildIds(childIds);
+                    break;
+                case "owner":
+                    metaData.setOwner(parser.getValueAsString());
+                    break;
+                default:
+                    parser.skipChildren();
             }
+        }
+        return metaData;
+    }
 
-            if(jsonNodeInfo.has("properties"))
-            {
-                JSONObject jsonProperties = jsonNodeInfo.getJSONObject("properties");
-                Map<QName, PropertyValue> properties = new HashMap<QName, PropertyValue>(jsonProperties.length());
-                @SuppressWarnings("rawtypes")
-                Iterator propKeysIterator = jsonProperties.keys();
-                while(propKeysIterator.hasNext())
-                {
-                    String propName = (String)propKeysIterator.next();
-                    QName propQName = deserializer.deserializeValue(QName.class, propName);
-                    Object propValueObj = jsonProperties.opt(propName);
-
-                    // check the expected property type to determine how to process the value
-                    PropertyDefinition propertyDef = dictionaryService.getProperty(propQName);
-//                    if(propertyDef == null)
-//                    {
-//                        // TODO which exception here?
-//                        throw new IllegalArgumentException("Could not find property definition for property " + propName);
-//                    }
-                    
-                    properties.put(propQName, getPropertyValue(propertyDef, propValueObj));
-                }
-                metaData.setProperties(properties);
-            }
-            
-            if(jsonNodeInfo.has("parentAssocsCrc"))
-            {
-                metaData.setParentAssocsCrc(jsonNodeInfo.getLong("parentAssocsCrc"));
-            }
-            
-            if(jsonNodeInfo.has("parentAssocs"))
-            {
-                JSONArray jsonParentAssocs = jsonNodeInfo.getJSONArray("parentAssocs");
-                List<ChildAssociationRef> assocs = new ArrayList<ChildAssociationRef>(jsonParentAssocs.length());
-                for(int j = 0; j < jsonParentAssocs.length(); j++)
-                {
-                    String childAssocRefStr = jsonParentAssocs.getString(j);
-                    ChildAssociationRef childAssociationRef = new ChildAssociationRef(childAssocRefStr);
-                    assocs.add(childAssociationRef);
-                }
-                metaData.setParentAssocs(assocs);
-            }
-            
-            if(jsonNodeInfo.has("childAssocs"))
-            {
-                JSONArray jsonParentAssocs = jsonNodeInfo.getJSONArray("childAssocs");
-                List<ChildAssociationRef> assocs = new ArrayList<ChildAssociationRef>(jsonParentAssocs.length());
-                for(int j = 0; j < jsonParentAssocs.length(); j++)
+    /**
+     * Reads the strings of the array the parser is positioned on.
+     */
+    private List<String> readStringArray(JsonParser parser) throws IOException
+    {
+        List<String> values = new ArrayList<String>();
+        while (parser.nextToken() != JsonToken.END_ARRAY)
+        {
+            values.add(parser.getValueAsString());
+        }
+        return values;
+    }
+
+    /**
+     * Reads the value the parser is positioned on as the equivalent org.json value, so it can go through the same
+     * property value conversion used for {@link JSONObject} responses.
+     */
+    private Object readJSONValue(JsonParser parser) throws IOException, JSONException
+    {
+        switch (parser.getCurrentToken())
+        {
+            case START_OBJECT:
+                JSONObject object = new JSONObject();
+                while (parser.nextToken() == JsonToken.FIELD_NAME)
                 {
-                    String childAssocRefStr = jsonParentAssocs.getString(j);
-                    ChildAssociationRef childAssociationRef = new ChildAssociationRef(childAssocRefStr);
-                    assocs.add(childAssociationRef);
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    object.put(name, readJSONValue(parser));
                 }
-                metaData.setChildAssocs(assocs);
-            }
-            
-            if(jsonNodeInfo.has("childIds"))
-            {
-                JSONArray jsonChildIds = jsonNodeInfo.getJSONArray("childIds");
-                List<Long> childIds = new ArrayList<Long>(jsonChildIds.length());
-                for(int j = 0; j < jsonChildIds.length(); j++)
+                return object;
+            case START_ARRAY:
+                JSONArray array = new JSONArray();
+                while (parser.nextToken() != JsonToken.END_ARRAY)
                 {
-                    Long childId = jsonChildIds.getLong(j);
-                    childIds.add(childId);
+                    array.put(readJSONValue(parser));
                 }
-                metaData.setChildIds(childIds);
-            }
-            
-            if(jsonNodeInfo.has("owner"))
-            {
-                metaData.setOwner(jsonNodeInfo.getString("owner"));
-            }
-            
-            nodes.add(metaData);
+                return array;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                return JSONObject.NULL;
         }
-
-        return nodes;
     }
     
     public GetTextContentResponse getTextContent(Long nodeId, QName propertyQName, Long modifiedSince) throws AuthenticationException, IOException {
@@ -1621,6 +1689,80 @@ public class SOLRAPIClient
         }
     }
 
+    /**
+     * Sends the request and pulls the objects of the "arrayName" array in the JSON response one by one, handing each
+     * of them to the element reader: unlike {@link #callRepository(String, Request)} the response is never
+     * materialised as a whole.
+     */
+    private void streamRepository(String msgId, Request req, String arrayName, JsonElementReader elementReader) throws IOException, AuthenticationException, JSONException
+    {
+        Response response = null;
+        LookAheadBufferedReader reader = null;
+        try
+        {
+            response = repositoryHttpClient.sendRequest(req);
+            if (response.getStatus() != HttpStatus.SC_OK)
+            {
+                throw new AlfrescoRuntimeException(msgId + " return status:" + response.getStatus());
+            }
+
+            reader = new LookAheadBufferedReader(new InputStreamReader(response.getContentAsStream(), StandardCharsets.UTF_8), LOGGER);
+            try (JsonParser parser = jsonFactory.createParser(reader))
+            {
+                if (parser.nextToken() != JsonToken.START_OBJECT)
+                {
+                    throw new JSONException("A JSON object was expected");
+                }
+
+                while (parser.nextToken() == JsonToken.FIELD_NAME)
+                {
+                    String fieldName = parser.getCurrentName();
+                    if (parser.nextToken() == JsonToken.START_ARRAY && arrayName.equals(fieldName))
+                    {
+                        while (parser.nextToken() == JsonToken.START_OBJECT)
+                        {
+                            elementReader.read(parser);
+                        }
+                    }
+                    else
+                    {
+                        parser.skipChildren();
+                    }
+                }
+            }
+            catch (JsonProcessingException exception)
+            {
+                throw new JSONException(exception.getMessage());
+            }
+        }
+        catch (JSONException exception)
+        {
+            String message = "Received a malformed JSON payload. Request was \"" +
+                    req.getFullUri() +
+                    "Data: "
+                    + ofNullable(reader)
+                    .map(LookAheadBufferedReader::lookAheadAndGetBufferedContent)
+                    .orElse("Not available");
+            LOGGER.error(message);
+            throw exception;
+        }
+        finally
+        {
+            ofNullable(response).ifPresent(Response::release);
+            ofNullable(reader).ifPresent(this::silentlyClose);
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonElementReader
+    {
+        /**
+         * Reads one element, the parser being positioned on its START_OBJECT; the element must be consumed up to
+         * its END_OBJECT.
+         */
+        void read(JsonParser parser) throws IOException, JSONException;
+    }
+
     private void silentlyClose(Closeable closeable)
     {
         try
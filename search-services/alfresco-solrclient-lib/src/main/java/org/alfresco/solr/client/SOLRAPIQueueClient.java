@@ -39,7 +39,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.alfresco.httpclient.Response;
@@ -152,6 +154,12 @@ public class SOLRAPIQueueClient extends SOLRAPIClient
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public void getAclReaders(List<Acl> acls, Consumer<AclReaders> consumer) throws IOException, JSONException
+    {
+        getAclReaders(acls).forEach(consumer);
+    }
+
 
     public List<AlfrescoModelDiff> getModelsDiff(String coreName, List<AlfrescoModel> currentModels) throws IOException, JSONException
     {
@@ -212,12 +220,21 @@ public class SOLRAPIQueueClient extends SOLRAPIClient
             throw new ConnectException("THROWING EXCEPTION, better be ready!");
         }
 
+        // Like the repository, return only the nodes of the requesting shard when it sends its filter
+        ShardFilter shardFilter = parameters.getShardFilter();
         return parameters.getTransactionIds().stream()
                     .map(NODE_MAP::get)
                     .flatMap(Collection::stream)
+                    .filter(node -> shardFilter == null || shardFilter.accepts(node))
                     .collect(Collectors.toList());
     }
 
+    @Override
+    public void getNodes(GetNodesParameters parameters, int maxResults, Consumer<Node> consumer) throws IOException, JSONException
+    {
+        getNodes(parameters, maxResults).forEach(consumer);
+    }
+
     @Override
     public List<NodeMetaData> getNodesMetaData(NodeMetaDataParameters params) throws IOException, JSONException
     {
@@ -230,6 +247,7 @@ public class SOLRAPIQueueClient extends SOLRAPIClient
                 .map(identifiers ->
                         identifiers.stream()
                             .map(NODE_META_DATA_MAP::get)
+                            .filter(Objects::nonNull)
                             .map(metadata -> getOnlyRequestedMetadata(metadata, params))
                             .collect(Collectors.toList()))
                 .orElseGet(() ->
@@ -240,6 +258,12 @@ public class SOLRAPIQueueClient extends SOLRAPIClient
                                 .orElseGet(Collections::emptyList));
     }
 
+    @Override
+    public void getNodesMetaData(NodeMetaDataParameters params, Consumer<NodeMetaData> consumer) throws IOException, JSONException
+    {
+        getNodesMetaData(params).forEach(consumer);
+    }
+
     /**
      * This method is meant to use the input node metadata parameters to return only the appropriate metadata from the input node.
      * So if a metadata is not requested in the parameters, it will be removed from the input node metadata object.
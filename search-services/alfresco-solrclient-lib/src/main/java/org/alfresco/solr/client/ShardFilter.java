@@ -0,0 +1,85 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The routing predicate of a shard, sent with the {@link GetNodesParameters} so that the repository returns only the
+ * nodes the shard indexes.
+ *
+ * The predicate is described by the shard method and its parameters (e.g. shard count and instance, DBID range,
+ * murmur hash seed), which is what is sent to the repository; it is also available as a {@link Predicate} for the
+ * node sources running in process. A repository which doesn't support the filter returns all the nodes, which are
+ * then filtered by the shard itself.
+ */
+public class ShardFilter
+{
+    public static final String SHARD_COUNT = "shard.count";
+    public static final String SHARD_INSTANCE = "shard.instance";
+    public static final String SHARD_RANGE = "shard.range";
+    public static final String MURMUR_SEED = "murmur.seed";
+    public static final String SHARD_DATE_GROUPING = "shard.date.grouping";
+
+    private final String shardMethod;
+    private final Map<String, String> parameters;
+    private final Predicate<Node> predicate;
+
+    public ShardFilter(String shardMethod, Map<String, String> parameters, Predicate<Node> predicate)
+    {
+        this.shardMethod = shardMethod;
+        this.parameters = Collections.unmodifiableMap(parameters);
+        this.predicate = predicate;
+    }
+
+    public String getShardMethod()
+    {
+        return shardMethod;
+    }
+
+    public Map<String, String> getParameters()
+    {
+        return parameters;
+    }
+
+    /**
+     * @return true if the node belongs to the shard.
+     */
+    public boolean accepts(Node node)
+    {
+        return predicate.test(node);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ShardFilter [shardMethod=" + shardMethod + ", parameters=" + parameters + "]";
+    }
+}
@@ -58,6 +58,8 @@ public class TrackerStats
     ConcurrentHashMap<String, IncrementalStats> docTransformationTimes = new ConcurrentHashMap<String, IncrementalStats>();
 
     ConcurrentHashMap<String, IncrementalStats> nodeTimes = new ConcurrentHashMap<String, IncrementalStats>();
+
+    ConcurrentHashMap<String, IncrementalStats> cascadeBatchTimes = new ConcurrentHashMap<String, IncrementalStats>();
     
     ConcurrentHashMap<String, IncrementalStats> elapsedNodeTimes = new ConcurrentHashMap<String, IncrementalStats>();
     
@@ -157,6 +159,14 @@ public class TrackerStats
         return aggregateResults(nodeTimes);
     }
 
+    /**
+     * @return the cascadeBatchTimes
+     */
+    public SimpleStats getCascadeBatchTimes()
+    {
+        return aggregateResults(cascadeBatchTimes);
+    }
+
     /**
      * @return the txDocs
      */
@@ -847,6 +857,20 @@ public class TrackerStats
         stats.add(time);
     }
 
+    /**
+     * @param time long
+     */
+    public void addCascadeBatchTime(long time)
+    {
+        IncrementalStats stats = cascadeBatchTimes.get(Thread.currentThread().getName());
+        if (stats == null)
+        {
+            stats = new IncrementalStats(TIME_SCALE, 50, this.infoSrv);
+            cascadeBatchTimes.put(Thread.currentThread().getName(), stats);
+        }
+        stats.add(time);
+    }
+
     /**
      * @param docCount int
      * @param time long
@@ -970,7 +994,7 @@ public class TrackerStats
     {
         return "TrackerStats [modelTimes="
                 + modelTimes + ", aclTimes=" + aclTimes + ", changeSetAcls=" + changeSetAcls + ", txDocs=" + txDocs + ", docTransformationTimes=" + docTransformationTimes
-                + ", nodeTimes=" + nodeTimes + "]";
+                + ", nodeTimes=" + nodeTimes + ", cascadeBatchTimes=" + cascadeBatchTimes + "]";
     }
 
     /**
@@ -984,6 +1008,7 @@ public class TrackerStats
         txDocs.clear();
         docTransformationTimes.clear();
         nodeTimes.clear();
+        cascadeBatchTimes.clear();
     }
 
  
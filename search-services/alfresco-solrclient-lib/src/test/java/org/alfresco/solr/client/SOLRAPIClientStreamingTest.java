@@ -0,0 +1,151 @@
+/*
+ * #%L
+ * Alfresco Search Services
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software. 
+ * If the software was purchased under a paid Alfresco license, the terms of 
+ * the paid license agreement will prevail.  Otherwise, the software is 
+ * provided under the following open source license terms:
+ * 
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+
+package org.alfresco.solr.client;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.alfresco.httpclient.AlfrescoHttpClient;
+import org.alfresco.httpclient.Request;
+import org.alfresco.httpclient.Response;
+import org.alfresco.repo.dictionary.NamespaceDAO;
+import org.alfresco.service.cmr.dictionary.DictionaryService;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.namespace.QName;
+import org.apache.commons.httpclient.HttpStatus;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the streaming decoding of the {@link SOLRAPIClient} responses.
+ */
+public class SOLRAPIClientStreamingTest
+{
+    private static final QName PROP_NAME = QName.createQName("{http://www.alfresco.org/model/content/1.0}name");
+
+    private AlfrescoHttpClient httpClient;
+    private Response response;
+    private SOLRAPIClient client;
+
+    @Before
+    public void setUp()
+    {
+        httpClient = mock(AlfrescoHttpClient.class);
+        response = mock(Response.class);
+        client = new SOLRAPIClient(httpClient, mock(DictionaryService.class), mock(NamespaceDAO.class));
+    }
+
+    private void respondWith(String json) throws Exception
+    {
+        when(httpClient.sendRequest(any(Request.class))).thenReturn(response);
+        when(response.getStatus()).thenReturn(HttpStatus.SC_OK);
+        when(response.getContentAsStream()).thenReturn(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void nodesMetaDataAreBuiltFromTheStream() throws Exception
+    {
+        respondWith("{\"nodes\":[" +
+                "{\"id\":1,\"txnId\":10,\"aclId\":5,\"tenantDomain\":\"\"," +
+                "\"nodeRef\":\"workspace://SpacesStore/a\"," +
+                "\"type\":\"{http://www.alfresco.org/model/content/1.0}content\"," +
+                "\"unknown\":{\"nested\":[1,2,{\"x\":null}]}," +
+                "\"paths\":[{\"path\":\"/a\",\"qname\":\"{http://www.alfresco.org/model/content/1.0}a\",\"apath\":\"/1\"}]," +
+                "\"namePaths\":[{\"namePath\":[\"Company Home\",\"a\"]}]," +
+                "\"ancestors\":[\"workspace://SpacesStore/root\"]," +
+                "\"properties\":{\"{http://www.alfresco.org/model/content/1.0}name\":\"a.txt\"}," +
+                "\"childIds\":[2,3]," +
+                "\"owner\":null}," +
+                "{\"id\":2,\"txnId\":11}" +
+                "],\"count\":2}");
+
+        List<NodeMetaData> nodes = client.getNodesMetaData(new NodeMetaDataParameters());
+
+        assertEquals(2, nodes.size());
+        NodeMetaData first = nodes.get(0);
+        assertEquals(1, first.getId());
+        assertEquals(10, first.getTxnId());
+        assertEquals(5, first.getAclId());
+        assertEquals(new NodeRef("workspace://SpacesStore/a"), first.getNodeRef());
+        assertEquals(QName.createQName("{http://www.alfresco.org/model/content/1.0}content"), first.getType());
+        assertEquals("/a", first.getPaths().get(0).getFirst());
+        assertEquals(singletonList("/1"), first.getAncestorPaths());
+        assertEquals(singletonList(asList("Company Home", "a")), first.getNamePaths());
+        assertEquals(1, first.getAncestors().size());
+        assertEquals("a.txt", ((StringPropertyValue) first.getProperties().get(PROP_NAME)).getValue());
+        assertEquals(asList(2L, 3L), first.getChildIds());
+        assertNull(first.getOwner());
+
+        assertEquals(2, nodes.get(1).getId());
+        assertEquals(11, nodes.get(1).getTxnId());
+        verify(response).release();
+    }
+
+    @Test
+    public void nodesAreHandedToTheConsumerOneByOne() throws Exception
+    {
+        respondWith("{\"nodes\":[" +
+                "{\"id\":1,\"txnId\":10,\"status\":\"u\",\"tenant\":\"\"}," +
+                "{\"id\":2,\"txnId\":10,\"status\":\"d\"}" +
+                "]}");
+
+        List<Node> nodes = new ArrayList<>();
+        client.getNodes(new GetNodesParameters(), 10, nodes::add);
+
+        assertEquals(2, nodes.size());
+        assertEquals(Node.SolrApiNodeStatus.UPDATED, nodes.get(0).getStatus());
+        assertEquals(Node.SolrApiNodeStatus.DELETED, nodes.get(1).getStatus());
+    }
+
+    @Test
+    public void aclReadersWithoutTenantGetTheDefaultDomain() throws Exception
+    {
+        respondWith("{\"aclsReaders\":[" +
+                "{\"aclId\":7,\"readers\":[\"GROUP_EVERYONE\"],\"denied\":[],\"aclChangeSetId\":3}" +
+                "]}");
+
+        List<AclReaders> aclReaders = client.getAclReaders(singletonList(new Acl(3, 7)));
+
+        assertEquals(1, aclReaders.size());
+        assertEquals(7, aclReaders.get(0).getId());
+        assertEquals(singletonList("GROUP_EVERYONE"), aclReaders.get(0).getReaders());
+        assertEquals(3, aclReaders.get(0).getAclChangeSetId());
+        assertEquals("", aclReaders.get(0).getTenantDomain());
+    }
+}